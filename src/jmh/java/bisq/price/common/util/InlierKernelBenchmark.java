@@ -0,0 +1,81 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.common.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the scalar passes of {@link InlierStatistics} with those on the JDK Vector
+ * API, for as many prices per currency as there are providers. Needs the JVM to run with
+ * {@code --add-modules jdk.incubator.vector}, as the jmh task does. Run with
+ * {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InlierKernelBenchmark {
+
+    private static final double STD_DEVS = 1.1;
+
+    @Param({"10", "30", "100", "1000"})
+    private int priceCount;
+
+    private double[] prices;
+    private final InlierStatistics scalar = new InlierStatistics();
+    private final InlierStatistics vectorized = InlierStatistics.vectorized();
+
+    @Setup
+    public void setup() {
+        if (!InlierStatistics.isVectorKernelAvailable()) {
+            throw new IllegalStateException("The jdk.incubator.vector module is not available");
+        }
+        Random random = new Random(42);
+        prices = new double[priceCount];
+        for (int i = 0; i < priceCount; i++) {
+            prices[i] = 65_000 * (1 + 0.01 * random.nextGaussian());
+        }
+        // One far off price, as a broken feed would deliver
+        prices[0] *= 2;
+    }
+
+    @Benchmark
+    public double scalar() {
+        return scalar.compute(prices, priceCount, 0, STD_DEVS).getInlierMean();
+    }
+
+    @Benchmark
+    public double vectorized() {
+        return vectorized.compute(prices, priceCount, 0, STD_DEVS).getInlierMean();
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.common.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the outlier filtered average as computed by the boxed {@link InlierUtil} with
+ * the primitive {@link InlierStatistics}, for as many prices per currency as there are
+ * providers. Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InlierUtilBenchmark {
+
+    private static final double STD_DEVS = 1.1;
+
+    @Param({"3", "10", "30"})
+    private int priceCount;
+
+    private List<Double> pricesList;
+    private double[] prices;
+    private final InlierStatistics statistics = new InlierStatistics();
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        prices = new double[priceCount];
+        for (int i = 0; i < priceCount; i++) {
+            prices[i] = 65_000 * (1 + 0.01 * random.nextGaussian());
+        }
+        // One far off price, as a broken feed would deliver
+        prices[0] *= 2;
+        pricesList = Arrays.stream(prices).boxed().collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public double inlierUtil() {
+        // What ExchangeRateService did before: box, find the range, filter, average
+        List<Double> yValues = pricesList.stream().mapToDouble(Double::doubleValue).boxed().collect(Collectors.toList());
+        Tuple2<Double, Double> range = InlierUtil.findInlierRange(yValues, 0, STD_DEVS);
+        return yValues.stream().mapToDouble(Double::doubleValue)
+                .filter(price -> price >= range.first && price <= range.second)
+                .average()
+                .orElseThrow();
+    }
+
+    @Benchmark
+    public double inlierStatistics() {
+        return statistics.compute(prices, priceCount, 0, STD_DEVS).getInlierMean();
+    }
+}
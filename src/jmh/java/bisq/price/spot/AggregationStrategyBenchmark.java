@@ -0,0 +1,127 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.spot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost and robustness of the {@link AggregationStrategy}s on the price sets in
+ * {@code src/jmh/resources/prices/price-sets.csv}. The benchmark measures the time to
+ * aggregate all sets. Robustness, i.e. how far each aggregate lands from the average of
+ * the prices not marked as broken, is printed once per strategy during setup. Run with
+ * {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AggregationStrategyBenchmark {
+
+    @Param({InlierMeanAggregation.NAME, MedianAggregation.NAME, TrimmedMeanAggregation.NAME})
+    private String strategyName;
+
+    private AggregationStrategy strategy;
+    private final List<PriceSet> priceSets = new ArrayList<>();
+    private final double[] bounds = new double[2];
+
+    private record PriceSet(String currencyCode, double[] prices, double expected) {
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        strategy = AggregationStrategy.create(new StandardEnvironment(), strategyName);
+        priceSets.clear();
+        priceSets.addAll(load());
+
+        double maxError = 0;
+        double sumError = 0;
+        String worst = null;
+        for (PriceSet priceSet : priceSets) {
+            double aggregate = strategy.aggregate(priceSet.prices(), priceSet.prices().length, bounds);
+            double error = Math.abs(aggregate / priceSet.expected() - 1);
+            sumError += error;
+            if (error > maxError) {
+                maxError = error;
+                worst = priceSet.currencyCode();
+            }
+        }
+        System.out.printf("%n%s: mean relative error %.5f%%, max %.5f%% (%s) over %d price sets%n",
+                strategyName, 100 * sumError / priceSets.size(), 100 * maxError, worst, priceSets.size());
+    }
+
+    @Benchmark
+    public double aggregateAll() {
+        double total = 0;
+        for (PriceSet priceSet : priceSets) {
+            total += strategy.aggregate(priceSet.prices(), priceSet.prices().length, bounds);
+        }
+        return total;
+    }
+
+    private static List<PriceSet> load() throws IOException {
+        List<PriceSet> priceSets = new ArrayList<>();
+        try (InputStream in = AggregationStrategyBenchmark.class.getResourceAsStream("/prices/price-sets.csv")) {
+            if (in == null) {
+                throw new IOException("Missing price sets");
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(",");
+                double[] prices = new double[fields.length - 1];
+                double goodSum = 0;
+                int goodCount = 0;
+                for (int i = 1; i < fields.length; i++) {
+                    boolean broken = fields[i].startsWith("!");
+                    prices[i - 1] = Double.parseDouble(broken ? fields[i].substring(1) : fields[i]);
+                    if (!broken) {
+                        goodSum += prices[i - 1];
+                        goodCount++;
+                    }
+                }
+                priceSets.add(new PriceSet(fields[0], prices, goodSum / goodCount));
+            }
+        }
+        return priceSets;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.spot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.BitSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggregates 10k currencies quoted by 30 providers each, with a fork/join pool of
+ * {@code parallelism} workers. {@code parallelism = 0} aggregates on the calling thread,
+ * as done below the parallel threshold. Compare the scores across parallelism to see
+ * how aggregation scales with cores. Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelAggregationBenchmark {
+
+    private static final int PROVIDERS = 30;
+    private static final int CURRENCIES = 10_000;
+
+    @Param({"0", "1", "2", "4", "8"})
+    private int parallelism;
+
+    @Param({InlierMeanAggregation.NAME, MedianAggregation.NAME})
+    private String strategy;
+
+    private ForkJoinPool pool;
+    private ExchangeRateAggregator aggregator;
+    private final int[] currencyIds = new int[CURRENCIES];
+    private final ExchangeRate[] aggregates = new ExchangeRate[CURRENCIES];
+    private final double[] bounds = new double[2 * CURRENCIES];
+
+    @Setup
+    public void setup() {
+        Random random = new Random(36);
+        ExchangeRateStore store = new ExchangeRateStore(PROVIDERS);
+        for (int currencyId = 0; currencyId < CURRENCIES; currencyId++) {
+            store.getCurrencyId("C" + currencyId);
+            currencyIds[currencyId] = currencyId;
+        }
+        BitSet changed = new BitSet();
+        for (int providerId = 0; providerId < PROVIDERS; providerId++) {
+            store.beginRow(providerId);
+            for (int currencyId = 0; currencyId < CURRENCIES; currencyId++) {
+                double price = (currencyId + 1) * (1 + 0.005 * random.nextGaussian());
+                // The odd broken feed
+                if (random.nextInt(50) == 0) {
+                    price *= 10;
+                }
+                ExchangeRate rate = new ExchangeRate("C" + currencyId, price, 1000L, "P" + providerId);
+                store.put(currencyId, store.getSourceId(providerId, rate.getProvider()), rate, rate, changed);
+            }
+            store.endRow(changed);
+        }
+
+        StandardEnvironment env = new StandardEnvironment();
+        env.getPropertySources().addFirst(
+                new MapPropertySource("benchmark", Map.of("bisq.price.aggregation.default", strategy)));
+
+        pool = new ForkJoinPool(Math.max(1, parallelism));
+        aggregator = new ExchangeRateAggregator(env, store, pool, parallelism == 0 ? Integer.MAX_VALUE : 1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public ExchangeRate[] aggregateAll() {
+        aggregator.aggregate(currencyIds, CURRENCIES, aggregates, bounds, false);
+        return aggregates;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.spot.journal;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how fast {@link SegmentCompressor} encodes and decodes a journal segment of a
+ * day of one-minute refreshes, and prints the compression ratio against the raw
+ * records. Provider rates are rounded to cents as exchanges quote them, aggregates are
+ * full doubles. Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SegmentCompressionBenchmark {
+    private static final Path PATH = Path.of("prices-0000000001.journal");
+    private static final int MINUTES = 24 * 60;
+
+    @Param({"150"})
+    private int currencyCount;
+
+    @Param({"10"})
+    private int providerCount;
+
+    private JournalSegment segment;
+    private byte[] compressed;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        int records = 1 + providerCount + currencyCount + MINUTES * currencyCount * (providerCount + 1);
+        segment = JournalSegment.allocate(PATH, records);
+        long time = 1_700_000_000_000L;
+        segment.appendHeader(time);
+        for (int providerId = 0; providerId < providerCount; providerId++) {
+            segment.appendName(JournalSegment.PROVIDER, providerId, "PROVIDER" + providerId, time);
+        }
+        double[] prices = new double[currencyCount];
+        for (int currencyId = 0; currencyId < currencyCount; currencyId++) {
+            segment.appendName(JournalSegment.CURRENCY, currencyId, "C" + currencyId, time);
+            prices[currencyId] = 100 + random.nextDouble() * 10_000_000;
+        }
+
+        for (int minute = 0; minute < MINUTES; minute++) {
+            time += 60_000 + random.nextInt(200);
+            for (int currencyId = 0; currencyId < currencyCount; currencyId++) {
+                prices[currencyId] *= 1 + 0.001 * random.nextGaussian();
+            }
+            for (int providerId = 0; providerId < providerCount; providerId++) {
+                // Refreshes are not in step with the exchanges' own timestamps
+                long timestamp = time - random.nextInt(30_000);
+                for (int currencyId = 0; currencyId < currencyCount; currencyId++) {
+                    double price = BigDecimal.valueOf(prices[currencyId] * (1 + 0.0005 * random.nextGaussian()))
+                            .setScale(2, RoundingMode.HALF_UP).doubleValue();
+                    segment.appendRate(JournalSegment.RATE, currencyId, providerId, 0, time, timestamp, price);
+                }
+            }
+            for (int currencyId = 0; currencyId < currencyCount; currencyId++) {
+                segment.appendRate(JournalSegment.AGGREGATE, currencyId, providerCount, providerCount,
+                        time, time - random.nextInt(30_000), prices[currencyId]);
+            }
+        }
+        segment.publish();
+
+        compressed = SegmentCompressor.compress(segment);
+        long raw = (long) segment.getPublished() * JournalSegment.RECORD_SIZE;
+        System.out.printf("%n%d records: %d bytes raw, %d bytes compressed, ratio %.1f, %.2f bytes per record%n",
+                segment.getPublished(), raw, compressed.length, (double) raw / compressed.length,
+                (double) compressed.length / segment.getPublished());
+    }
+
+    @Benchmark
+    public byte[] compress() {
+        return SegmentCompressor.compress(segment);
+    }
+
+    @Benchmark
+    public JournalSegment decompress() throws IOException {
+        return SegmentCompressor.decompress(PATH, ByteBuffer.wrap(compressed));
+    }
+}
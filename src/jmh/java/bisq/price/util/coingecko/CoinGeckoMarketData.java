@@ -1,18 +1,19 @@
 package bisq.price.util.coingecko;
 
-
 import java.util.Map;
 import java.util.stream.Collectors;
 
-import lombok.Getter;
-import lombok.Setter;
-
-@Getter
-@Setter
+/**
+ * The former DTO of the CoinGecko rates, kept for {@code ProviderPayloadDecodingBenchmark}.
+ */
 public class CoinGeckoMarketData {
 
     private Map<String, CoinGeckoTicker> rates;
 
+    public Map<String, CoinGeckoTicker> getRates() {
+        return rates;
+    }
+
     public void setRates(Map<String, CoinGeckoTicker> rates) {
         // Convert keys to uppercase ("usd" -> "USD") when deserializing API response
         this.rates = rates.entrySet().stream()
@@ -0,0 +1,49 @@
+package bisq.price.util.coingecko;
+
+import java.math.BigDecimal;
+
+/**
+ * The former DTO of a CoinGecko rate, kept for {@code ProviderPayloadDecodingBenchmark}.
+ */
+public class CoinGeckoTicker {
+
+    private String name;
+
+    private String unit;
+
+    private BigDecimal value;
+
+    private String type;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    public void setUnit(String unit) {
+        this.unit = unit;
+    }
+
+    public BigDecimal getValue() {
+        return value;
+    }
+
+    public void setValue(BigDecimal value) {
+        this.value = value;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+}
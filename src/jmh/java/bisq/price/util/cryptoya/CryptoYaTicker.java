@@ -19,14 +19,13 @@ package bisq.price.util.cryptoya;
 
 import bisq.price.spot.ExchangeRate;
 import bisq.price.spot.providers.CryptoYa;
-import lombok.Getter;
-import lombok.Setter;
 
 import java.time.Instant;
 import java.util.Optional;
 
-@Getter
-@Setter
+/**
+ * The former DTO of a CryptoYa quote, kept for {@code ProviderPayloadDecodingBenchmark}.
+ */
 public class CryptoYaTicker {
 
     private double ask;
@@ -37,6 +36,46 @@ public class CryptoYaTicker {
 
     private long time;
 
+    public double getAsk() {
+        return ask;
+    }
+
+    public void setAsk(double ask) {
+        this.ask = ask;
+    }
+
+    public double getTotalAsk() {
+        return totalAsk;
+    }
+
+    public void setTotalAsk(double totalAsk) {
+        this.totalAsk = totalAsk;
+    }
+
+    public double getBid() {
+        return bid;
+    }
+
+    public void setBid(double bid) {
+        this.bid = bid;
+    }
+
+    public double getTotalBid() {
+        return totalBid;
+    }
+
+    public void setTotalBid(double totalBid) {
+        this.totalBid = totalBid;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public void setTime(long time) {
+        this.time = time;
+    }
+
     public Optional<ExchangeRate> toExchangeRate(String exchangeName, Instant newerThan) {
         if (!CryptoYa.EXCHANGE_NAME_WHITELIST.contains(exchangeName) || isTooOld(newerThan) || isAskZeroOrNegative()) {
             return Optional.empty();
@@ -0,0 +1,194 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.util.json;
+
+import bisq.price.common.CurrencyUtil;
+import bisq.price.spot.ExchangeRate;
+import bisq.price.util.coingecko.CoinGeckoMarketData;
+import bisq.price.util.coingecko.CoinGeckoRatesHandler;
+import bisq.price.util.coingecko.CoinGeckoTicker;
+import bisq.price.util.cryptoya.CryptoYaRatesHandler;
+import bisq.price.util.cryptoya.CryptoYaTicker;
+import bisq.price.util.yadio.YadioRatesHandler;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the previous DTO based decoding of the CoinGecko, Yadio and CryptoYa payloads
+ * with the token-level {@link StreamingJsonDecoder}. The payloads in
+ * {@code src/jmh/resources/payloads} follow the upstream formats and sizes. Run with
+ * {@code ./gradlew jmh}; the gc profiler reports the allocation per operation
+ * ({@code gc.alloc.rate.norm}), which is the figure of interest here.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProviderPayloadDecodingBenchmark {
+
+    // Netty hands over the body in chunks of roughly this size
+    private static final int CHUNK_SIZE = 8192;
+
+    private static final Set<String> YADIO_CURRENCIES_WHITELIST = Set.of("ARS", "BOB", "DOP", "EGP", "LBP", "PYG");
+    private static final Set<String> CRYPTOYA_EXCHANGE_NAME_WHITELIST = Set.of(
+            "argenbtc", "buenbit", "ripio", "ripioexchange", "satoshitango", "cryptomkt", "decrypto",
+            "latamex", "bitso", "letsbit", "fiwind", "lemoncash", "bitmonedero", "belo", "tiendacrypto",
+            "saldo", "kriptonmarket", "calypso", "bybit");
+
+    // The recorded payloads carry fixed timestamps, so do not let them age out
+    private static final Instant NEWER_THAN = Instant.EPOCH;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private byte[] coinGeckoPayload;
+    private byte[] yadioPayload;
+    private byte[] cryptoYaPayload;
+
+    @Setup
+    public void setup() throws IOException {
+        coinGeckoPayload = load("coingecko-exchange_rates.json");
+        yadioPayload = load("yadio-exrates.json");
+        cryptoYaPayload = load("cryptoya-btc-ars.json");
+    }
+
+    @Benchmark
+    public Set<ExchangeRate> coinGeckoDto() throws IOException {
+        Set<ExchangeRate> result = new HashSet<>();
+        CoinGeckoMarketData marketData = objectMapper.readValue(coinGeckoPayload, CoinGeckoMarketData.class);
+        for (Map.Entry<String, CoinGeckoTicker> entry : marketData.getRates().entrySet()) {
+            String currency = entry.getKey();
+            boolean isCrypto = CurrencyUtil.ALL_CRYPTO_CURRENCIES.contains(currency);
+            if (!isCrypto && !CurrencyUtil.ALL_FIAT_CURRENCIES.contains(currency)) {
+                continue;
+            }
+            BigDecimal rate = entry.getValue().getValue();
+            if (isCrypto) {
+                rate = rate.compareTo(BigDecimal.ZERO) > 0 ?
+                        BigDecimal.ONE.divide(rate, 8, RoundingMode.HALF_UP) :
+                        BigDecimal.ZERO;
+            }
+            result.add(new ExchangeRate(currency, rate.doubleValue(), System.currentTimeMillis(), "COINGECKO"));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public Set<ExchangeRate> coinGeckoStreaming() {
+        return StreamingJsonDecoder.decode(chunked(coinGeckoPayload),
+                () -> new CoinGeckoRatesHandler(
+                        CurrencyUtil.ALL_FIAT_CURRENCIES, CurrencyUtil.ALL_CRYPTO_CURRENCIES, "COINGECKO"))
+                .block();
+    }
+
+    @Benchmark
+    public Set<ExchangeRate> yadioMap() throws IOException {
+        Map<String, Object> marketData = objectMapper.readValue(yadioPayload, new TypeReference<>() {
+        });
+        double btc = ((Number) marketData.get("BTC")).doubleValue();
+        long timestamp = ((Number) marketData.get("timestamp")).longValue();
+        if (!"USD".equals(marketData.get("base")) || timestamp <= NEWER_THAN.toEpochMilli()) {
+            return Set.of();
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Number> usd = (Map<String, Number>) marketData.get("USD");
+        Set<ExchangeRate> result = new HashSet<>();
+        usd.forEach((currency, priceInUSD) -> {
+            if (YADIO_CURRENCIES_WHITELIST.contains(currency)) {
+                result.add(new ExchangeRate(currency, priceInUSD.doubleValue() * btc, timestamp, "YADIO"));
+            }
+        });
+        return result;
+    }
+
+    @Benchmark
+    public Set<ExchangeRate> yadioStreaming() {
+        return StreamingJsonDecoder.decode(chunked(yadioPayload),
+                () -> new YadioRatesHandler(YADIO_CURRENCIES_WHITELIST, NEWER_THAN, "YADIO"))
+                .block();
+    }
+
+    @Benchmark
+    public Set<ExchangeRate> cryptoYaDto() throws IOException {
+        Map<String, CryptoYaTicker> marketData = objectMapper.readValue(cryptoYaPayload, new TypeReference<>() {
+        });
+        Set<ExchangeRate> result = new HashSet<>();
+        marketData.forEach((exchangeName, ticker) -> {
+            // toExchangeRate() checks the whitelist of the provider itself
+            if (CRYPTOYA_EXCHANGE_NAME_WHITELIST.contains(exchangeName)) {
+                Optional<ExchangeRate> exchangeRate = ticker.toExchangeRate(exchangeName, NEWER_THAN);
+                exchangeRate.ifPresent(result::add);
+            }
+        });
+        return result;
+    }
+
+    @Benchmark
+    public Set<ExchangeRate> cryptoYaStreaming() {
+        return StreamingJsonDecoder.decode(chunked(cryptoYaPayload),
+                () -> new CryptoYaRatesHandler(CRYPTOYA_EXCHANGE_NAME_WHITELIST, NEWER_THAN, "CRYPTOYA"))
+                .block();
+    }
+
+    private static Flux<DataBuffer> chunked(byte[] payload) {
+        int chunks = (payload.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        return Flux.range(0, chunks)
+                .map(i -> {
+                    int offset = i * CHUNK_SIZE;
+                    int length = Math.min(CHUNK_SIZE, payload.length - offset);
+                    return DefaultDataBufferFactory.sharedInstance.wrap(ByteBuffer.wrap(payload, offset, length));
+                });
+    }
+
+    private static byte[] load(String name) throws IOException {
+        try (InputStream in = ProviderPayloadDecodingBenchmark.class.getResourceAsStream("/payloads/" + name)) {
+            if (in == null) {
+                throw new IOException("Missing payload " + name);
+            }
+            return in.readAllBytes();
+        }
+    }
+}
@@ -20,23 +20,49 @@ package bisq.price;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.SmartLifecycle;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
 import java.util.Timer;
 import java.util.TimerTask;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 
 public abstract class PriceProvider<T> implements SmartLifecycle, Supplier<T> {
 
+    /**
+     * Upper bound for a single {@link #fetch()}, after which the refresh is abandoned and
+     * the previously cached result is kept.
+     */
+    protected static final Duration FETCH_TIMEOUT = Duration.ofSeconds(30);
+
     protected final Logger log = LoggerFactory.getLogger(this.getClass());
 
-    private final Timer timer = new Timer(true);
+    // Only triggers refreshes, which never block, so one thread is enough for all providers
+    private static final Timer REFRESH_TIMER = new Timer("price-refresh-trigger", true);
+
+    private TimerTask refreshTask;
+    private volatile RefreshLane lane;
 
     protected final Duration refreshInterval;
 
     private volatile T cachedResult;
 
+    // Incremented whenever the cached result is replaced by a different object
+    private final AtomicLong version = new AtomicLong();
+    // Run whenever the version changes
+    private final List<Runnable> updateListeners = new CopyOnWriteArrayList<>();
+
+    // Guards against overlapping refreshes when a fetch takes longer than the interval
+    private final AtomicBoolean refreshInProgress = new AtomicBoolean();
+    private volatile Disposable inFlightRefresh;
+
     public PriceProvider(Duration refreshInterval) {
         this.refreshInterval = refreshInterval;
         log.info("will refresh every {}", refreshInterval);
@@ -48,21 +74,47 @@ public abstract class PriceProvider<T> implements SmartLifecycle, Supplier<T> {
     }
 
     public final void put(T values) {
-        cachedResult = values;
+        if (values != cachedResult) {
+            cachedResult = values;
+            version.incrementAndGet();
+            updateListeners.forEach(Runnable::run);
+        }
+    }
+
+    /**
+     * Registers a listener to run on the putting thread whenever {@link #put(Object)}
+     * changes the version. Listeners must not block, typically they only hand the news
+     * over to a thread of their own.
+     */
+    public final void addUpdateListener(Runnable listener) {
+        updateListeners.add(listener);
+    }
+
+    /**
+     * @return a counter which changes every time {@link #put(Object)} replaces the cached
+     * result with a different object. A refresh which found the upstream data unchanged
+     * puts the same object again and leaves the version as it is, so consumers can tell
+     * that nothing changed without looking at the data.
+     */
+    public final long getVersion() {
+        return version.get();
     }
 
     @Override
     public final void start() {
-        // do the initial refresh asynchronously without delay
-        CompletableFuture.runAsync(() -> {
-            try {
-                refresh();
-            } catch (Throwable t) {
-                log.warn("initial refresh failed", t);
-            }
-        });
-
-        timer.scheduleAtFixedRate(new TimerTask() {
+        lane = RefreshLane.named(getLaneName());
+        if (!isSelfRefreshing()) {
+            return;
+        }
+
+        // do the initial refresh without delay, the fetch itself runs asynchronously
+        try {
+            refresh();
+        } catch (Throwable t) {
+            log.warn("initial refresh failed", t);
+        }
+
+        refreshTask = new TimerTask() {
             @Override
             public void run() {
                 try {
@@ -74,17 +126,79 @@ public abstract class PriceProvider<T> implements SmartLifecycle, Supplier<T> {
                     log.warn("refresh failed", t);
                 }
             }
-        }, refreshInterval.toMillis(), refreshInterval.toMillis());
+        };
+        REFRESH_TIMER.scheduleAtFixedRate(refreshTask, refreshInterval.toMillis(), refreshInterval.toMillis());
     }
 
-    private void refresh() {
-        long ts = System.currentTimeMillis();
+    /**
+     * @return whether this provider refreshes on its own timer once started. Providers
+     * which are queried by a coordinator instead return false.
+     */
+    protected boolean isSelfRefreshing() {
+        return true;
+    }
+
+    public Duration getRefreshInterval() {
+        return refreshInterval;
+    }
+
+    /**
+     * @return the name of the {@link RefreshLane} this provider's refreshes run in.
+     * Providers returning the same name share a lane, and with it a single worker.
+     */
+    protected String getLaneName() {
+        return getClass().getSimpleName();
+    }
 
-        put(doGet());
+    /**
+     * @return the scheduler of this provider's {@link RefreshLane}, for fetches a
+     * coordinator issues instead of the provider's own refreshes. Available before
+     * {@link #start()}, as lanes are shared by name.
+     */
+    protected final Scheduler getLaneScheduler() {
+        RefreshLane current = lane;
+        return (current != null ? current : RefreshLane.named(getLaneName())).getScheduler();
+    }
+
+    /**
+     * Subscribes to {@link #fetch()} on this provider's {@link RefreshLane} and pushes its
+     * result into the cache on completion. The calling thread is never blocked: it only
+     * hands the subscription over to the lane. A saturated lane rejects the refresh,
+     * which is then handled like any other failed refresh.
+     */
+    private void refresh() {
+        if (!refreshInProgress.compareAndSet(false, true)) {
+            log.warn("previous refresh still in progress, skipping this one");
+            return;
+        }
 
-        log.info("refresh took {} ms.", (System.currentTimeMillis() - ts));
+        long ts = System.currentTimeMillis();
+        inFlightRefresh = Mono.defer(this::fetch)
+                .subscribeOn(lane.getScheduler())
+                .timeout(FETCH_TIMEOUT)
+                // An empty fetch clears the cache, as a null doGet() result used to
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .doFinally(signal -> refreshInProgress.set(false))
+                .subscribe(result -> {
+                    put(result.orElse(null));
+                    log.info("refresh took {} ms.", (System.currentTimeMillis() - ts));
+                    onRefresh();
+                }, t -> {
+                    // the failure is assumed to be temporary and on the side of the
+                    // upstream price provider, so keep the previously cached result
+                    log.warn("refresh failed", t);
+                });
+    }
 
-        onRefresh();
+    /**
+     * Reactive retrieval of the latest data. The default implementation adapts the
+     * blocking {@link #doGet()}, which then occupies the provider's lane while it runs.
+     * Providers backed by a non-blocking HTTP client override this method directly and
+     * only use the lane to issue the request.
+     */
+    protected Mono<T> fetch() {
+        return Mono.fromCallable(this::doGet);
     }
 
     protected abstract T doGet();
@@ -94,7 +208,14 @@ public abstract class PriceProvider<T> implements SmartLifecycle, Supplier<T> {
 
     @Override
     public void stop() {
-        timer.cancel();
+        TimerTask task = refreshTask;
+        if (task != null) {
+            task.cancel();
+        }
+        Disposable refresh = inFlightRefresh;
+        if (refresh != null) {
+            refresh.dispose();
+        }
     }
 
     @Override
@@ -0,0 +1,102 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import lombok.Getter;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bulkhead for {@link PriceProvider} refreshes: a single worker thread with room for
+ * one more queued refresh. Work that arrives while the lane is busy and its queue is
+ * full is rejected instead of piling up, so a hung upstream can only ever hold up the
+ * providers sharing its lane.
+ *
+ * <p>Each provider gets a lane of its own unless it is explicitly grouped with others
+ * (see {@link PriceProvider#getLaneName()}). Per lane, the number of running and
+ * queued refreshes and the number of rejected ones are published as
+ * {@code pricenode.lane.active}, {@code pricenode.lane.queued} and
+ * {@code pricenode.lane.rejected}.</p>
+ */
+public final class RefreshLane {
+
+    static final int QUEUE_LIMIT = 1;
+
+    private static final Map<String, RefreshLane> LANES = new ConcurrentHashMap<>();
+
+    @Getter
+    private final String name;
+    private final ThreadPoolExecutor executor;
+    @Getter
+    private final Scheduler scheduler;
+
+    private RefreshLane(String name) {
+        this.name = name;
+        Counter rejected = Counter.builder("pricenode.lane.rejected")
+                .description("Refreshes rejected because the lane was saturated")
+                .tag("lane", name)
+                .register(Metrics.globalRegistry);
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_LIMIT),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "lane-" + name);
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, executor) -> {
+                    rejected.increment();
+                    throw new RejectedExecutionException("lane " + name + " is saturated");
+                });
+        this.scheduler = Schedulers.fromExecutorService(executor, "lane-" + name);
+
+        Gauge.builder("pricenode.lane.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Refreshes currently running in the lane")
+                .tag("lane", name)
+                .register(Metrics.globalRegistry);
+        Gauge.builder("pricenode.lane.queued", executor, e -> e.getQueue().size())
+                .description("Refreshes waiting for the lane")
+                .tag("lane", name)
+                .register(Metrics.globalRegistry);
+    }
+
+    /**
+     * @return the lane with the given name, which is created on first use and shared by
+     * all providers asking for the same name afterwards
+     */
+    public static RefreshLane named(String name) {
+        return LANES.computeIfAbsent(name, RefreshLane::new);
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.common.util;
+
+/* An alternative implementation of the two passes of `InlierStatistics` over an array of
+ * values. Sums are compensated, but not necessarily in the same order as the scalar
+ * passes, so results may differ from those in the last few bits.
+ */
+interface InlierKernel {
+    int SUM = 0;
+    int SUM_OF_SQUARES = 1;
+    int MIN = 2;
+    int MAX = 3;
+    int COUNT = 4;
+
+    // Below this many values the scalar passes are at least as fast
+    int minLength();
+
+    /* Writes the sum, sum of squares, min and max of values[from, to) to `out`. Returns
+     * false if a sum is not finite, in which case the caller falls back to the scalar
+     * pass and its handling of infinities.
+     */
+    boolean moments(double[] values, int from, int to, double[] out);
+
+    /* Writes the sum, min, max and count of the values[0, count) within [lower, upper] to
+     * `out`. Returns false if the sum is not finite.
+     */
+    boolean inlierMoments(double[] values, int count, double lower, double upper, double[] out);
+}
@@ -0,0 +1,242 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.common.util;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/* Primitive counterpart of `InlierUtil.findInlierRange`, working on a double[] instead
+ * of a List<Double>. One pass over the (trimmed) values computes their mean (i.e. the
+ * trimmed mean), standard deviation and range, one filter pass over all values
+ * computes the inlier range and the mean of the inliers. Trimming sorts a copy of the
+ * values in a scratch array, which is kept between calls, so a warmed up instance does
+ * not allocate at all.
+ *
+ * The results are bit for bit identical to those of `InlierUtil` and to averaging the
+ * inliers with `DoubleStream.average()`: sums use the same compensated summation as
+ * `DoubleSummaryStatistics` and `DoubleSummaryStatisticsWithStdDev`, in the same order.
+ *
+ * Instances created with `vectorized()` run both passes over longer arrays on the JDK
+ * Vector API instead, if the JVM runs with `--add-modules jdk.incubator.vector` and the
+ * kernel is on the classpath, i.e. the build included `src/vector`. Their results may
+ * differ from the above in the last few bits.
+ *
+ * Instances are not thread-safe.
+ */
+@Getter
+public class InlierStatistics {
+    // Null if the Vector API is not available
+    private static final InlierKernel VECTOR_KERNEL = loadVectorKernel();
+
+    private double mean;
+    private double standardDeviation;
+    private double trimmedMin;
+    private double trimmedMax;
+    private double lowerThreshold;
+    private double upperThreshold;
+    private double inlierMin;
+    private double inlierMax;
+    private double inlierMean;
+    private int inlierCount;
+
+    @Getter(AccessLevel.NONE)
+    private double[] scratch = new double[0];
+    @Getter(AccessLevel.NONE)
+    private final InlierKernel kernel;
+    @Getter(AccessLevel.NONE)
+    private final double[] kernelResults = new double[5];
+
+    public InlierStatistics() {
+        this(null);
+    }
+
+    InlierStatistics(InlierKernel kernel) {
+        this.kernel = kernel;
+    }
+
+    /* Instances that use the Vector API when it is available, scalar passes otherwise. */
+    public static InlierStatistics vectorized() {
+        return new InlierStatistics(VECTOR_KERNEL);
+    }
+
+    public static boolean isVectorKernelAvailable() {
+        return VECTOR_KERNEL != null;
+    }
+
+    /* Computes the statistics of the first `count` elements of `values`, which is left
+     * untouched. Arguments have the same meaning as in `InlierUtil.findInlierRange`.
+     * If there are no inliers, inlierMin is +Infinity, inlierMax is -Infinity and
+     * inlierMean is NaN.
+     */
+    public InlierStatistics compute(double[] values,
+                                    int count,
+                                    double percentToTrim,
+                                    double howManyStdDevsConstituteOutlier) {
+        if (howManyStdDevsConstituteOutlier <= 0) {
+            throw new IllegalArgumentException(
+                    "howManyStdDevsConstituteOutlier should be a positive number");
+        }
+
+        // Trimming, see `InlierUtil.trim`
+        var minPercentToTrim = 0;
+        var maxPercentToTrim = 50;
+        if (minPercentToTrim > percentToTrim || percentToTrim > maxPercentToTrim) {
+            throw new IllegalArgumentException(
+                    String.format(
+                            "The percentage of data points to trim must be in the range [%d,%d].",
+                            minPercentToTrim, maxPercentToTrim));
+        }
+        double[] trimmed = values;
+        int from = 0;
+        int to = count;
+        var totalPercentTrim = percentToTrim * 2;
+        if (totalPercentTrim == 100) {
+            to = 0;
+        } else if (totalPercentTrim != 0 && count > 0) {
+            int countToDropFromEachSide = (int) Math.round((count / 100d) * percentToTrim);
+            if (countToDropFromEachSide != 0) {
+                if (scratch.length < count) {
+                    scratch = new double[count];
+                }
+                System.arraycopy(values, 0, scratch, 0, count);
+                Arrays.sort(scratch, 0, count);
+                trimmed = scratch;
+                from = countToDropFromEachSide;
+                to = count - countToDropFromEachSide;
+            }
+        }
+
+        // Mean, standard deviation and range of the trimmed values
+        int trimmedCount = to - from;
+        double trimmedSum, totalSumOfSquares;
+        if (kernel != null && trimmedCount >= kernel.minLength()
+                && kernel.moments(trimmed, from, to, kernelResults)) {
+            trimmedSum = kernelResults[InlierKernel.SUM];
+            totalSumOfSquares = kernelResults[InlierKernel.SUM_OF_SQUARES];
+            trimmedMin = kernelResults[InlierKernel.MIN];
+            trimmedMax = kernelResults[InlierKernel.MAX];
+        } else {
+            double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+            double sum = 0, sumCompensation = 0, simpleSum = 0;
+            double sumOfSquares = 0, sumOfSquaresCompensation = 0, simpleSumOfSquares = 0;
+            for (int i = from; i < to; i++) {
+                double value = trimmed[i];
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+                simpleSum += value;
+                double tmp = value - sumCompensation;
+                double velvel = sum + tmp;
+                sumCompensation = (velvel - sum) - tmp;
+                sum = velvel;
+
+                double valueSquared = value * value;
+                simpleSumOfSquares += valueSquared;
+                tmp = valueSquared - sumOfSquaresCompensation;
+                velvel = sumOfSquares + tmp;
+                sumOfSquaresCompensation = (velvel - sumOfSquares) - tmp;
+                sumOfSquares = velvel;
+            }
+            trimmedMin = min;
+            trimmedMax = max;
+            trimmedSum = finalSum(sum, sumCompensation, simpleSum);
+            // DoubleSummaryStatisticsWithStdDev adds its compensation, unlike DoubleSummaryStatistics
+            totalSumOfSquares = sumOfSquares + sumOfSquaresCompensation;
+            if (Double.isNaN(totalSumOfSquares) && Double.isInfinite(simpleSumOfSquares)) {
+                totalSumOfSquares = simpleSumOfSquares;
+            }
+        }
+        mean = trimmedCount > 0 ? trimmedSum / trimmedCount : 0.0d;
+        standardDeviation = Math.sqrt((totalSumOfSquares / trimmedCount) - (mean * mean));
+
+        lowerThreshold = mean - (standardDeviation * howManyStdDevsConstituteOutlier);
+        upperThreshold = mean + (standardDeviation * howManyStdDevsConstituteOutlier);
+
+        // Range and mean of the inliers among all values
+        if (kernel != null && count >= kernel.minLength()
+                && kernel.inlierMoments(values, count, lowerThreshold, upperThreshold, kernelResults)) {
+            inlierMin = kernelResults[InlierKernel.MIN];
+            inlierMax = kernelResults[InlierKernel.MAX];
+            inlierCount = (int) kernelResults[InlierKernel.COUNT];
+            inlierMean = inlierCount > 0 ? kernelResults[InlierKernel.SUM] / inlierCount : Double.NaN;
+            return this;
+        }
+        double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+        int inliers = 0;
+        double sum = 0, sumCompensation = 0, simpleSum = 0;
+        for (int i = 0; i < count; i++) {
+            double value = values[i];
+            if (lowerThreshold <= value && value <= upperThreshold) {
+                inliers++;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+                simpleSum += value;
+                double tmp = value - sumCompensation;
+                double velvel = sum + tmp;
+                sumCompensation = (velvel - sum) - tmp;
+                sum = velvel;
+            }
+        }
+        inlierMin = min;
+        inlierMax = max;
+        inlierCount = inliers;
+        inlierMean = inliers > 0 ? finalSum(sum, sumCompensation, simpleSum) / inliers : Double.NaN;
+
+        return this;
+    }
+
+    /* The plain mean of the first `count` elements of `values`, as computed by
+     * `DoubleStream.average()`. NaN if count is 0.
+     */
+    public static double mean(double[] values, int count) {
+        double sum = 0, sumCompensation = 0, simpleSum = 0;
+        for (int i = 0; i < count; i++) {
+            double value = values[i];
+            simpleSum += value;
+            double tmp = value - sumCompensation;
+            double velvel = sum + tmp;
+            sumCompensation = (velvel - sum) - tmp;
+            sum = velvel;
+        }
+        return count > 0 ? finalSum(sum, sumCompensation, simpleSum) / count : Double.NaN;
+    }
+
+    private static InlierKernel loadVectorKernel() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        // Loaded by name, so this class links without the module
+        try {
+            return (InlierKernel) Class.forName("bisq.price.common.util.VectorInlierKernel")
+                    .getDeclaredConstructor()
+                    .newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    // Same as DoubleSummaryStatistics.getSum() (JDK 18 and later)
+    private static double finalSum(double sum, double sumCompensation, double simpleSum) {
+        double tmp = sum - sumCompensation;
+        if (Double.isNaN(tmp) && Double.isInfinite(simpleSum)) {
+            return simpleSum;
+        }
+        return tmp;
+    }
+}
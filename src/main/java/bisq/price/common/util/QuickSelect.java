@@ -0,0 +1,96 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.common.util;
+
+/* Order statistics over primitive arrays in expected linear time, without sorting.
+ * Both methods rearrange the given array in place.
+ */
+public class QuickSelect {
+
+    /* Rearranges a[from, to) such that a[k] holds the value it would hold if the range
+     * was sorted, with no larger value before and no smaller value after it, and
+     * returns that value. Uses Hoare partitioning around a median-of-three pivot.
+     */
+    public static double select(double[] a, int from, int to, int k) {
+        if (k < from || k >= to) {
+            throw new IllegalArgumentException(
+                    String.format("k=%d is outside of the range [%d,%d)", k, from, to));
+        }
+
+        int lo = from;
+        int hi = to - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] < a[lo]) swap(a, lo, mid);
+            if (a[hi] < a[lo]) swap(a, lo, hi);
+            if (a[hi] < a[mid]) swap(a, mid, hi);
+            double pivot = a[mid];
+
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (a[i] < pivot) i++;
+                while (a[j] > pivot) j--;
+                if (i <= j) {
+                    swap(a, i, j);
+                    i++;
+                    j--;
+                }
+            }
+
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                // a[j+1, i) all equal the pivot
+                break;
+            }
+        }
+        return a[k];
+    }
+
+    /* The median of the first `count` elements, i.e. the mean of the two middle
+     * values if count is even. NaN if count is 0.
+     */
+    public static double median(double[] a, int count) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+
+        int half = count / 2;
+        double upper = select(a, 0, count, half);
+        if (count % 2 == 1) {
+            return upper;
+        }
+
+        // After selecting, the lower half only holds values <= upper, so its maximum
+        // is the other middle value
+        double lower = a[0];
+        for (int i = 1; i < half; i++) {
+            lower = Math.max(lower, a[i]);
+        }
+        return (lower + upper) / 2;
+    }
+
+    private static void swap(double[] a, int i, int j) {
+        double tmp = a[i];
+        a[i] = a[j];
+        a[j] = tmp;
+    }
+}
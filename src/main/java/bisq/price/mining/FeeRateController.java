@@ -19,11 +19,11 @@ package bisq.price.mining;
 
 import bisq.price.PriceController;
 
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.Map;
-
 @RestController
 class FeeRateController extends PriceController {
 
@@ -34,7 +34,8 @@ class FeeRateController extends PriceController {
     }
 
     @GetMapping(path = "/getFees")
-    public Map<String, Object> getFees() {
-        return feeRateService.getFees();
+    public ResponseEntity<byte[]> getFees() {
+        // Encoded once per refresh of the fees, so hand over the bytes as they are
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(feeRateService.getFeesJson());
     }
 }
@@ -18,6 +18,7 @@
 package bisq.price.mining;
 
 import bisq.price.PriceProvider;
+import reactor.core.publisher.Mono;
 
 import java.time.Duration;
 
@@ -33,4 +34,16 @@ public abstract class FeeRateProvider extends PriceProvider<FeeRate> {
     public FeeRateProvider(Duration refreshInterval) {
         super(refreshInterval);
     }
+
+    /**
+     * @return a request for the current fee rate, which {@link FeeRateService} issues to
+     * all providers at once in a fee round, see {@link FeeRound}. Empty if the provider
+     * has none. Runs on the provider's {@link bisq.price.RefreshLane} like its own
+     * refreshes, so a hung host only holds up its lane, and a saturated lane rejects
+     * the request.
+     */
+    public Mono<FeeRate> requestFeeRate() {
+        // fetch() may block, it must not hold up the requests to the other providers
+        return Mono.defer(this::fetch).subscribeOn(getLaneScheduler());
+    }
 }
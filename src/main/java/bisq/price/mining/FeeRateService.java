@@ -14,32 +14,76 @@
  * You should have received a copy of the GNU Affero General Public License
  * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
  */
-
 package bisq.price.mining;
 
+import bisq.price.PriceProvider;
 import bisq.price.common.config.Config;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.StandardEnvironment;
 import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.time.Instant;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * High-level mining {@link FeeRate} operations.
+ *
+ * <p>The average fees are computed whenever a provider refreshes, not per request, and
+ * published as an immutable snapshot along with their JSON encoding.</p>
+ *
+ * <p>If {@code bisq.price.mining.feeRound.enabled}, the providers do not refresh on their
+ * own. Instead, all of them are queried at once every refresh interval, and the fees are
+ * published as soon as {@code bisq.price.mining.feeRound.quorum} of them answered, see
+ * {@link FeeRound}.</p>
  */
 @Service
-public class FeeRateService {
+public class FeeRateService implements SmartLifecycle {
+
+    static final String FEE_ROUND_ENABLED_KEY = "bisq.price.mining.feeRound.enabled";
+    static final int DEFAULT_QUORUM = 2;
+    static final Duration DEFAULT_HEDGE_DELAY = Duration.ofSeconds(2);
+    static final Duration DEFAULT_FEE_ROUND_INTERVAL = Duration.ofMinutes(2);
 
     private final List<FeeRateProvider> providers;
+    private final ObjectMapper objectMapper;
     protected final Logger log = LoggerFactory.getLogger(this.getClass());
 
+    private volatile Fees fees;
+    private final List<Runnable> updateListeners = new CopyOnWriteArrayList<>();
+
+    // Null unless fee rounds are enabled
+    private final FeeRound feeRound;
+    private final Duration feeRoundInterval;
+    private volatile Disposable feeRounds;
+
+    /**
+     * The fees as of the latest provider refresh or fee round.
+     *
+     * @param map  as returned by {@link #getFees()}
+     * @param json the map encoded as JSON
+     */
+    private record Fees(Map<String, Object> map, byte[] json) {
+    }
+
     /**
      * Construct a {@link FeeRateService} with a list of all {@link FeeRateProvider}
      * implementations discovered via classpath scanning.
@@ -48,38 +92,153 @@ public class FeeRateService {
      *                  order of precedence
      */
     public FeeRateService(List<FeeRateProvider> providers) {
+        this(providers, new ObjectMapper(), new StandardEnvironment());
+    }
+
+    /**
+     * @param objectMapper encodes the fees like any other response
+     * @see #FeeRateService(List)
+     */
+    @Autowired
+    public FeeRateService(List<FeeRateProvider> providers, ObjectMapper objectMapper, Environment env) {
         this.providers = providers;
+        this.objectMapper = objectMapper;
+        if (isFeeRoundEnabled(env)) {
+            int quorum = Objects.requireNonNullElse(
+                    env.getProperty("bisq.price.mining.feeRound.quorum", Integer.class), DEFAULT_QUORUM);
+            Duration hedgeDelay = Objects.requireNonNullElse(
+                    env.getProperty("bisq.price.mining.feeRound.hedgeDelay", Duration.class), DEFAULT_HEDGE_DELAY);
+            this.feeRound = new FeeRound(quorum, hedgeDelay);
+            this.feeRoundInterval = providers.stream()
+                    .map(PriceProvider::getRefreshInterval)
+                    .min(Comparator.naturalOrder())
+                    .orElse(DEFAULT_FEE_ROUND_INTERVAL);
+        } else {
+            this.feeRound = null;
+            this.feeRoundInterval = null;
+        }
+        // Listen before computing, so no refresh is missed
+        providers.forEach(p -> p.addUpdateListener(this::update));
+        update();
     }
 
+    /**
+     * @return the fees as of the latest provider refresh. The same immutable map is
+     * returned until the next refresh.
+     */
     public Map<String, Object> getFees() {
-        Map<String, Long> metadata = new HashMap<>();
-        Map<String, Long> allFeeRates = new HashMap<>();
+        return fees.map();
+    }
 
-        AtomicLong sumOfAllFeeRates = new AtomicLong();
-        AtomicLong sumOfAllMinFeeRates = new AtomicLong();
-        AtomicInteger amountOfFeeRates = new AtomicInteger();
+    /**
+     * @return {@link #getFees()} encoded as JSON, not to be modified
+     */
+    public byte[] getFeesJson() {
+        return fees.json();
+    }
 
+    /**
+     * Registers a listener to run on the publishing thread whenever new fees are
+     * published. Listeners must not block.
+     */
+    public void addUpdateListener(Runnable listener) {
+        updateListeners.add(listener);
+    }
+
+    /**
+     * @return whether the mining fee providers are queried in fee rounds rather than
+     * refreshing on their own
+     */
+    public static boolean isFeeRoundEnabled(Environment env) {
+        return Boolean.TRUE.equals(env.getProperty(FEE_ROUND_ENABLED_KEY, Boolean.class));
+    }
+
+    @Override
+    public void start() {
+        if (feeRound == null) {
+            return;
+        }
+        log.info("will query {} fee rate providers every {}", providers.size(), feeRoundInterval);
+        feeRounds = Flux.interval(Duration.ZERO, feeRoundInterval)
+                // Skip a round rather than start it while the previous one is still running
+                .onBackpressureDrop()
+                .concatMap(tick -> runFeeRound(), 1)
+                .subscribe();
+    }
+
+    private Mono<List<FeeRate>> runFeeRound() {
+        long ts = System.currentTimeMillis();
+        return feeRound.run(providers, this::publish)
+                .doOnNext(answers -> log.info("fee round took {} ms, {} of {} providers answered",
+                        System.currentTimeMillis() - ts, answers.size(), providers.size()))
+                .onErrorResume(e -> {
+                    log.warn("fee round failed", e);
+                    return Mono.empty();
+                });
+    }
+
+    @Override
+    public void stop() {
+        Disposable current = feeRounds;
+        if (current != null) {
+            current.dispose();
+            feeRounds = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return feeRounds != null;
+    }
+
+    // Called on the lane of a provider refreshing on its own, i.e. unless fee rounds are
+    // enabled, and once on construction. Providers refreshing at once take turns
+    private synchronized void update() {
+        List<FeeRate> feeRates = new ArrayList<>(providers.size());
         // Process each provider, retrieve and store their fee rate
-        providers.forEach(p -> {
+        for (FeeRateProvider p : providers) {
             FeeRate feeRate = p.get();
             if (feeRate == null) {
                 log.warn("feeRate is null, provider={} ", p);
-                return;
+                continue;
             }
+            feeRates.add(feeRate);
+        }
+        publish(feeRates);
+    }
+
+    // Called with the answers of a fee round, on the lane of the provider whose answer
+    // reached or followed the quorum, or at the end of a round which fell short of it
+    private synchronized void publish(List<FeeRate> feeRates) {
+        Map<String, Object> map = computeFees(feeRates);
+        try {
+            fees = new Fees(map, objectMapper.writeValueAsBytes(map));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not encode fees " + map, e);
+        }
+        updateListeners.forEach(Runnable::run);
+    }
+
+    private static Map<String, Object> computeFees(List<FeeRate> feeRates) {
+        long sumOfAllFeeRates = 0;
+        long sumOfAllMinFeeRates = 0;
+        int amountOfFeeRates = 0;
+
+        for (FeeRate feeRate : feeRates) {
             String currency = feeRate.getCurrency();
             if ("BTC".equals(currency)) {
-                sumOfAllFeeRates.getAndAdd(feeRate.getPrice());
-                sumOfAllMinFeeRates.getAndAdd(feeRate.getMinimumFee());
-                amountOfFeeRates.getAndAdd(1);
+                sumOfAllFeeRates += feeRate.getPrice();
+                sumOfAllMinFeeRates += feeRate.getMinimumFee();
+                amountOfFeeRates++;
             }
-        });
+        }
 
         // Calculate the average
-        long averageFeeRate = (amountOfFeeRates.intValue() > 0)
-                ? sumOfAllFeeRates.longValue() / amountOfFeeRates.intValue()
+        long averageFeeRate = (amountOfFeeRates > 0)
+                ? sumOfAllFeeRates / amountOfFeeRates
                 : FeeRateProvider.MIN_FEE_RATE_FOR_TRADING;
-        long averageMinFeeRate = (amountOfFeeRates.intValue() > 0)
-                ? sumOfAllMinFeeRates.longValue() / amountOfFeeRates.intValue()
+        long averageMinFeeRate = (amountOfFeeRates > 0)
+                ? sumOfAllMinFeeRates / amountOfFeeRates
                 : FeeRateProvider.MIN_FEE_RATE_FOR_WITHDRAWAL;
 
         // Make sure the returned value is within the min-max range
@@ -88,19 +247,17 @@ public class FeeRateService {
         averageMinFeeRate = Math.max(averageMinFeeRate, FeeRateProvider.MIN_FEE_RATE_FOR_WITHDRAWAL);
         averageMinFeeRate = Math.min(averageMinFeeRate, FeeRateProvider.MAX_FEE_RATE);
 
-        // Prepare response: Add timestamp of now
-        // Since this is an average, the timestamp is associated with when the moment in
-        // time when the avg was computed
-        metadata.put(Config.BTC_FEES_TS, Instant.now().getEpochSecond());
-
         // Prepare response: Add the fee average
+        Map<String, Long> allFeeRates = new LinkedHashMap<>();
         allFeeRates.put(Config.BTC_TX_FEE, averageFeeRate);
         allFeeRates.put(Config.BTC_MIN_TX_FEE, averageMinFeeRate);
 
         // Build response
-        return new HashMap<>() {{
-            putAll(metadata);
-            put(Config.LEGACY_FEE_DATAMAP, allFeeRates);
-        }};
+        // Since this is an average, the timestamp is associated with the moment in time
+        // when the avg was computed
+        Map<String, Object> fees = new LinkedHashMap<>();
+        fees.put(Config.BTC_FEES_TS, Instant.now().getEpochSecond());
+        fees.put(Config.LEGACY_FEE_DATAMAP, Collections.unmodifiableMap(allFeeRates));
+        return Collections.unmodifiableMap(fees);
     }
 }
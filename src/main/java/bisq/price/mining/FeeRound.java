@@ -0,0 +1,81 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+package bisq.price.mining;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * One coordinated query of all {@link FeeRateProvider}s. All providers are asked at
+ * once; as soon as a quorum answered, the answers are published. Providers answering
+ * within the hedge delay after that refine the published fees, the requests still open
+ * then are cancelled, so a slow host never delays the fees of the fast ones.
+ */
+class FeeRound {
+
+    // Upper bound for a round in which fewer than the quorum answer
+    static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final int quorum;
+    private final Duration hedgeDelay;
+
+    FeeRound(int quorum, Duration hedgeDelay) {
+        this.quorum = quorum;
+        this.hedgeDelay = hedgeDelay;
+    }
+
+    /**
+     * @param publisher called with the answers so far once the quorum answered and then
+     *                  with every later answer, or at the end of the round with all
+     *                  answers if the quorum was not reached
+     * @return the answers of all providers which answered in time, when the round is over
+     */
+    Mono<List<FeeRate>> run(List<? extends FeeRateProvider> providers, Consumer<List<FeeRate>> publisher) {
+        int quorum = Math.max(1, Math.min(this.quorum, providers.size()));
+        return Mono.defer(() -> {
+            // Only touched in onNext, which flatMap serializes
+            List<FeeRate> answers = new ArrayList<>(providers.size());
+            Sinks.Empty<Void> quorumReached = Sinks.empty();
+            return Flux.fromIterable(providers)
+                    .flatMap(provider -> provider.requestFeeRate()
+                            // A failing provider simply does not answer
+                            .onErrorResume(e -> Mono.empty()), Math.max(1, providers.size()))
+                    .doOnNext(feeRate -> {
+                        answers.add(feeRate);
+                        if (answers.size() >= quorum) {
+                            publisher.accept(List.copyOf(answers));
+                            quorumReached.tryEmitEmpty();
+                        }
+                    })
+                    // Cancels the stragglers
+                    .takeUntilOther(quorumReached.asMono().then(Mono.delay(hedgeDelay)))
+                    .take(TIMEOUT)
+                    .then(Mono.fromCallable(() -> {
+                        if (answers.size() < quorum) {
+                            publisher.accept(List.copyOf(answers));
+                        }
+                        return List.copyOf(answers);
+                    }));
+        });
+    }
+}
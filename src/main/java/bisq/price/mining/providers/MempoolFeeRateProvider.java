@@ -20,6 +20,9 @@ package bisq.price.mining.providers;
 import bisq.price.PriceController;
 import bisq.price.mining.FeeRate;
 import bisq.price.mining.FeeRateProvider;
+import bisq.price.mining.FeeRateService;
+import bisq.price.util.http.ConditionalGet;
+import bisq.price.util.http.UpstreamWebClient;
 
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Primary;
@@ -27,16 +30,14 @@ import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.core.annotation.Order;
 import org.springframework.core.env.CommandLinePropertySource;
 import org.springframework.core.env.Environment;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
 import java.time.Duration;
 import java.time.Instant;
 
-import java.time.temporal.ChronoUnit;
 import java.util.Map;
 import java.util.Optional;
 
@@ -65,27 +66,36 @@ abstract class MempoolFeeRateProvider extends FeeRateProvider {
 
     protected Environment env;
 
+    private final ConditionalGet<FeeRate> feeRateRequest;
+
     public MempoolFeeRateProvider(Environment env) {
         super(Duration.ofMinutes(refreshInterval(env)));
         this.env = env;
         this.maxBlocks = maxBlocks(env);
+        String hostname = getMempoolApiHostname();
+        this.feeRateRequest = new ConditionalGet<>(UpstreamWebClient.create(hostname),
+                "https://" + hostname + "/api/v1/fees/recommended");
     }
 
     protected FeeRate doGet() {
-        try {
-            return getEstimatedFeeRate();
-        }
-        catch (Exception e) {
-            // Something happened with the connection
-            log.error("Error retrieving bitcoin mining fee estimation: " + e.getMessage());
-        }
-        // null rate so not to pull down the average when a provider is offline.
-        // see FeeRateService.java L78 : getFees() "Process each provider"
-        return null;
+        return fetch().block(FETCH_TIMEOUT);
     }
 
-    private FeeRate getEstimatedFeeRate() {
-        Map<String, Long> feeRatePredictions = getFeeRatePredictions();
+    @Override
+    protected Mono<FeeRate> fetch() {
+        return feeRateRequest.get(ConditionalGet.jsonDecoder(new ParameterizedTypeReference<Map<String, Long>>() { })
+                        .andThen(feeRatePredictions -> feeRatePredictions.map(this::getEstimatedFeeRate)))
+                .timeout(FETCH_TIMEOUT)
+                .onErrorResume(e -> {
+                    // Something happened with the connection
+                    log.error("Error retrieving bitcoin mining fee estimation: " + e.getMessage());
+                    // empty (null) rate so not to pull down the average when a provider is offline.
+                    // see FeeRateService#update() "Process each provider"
+                    return Mono.empty();
+                });
+    }
+
+    private FeeRate getEstimatedFeeRate(Map<String, Long> feeRatePredictions) {
         long estimatedFeeRate = feeRatePredictions.entrySet().stream()
                 .filter(p -> p.getKey().equalsIgnoreCase("halfHourFee"))
                 .map(Map.Entry::getValue)
@@ -102,21 +112,23 @@ abstract class MempoolFeeRateProvider extends FeeRateProvider {
         return new FeeRate("BTC", estimatedFeeRate, economyFee, Instant.now().getEpochSecond());
     }
 
-    private Map<String, Long> getFeeRatePredictions() {
-        return WebClient.create().get()
-                .uri("https://" + getMempoolApiHostname() + "/api/v1/fees/recommended")
-                .accept(MediaType.APPLICATION_JSON)
-                .retrieve()
-                .bodyToMono(new ParameterizedTypeReference<Map<String, Long>>() { })
-                .block(Duration.of(30, ChronoUnit.SECONDS));
-    }
-
     /**
      * Return the hostname of the fee estimation API endpoint. No prefix (https://), no
      * suffix (trailing slashes, etc).
      */
     protected abstract String getMempoolApiHostname();
 
+    // Queried by FeeRateService in fee rounds instead, if they are enabled
+    @Override
+    protected boolean isSelfRefreshing() {
+        return !FeeRateService.isFeeRoundEnabled(env);
+    }
+
+    @Override
+    protected String getLaneName() {
+        return getMempoolApiHostname();
+    }
+
     private static Optional<String[]> args(Environment env) {
         return Optional.ofNullable(
             env.getProperty(CommandLinePropertySource.DEFAULT_NON_OPTION_ARGS_PROPERTY_NAME, String[].class));
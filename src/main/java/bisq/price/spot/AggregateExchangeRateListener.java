@@ -0,0 +1,69 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.spot;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Notified of every new aggregate {@link ExchangeRate}, e.g. to keep a history of them.
+ * Implementations are discovered via classpath scanning like
+ * {@link ExchangeRateTransformer}s.
+ *
+ * <p>Called on the single aggregator thread, before the snapshot containing the
+ * aggregate is published, so implementations must not block and need not synchronize
+ * among their own writes.</p>
+ */
+public interface AggregateExchangeRateListener {
+
+    /**
+     * @param time          when the aggregate was computed, in epoch millis. Never
+     *                      decreases from one call to the next.
+     * @param aggregate     the new aggregate rate of its currency
+     * @param providerCount the number of providers whose rates it is based on
+     */
+    void onAggregate(long time, ExchangeRate aggregate, int providerCount);
+
+    /**
+     * Like {@link #onAggregate(long, ExchangeRate, int)}, which it delegates to unless
+     * overridden, with the rates the aggregate is based on: the ones left after outliers
+     * were removed, as aggregated after any {@link ExchangeRateTransformer}. A provider
+     * may contribute several rates, which then carry names of their own.
+     */
+    default void onAggregate(long time, ExchangeRate aggregate, int providerCount,
+                             List<ExchangeRate> contributingRates) {
+        onAggregate(time, aggregate, providerCount);
+    }
+
+    /**
+     * Called on the aggregator thread for every refresh of a provider, with the rates
+     * as reported, before they are aggregated.
+     *
+     * @param time when the rates were taken over, in epoch millis
+     */
+    default void onProviderRates(long time, String provider, Collection<ExchangeRate> exchangeRates) {
+    }
+
+    /**
+     * Hands the aggregates recorded before a restart, if any, to another listener,
+     * oldest first. Called for every pair of listeners while the
+     * {@link ExchangeRateService} starts, before the first new aggregate.
+     */
+    default void replayTo(AggregateExchangeRateListener listener) {
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.spot;
+
+import org.springframework.core.env.Environment;
+
+import java.util.Set;
+
+/**
+ * Combines the prices several {@link ExchangeRateProvider}s report for the same currency
+ * into one aggregate price. The strategy is chosen per currency, see
+ * {@link #forCurrency(Environment, String)}.
+ *
+ * <p>Implementations may keep scratch space between calls and are therefore not
+ * thread-safe: every instance must be confined to a single thread. The
+ * {@link ExchangeRateAggregator} creates one instance per strategy and thread, since it
+ * aggregates on the aggregator thread of the {@link ExchangeRateService} and, for large
+ * batches, on several {@link java.util.concurrent.ForkJoinPool} workers at once.</p>
+ */
+interface AggregationStrategy {
+
+    String DEFAULT_STRATEGY = InlierMeanAggregation.NAME;
+
+    Set<String> NAMES = Set.of(InlierMeanAggregation.NAME, MedianAggregation.NAME, TrimmedMeanAggregation.NAME);
+
+    /**
+     * @param prices the prices of a single currency, of which only the first
+     *               {@code count} are valid. Must not be modified.
+     * @param count  number of prices, at least 2
+     * @param bounds receives the lowest and highest price taken into account, as
+     *               {@code bounds[0]} and {@code bounds[1]}. Prices outside of these
+     *               are reported as outliers.
+     * @return the aggregate price, or NaN if the prices could not be aggregated
+     */
+    double aggregate(double[] prices, int count, double[] bounds);
+
+    String getName();
+
+    /**
+     * @return the name of the strategy configured for the currency, i.e. property
+     * {@code bisq.price.aggregation.<currency code>}, or else
+     * {@code bisq.price.aggregation.default}, or else {@value #DEFAULT_STRATEGY}
+     */
+    static String forCurrency(Environment env, String currencyCode) {
+        String name = env.getProperty("bisq.price.aggregation." + currencyCode);
+        if (name == null) {
+            name = env.getProperty("bisq.price.aggregation.default");
+        }
+        return name == null ? DEFAULT_STRATEGY : name.trim();
+    }
+
+    /**
+     * @throws IllegalArgumentException if there is no strategy of that name
+     */
+    static AggregationStrategy create(Environment env, String name) {
+        // Off by default: vectorized aggregates depend on the CPU, so pricenodes on
+        // different hardware would publish slightly different prices
+        boolean vectorized = Boolean.parseBoolean(env.getProperty("bisq.price.aggregation.vectorized", "false"));
+        return switch (name) {
+            case InlierMeanAggregation.NAME -> new InlierMeanAggregation(
+                    Double.parseDouble(env.getProperty("bisq.price.outlierStdDeviation", "1.1")), vectorized);
+            case MedianAggregation.NAME -> new MedianAggregation(
+                    Double.parseDouble(env.getProperty("bisq.price.aggregation.madThreshold", "3")));
+            case TrimmedMeanAggregation.NAME -> new TrimmedMeanAggregation(
+                    Double.parseDouble(env.getProperty("bisq.price.aggregation.trimPercent", "20")), vectorized);
+            default -> throw new IllegalArgumentException("Unknown aggregation strategy " + name);
+        };
+    }
+}
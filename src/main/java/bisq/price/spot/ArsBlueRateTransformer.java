@@ -52,8 +52,8 @@ public class ArsBlueRateTransformer implements ExchangeRateTransformer {
                 originalExchangeRate.getProvider()
         );
 
-        provider.getGatedLogging().maybeLogInfo(String.format("%s transformed from %s to %s",
-                    originalExchangeRate.getCurrency(), originalExchangeRate.getPrice(), blueRate));
+        provider.getGatedLogging().maybeLogInfo("{} transformed from {} to {}",
+                originalExchangeRate.getCurrency(), originalExchangeRate.getPrice(), blueRate);
 
         return Optional.of(newExchangeRate);
     }
@@ -62,4 +62,9 @@ public class ArsBlueRateTransformer implements ExchangeRateTransformer {
     public String supportedCurrency() {
         return "ARS";
     }
+
+    @Override
+    public long getVersion() {
+        return blueMarketGapProvider.getVersion();
+    }
 }
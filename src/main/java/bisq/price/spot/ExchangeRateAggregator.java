@@ -0,0 +1,237 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.spot;
+
+import bisq.price.common.util.InlierStatistics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes the aggregate {@link ExchangeRate}s of currencies from the rates in an
+ * {@link ExchangeRateStore}. Batches of at least {@code bisq.price.aggregation.parallelThreshold}
+ * currencies are split into chunks, which are aggregated in parallel on a
+ * {@link ForkJoinPool}; smaller batches are aggregated on the calling thread.
+ *
+ * <p>The store must not be written to while {@link #aggregate} runs. Calls to
+ * {@link #aggregate} must not overlap.</p>
+ */
+@Slf4j
+class ExchangeRateAggregator {
+    static final int DEFAULT_PARALLEL_THRESHOLD = 1024;
+
+    // Currencies per fork/join leaf task, large enough to amortize the task overhead
+    private static final int CHUNK_SIZE = 128;
+
+    private final Environment env;
+    private final ExchangeRateStore exchangeRateStore;
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+
+    // Aggregation strategy names by currency id, resolved on first use
+    private final List<String> strategyNames = new ArrayList<>();
+    // Strategies and buffers are not thread-safe, so every thread gets its own
+    private final ThreadLocal<Scratch> scratch;
+
+    private static class Scratch {
+        // One price per source, grown along with the sources of the store
+        double[] prices = new double[0];
+        final double[] bounds = new double[2];
+        final Map<String, AggregationStrategy> strategiesByName = new HashMap<>();
+    }
+
+    ExchangeRateAggregator(Environment env, ExchangeRateStore exchangeRateStore) {
+        this(env, exchangeRateStore, ForkJoinPool.commonPool(), parallelThreshold(env));
+    }
+
+    ExchangeRateAggregator(Environment env, ExchangeRateStore exchangeRateStore, ForkJoinPool pool, int parallelThreshold) {
+        this.env = env;
+        this.exchangeRateStore = exchangeRateStore;
+        this.pool = pool;
+        this.parallelThreshold = parallelThreshold;
+        this.scratch = ThreadLocal.withInitial(Scratch::new);
+    }
+
+    /**
+     * Aggregates the currencies {@code currencyIds[0, count)} into
+     * {@code aggregates[0, count)}. A currency without any rates gets a null aggregate.
+     * The bounds of the prices each aggregate is based on go to {@code bounds[2 * i]}
+     * and {@code bounds[2 * i + 1]}, inclusive.
+     */
+    void aggregate(int[] currencyIds, int count, ExchangeRate[] aggregates, double[] bounds, boolean logOutliers) {
+        // Resolve the strategies up front, so the workers only ever read strategyNames
+        for (int i = 0; i < count; i++) {
+            getStrategyName(currencyIds[i]);
+        }
+
+        if (count < parallelThreshold) {
+            aggregate(currencyIds, 0, count, aggregates, bounds, logOutliers);
+        } else {
+            pool.invoke(new AggregationTask(currencyIds, 0, count, aggregates, bounds, logOutliers));
+        }
+    }
+
+    private class AggregationTask extends RecursiveAction {
+        private final int[] currencyIds;
+        private final int from;
+        private final int to;
+        private final ExchangeRate[] aggregates;
+        private final double[] bounds;
+        private final boolean logOutliers;
+
+        AggregationTask(int[] currencyIds, int from, int to, ExchangeRate[] aggregates, double[] bounds,
+                        boolean logOutliers) {
+            this.currencyIds = currencyIds;
+            this.from = from;
+            this.to = to;
+            this.aggregates = aggregates;
+            this.bounds = bounds;
+            this.logOutliers = logOutliers;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNK_SIZE) {
+                aggregate(currencyIds, from, to, aggregates, bounds, logOutliers);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new AggregationTask(currencyIds, from, mid, aggregates, bounds, logOutliers),
+                    new AggregationTask(currencyIds, mid, to, aggregates, bounds, logOutliers));
+        }
+    }
+
+    private void aggregate(int[] currencyIds, int from, int to, ExchangeRate[] aggregates, double[] bounds,
+                           boolean logOutliers) {
+        Scratch s = scratch.get();
+        if (s.prices.length < exchangeRateStore.getSourceCount()) {
+            s.prices = new double[exchangeRateStore.getSourceCount()];
+        }
+        for (int i = from; i < to; i++) {
+            aggregates[i] = getAggregateExchangeRate(currencyIds[i], s, logOutliers);
+            bounds[2 * i] = s.bounds[0];
+            bounds[2 * i + 1] = s.bounds[1];
+        }
+    }
+
+    private ExchangeRate getAggregateExchangeRate(int currencyId, Scratch s, boolean logOutliers) {
+        int count = exchangeRateStore.gatherPrices(currencyId, s.prices);
+        if (count == 0) {
+            // No provider has rates for this currency any more
+            return null;
+        }
+        if (count == 1) {
+            // If a single provider has rates for this currency, then aggregate = rate
+            // from that provider
+            s.bounds[0] = Double.NEGATIVE_INFINITY;
+            s.bounds[1] = Double.POSITIVE_INFINITY;
+            return exchangeRateStore.getExchangeRate(currencyId, exchangeRateStore.nextValidSource(currencyId, 0));
+        }
+
+        // If multiple providers have rates for this currency, then
+        // aggregate = average of the rates
+        String currencyCode = exchangeRateStore.getCurrencyCode(currencyId);
+        double priceAvg = priceAverageWithOutliersRemoved(currencyId, count, currencyCode, s, logOutliers);
+        return new ExchangeRate(
+                currencyCode,
+                BigDecimal.valueOf(priceAvg),
+                new Date(newestTimestamp(currencyId, s.bounds[0], s.bounds[1])),
+                "Bisq-Aggregate");
+    }
+
+    /**
+     * @return the timestamp of the newest rate within the given bounds, i.e. of the
+     * newest rate the aggregate is based on. Unlike the time of aggregation, this is the
+     * same for the same rates, so unchanged rates yield an identical aggregate.
+     */
+    private long newestTimestamp(int currencyId, double lowerBound, double upperBound) {
+        long newestTimestamp = 0;
+        for (int sourceId = exchangeRateStore.nextValidSource(currencyId, 0);
+             sourceId >= 0;
+             sourceId = exchangeRateStore.nextValidSource(currencyId, sourceId + 1)) {
+            double price = exchangeRateStore.getPrice(currencyId, sourceId);
+            if (price >= lowerBound && price <= upperBound) {
+                newestTimestamp = Math.max(newestTimestamp, exchangeRateStore.getTimestamp(currencyId, sourceId));
+            }
+        }
+        return newestTimestamp;
+    }
+
+    private double priceAverageWithOutliersRemoved(
+            int currencyId, int count, String contextInfo, Scratch s, boolean logOutliers) {
+        AggregationStrategy strategy = s.strategiesByName.computeIfAbsent(strategyNames.get(currencyId),
+                name -> AggregationStrategy.create(env, name));
+        double[] prices = s.prices;
+        double priceAvg = strategy.aggregate(prices, count, s.bounds);
+        double lowerBound = s.bounds[0];
+        double upperBound = s.bounds[1];
+
+        if (Double.isNaN(priceAvg)) {
+            log.error("{}: could not filter with {}, revert to plain average. lowerBound={}, upperBound={}, yValues={}",
+                    contextInfo, strategy.getName(), lowerBound, upperBound, Arrays.toString(Arrays.copyOf(prices, count)));
+            // All prices make up the plain average
+            s.bounds[0] = Double.NEGATIVE_INFINITY;
+            s.bounds[1] = Double.POSITIVE_INFINITY;
+            return InlierStatistics.mean(prices, count);
+        }
+
+        // log the outlier prices which were removed from the average, if any.
+        if (logOutliers) {
+            for (int sourceId = exchangeRateStore.nextValidSource(currencyId, 0);
+                 sourceId >= 0;
+                 sourceId = exchangeRateStore.nextValidSource(currencyId, sourceId + 1)) {
+                double price = exchangeRateStore.getPrice(currencyId, sourceId);
+                if (price >= lowerBound && price <= upperBound) {
+                    continue;
+                }
+                ExchangeRate badRate = exchangeRateStore.getExchangeRate(currencyId, sourceId);
+                log.info("{} {} outlier price removed:{}, lower/upper bounds:{}/{}, consensus price:{}",
+                        badRate.getProvider(),
+                        badRate.getCurrency(),
+                        badRate.getPrice(),
+                        lowerBound,
+                        upperBound,
+                        priceAvg);
+            }
+        }
+        return priceAvg;
+    }
+
+    private static int parallelThreshold(Environment env) {
+        String parallelThreshold = env.getProperty("bisq.price.aggregation.parallelThreshold");
+        return parallelThreshold == null ? DEFAULT_PARALLEL_THRESHOLD : Integer.parseInt(parallelThreshold.trim());
+    }
+
+    private String getStrategyName(int currencyId) {
+        while (strategyNames.size() <= currencyId) {
+            String currencyCode = exchangeRateStore.getCurrencyCode(strategyNames.size());
+            String name = AggregationStrategy.forCurrency(env, currencyCode);
+            if (!AggregationStrategy.NAMES.contains(name)) {
+                log.error("Unknown aggregation strategy {} for {}, using {} instead",
+                        name, currencyCode, AggregationStrategy.DEFAULT_STRATEGY);
+                name = AggregationStrategy.DEFAULT_STRATEGY;
+            }
+            strategyNames.add(name);
+        }
+        return strategyNames.get(currencyId);
+    }
+}
@@ -20,9 +20,14 @@ package bisq.price.spot;
 import bisq.price.PriceController;
 import bisq.price.mining.FeeRateService;
 import bisq.price.common.config.Config;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @RestController
@@ -30,20 +35,65 @@ class ExchangeRateController extends PriceController {
 
     private final ExchangeRateService exchangeRateService;
     private final FeeRateService feeRateService;
+    private final ObjectMapper objectMapper;
+    private volatile MarketPrices marketPrices;
 
-    public ExchangeRateController(ExchangeRateService exchangeRateService, FeeRateService feeRateService) {
+    /**
+     * The response merged from a market price snapshot and a fee snapshot, until either
+     * of them is replaced.
+     *
+     * @param json the merged map encoded as JSON
+     */
+    private record MarketPrices(Map<String, Object> exchangeRates,
+                                Map<String, Object> fees,
+                                byte[] json) {
+    }
+
+    public ExchangeRateController(ExchangeRateService exchangeRateService,
+                                  FeeRateService feeRateService,
+                                  ObjectMapper objectMapper) {
         this.exchangeRateService = exchangeRateService;
         this.feeRateService = feeRateService;
+        this.objectMapper = objectMapper;
+        // Merge whenever either snapshot is published, on the publishing thread
+        exchangeRateService.addMarketPricesListener(this::merge);
+        feeRateService.addUpdateListener(this::merge);
+        merge();
     }
 
     @GetMapping(path = "/getAllMarketPrices")
-    public Map<String, Object> getAllMarketPrices() {
-        Map<String, Object> retVal = exchangeRateService.getAllMarketPrices();
+    public ResponseEntity<byte[]> getAllMarketPrices() {
+        // Also lets the service notice a changed transformer
+        Map<String, Object> exchangeRates = exchangeRateService.getAllMarketPrices();
+        Map<String, Object> fees = feeRateService.getFees();
+        MarketPrices current = marketPrices;
+        if (current.exchangeRates() != exchangeRates || current.fees() != fees) {
+            // Published just now, the publishing thread may not have merged them yet
+            merge();
+            current = marketPrices;
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(current.json());
+    }
+
+    // Merges the latest published snapshots, unless they were merged already
+    private synchronized void merge() {
+        Map<String, Object> exchangeRates = exchangeRateService.getAllMarketPrices();
+        Map<String, Object> fees = feeRateService.getFees();
+        MarketPrices current = marketPrices;
+        // Both are immutable snapshots, so they only need to be merged when one changed
+        if (current != null && current.exchangeRates() == exchangeRates && current.fees() == fees) {
+            return;
+        }
+        Map<String, Object> retVal = new LinkedHashMap<>(exchangeRates);
 
         // add the fee info to results
-        feeRateService.getFees().forEach((key, value) -> retVal.put(translateFieldName(key), value));
+        fees.forEach((key, value) -> retVal.put(translateFieldName(key), value));
 
-        return retVal;
+        try {
+            marketPrices = new MarketPrices(exchangeRates, fees, objectMapper.writeValueAsBytes(retVal));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not encode market prices", e);
+        }
     }
 
     static String translateFieldName(String name) {
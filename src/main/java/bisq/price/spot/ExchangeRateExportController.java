@@ -0,0 +1,145 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+package bisq.price.spot;
+
+import bisq.price.PriceController;
+import bisq.price.spot.journal.JournalRecord;
+import bisq.price.spot.journal.PriceJournal;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Streams the current market prices, or the journaled ones of a time range, as NDJSON or
+ * CSV. The records are pulled as the response is written, so memory use does not depend
+ * on the size of the range.
+ */
+@RestController
+class ExchangeRateExportController extends PriceController {
+
+    static final String NDJSON = "application/x-ndjson";
+    static final String CSV = "text/csv;charset=UTF-8";
+    static final String MARKET_PRICES_CSV_HEADER = "currencyCode,price,timestampSec,provider\n";
+    static final String PRICE_HISTORY_CSV_HEADER = "time,type,currencyCode,price,timestampSec,provider,providerCount\n";
+
+    private static final long DEFAULT_RANGE_SEC = Duration.ofDays(1).toSeconds();
+    // So that a single request cannot read the whole journal
+    static final long MAX_RANGE_SEC = Duration.ofDays(31).toSeconds();
+    private static final long MAX_EPOCH_SEC = Long.MAX_VALUE / 1000 - 1;
+    // CSV lines are written in chunks of this many, rather than flushed one by one
+    private static final int CSV_CHUNK_LINES = 256;
+
+    private final ExchangeRateService exchangeRateService;
+    private final PriceJournal priceJournal;
+
+    public ExchangeRateExportController(ExchangeRateService exchangeRateService, PriceJournal priceJournal) {
+        this.exchangeRateService = exchangeRateService;
+        this.priceJournal = priceJournal;
+    }
+
+    @GetMapping(path = "/exportMarketPrices/ndjson", produces = NDJSON)
+    public Flux<ExchangeRate> exportMarketPricesAsNdjson() {
+        return Flux.fromIterable(exchangeRateService.getExchangeRates());
+    }
+
+    @GetMapping(path = "/exportMarketPrices/csv", produces = CSV)
+    public Flux<String> exportMarketPricesAsCsv() {
+        return csv(MARKET_PRICES_CSV_HEADER, Flux.fromIterable(exchangeRateService.getExchangeRates())
+                .map(ExchangeRateExportController::toCsv));
+    }
+
+    /**
+     * @param from      epoch seconds, inclusive, by default a day before {@code to}, at
+     *                  most 31 days before it
+     * @param to        epoch seconds, inclusive, by default now
+     * @param currency  the currency to export, by default all
+     * @param providers whether to export the provider rates besides the aggregates
+     */
+    @GetMapping(path = "/exportPriceHistory/ndjson", produces = NDJSON)
+    public Flux<JournalRecord> exportPriceHistoryAsNdjson(
+            @RequestParam(name = "from", required = false) Long from,
+            @RequestParam(name = "to", required = false) Long to,
+            @RequestParam(name = "currency", required = false) String currency,
+            @RequestParam(name = "providers", defaultValue = "false") boolean providers) {
+        return read(from, to, currency, providers);
+    }
+
+    /**
+     * @see #exportPriceHistoryAsNdjson(Long, Long, String, boolean)
+     */
+    @GetMapping(path = "/exportPriceHistory/csv", produces = CSV)
+    public Flux<String> exportPriceHistoryAsCsv(
+            @RequestParam(name = "from", required = false) Long from,
+            @RequestParam(name = "to", required = false) Long to,
+            @RequestParam(name = "currency", required = false) String currency,
+            @RequestParam(name = "providers", defaultValue = "false") boolean providers) {
+        return csv(PRICE_HISTORY_CSV_HEADER, read(from, to, currency, providers)
+                .map(ExchangeRateExportController::toCsv));
+    }
+
+    private Flux<JournalRecord> read(Long from, Long to, String currency, boolean providers) {
+        long toSec = Math.min(to != null ? to : System.currentTimeMillis() / 1000, MAX_EPOCH_SEC);
+        long fromSec = Math.max(from != null ? from : toSec - DEFAULT_RANGE_SEC, 0);
+        if (toSec - fromSec > MAX_RANGE_SEC) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Range longer than " + Duration.ofSeconds(MAX_RANGE_SEC).toDays() + " days");
+        }
+        String currencyCode = currency != null ? currency.toUpperCase(Locale.ROOT) : null;
+        // Include the whole last second
+        return Flux.fromIterable(() -> priceJournal.read(fromSec * 1000, toSec * 1000 + 999, currencyCode, providers))
+                // Reading may have to decode segments from disk
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static Flux<String> csv(String header, Flux<String> lines) {
+        return Flux.concat(Flux.just(header), lines)
+                .buffer(CSV_CHUNK_LINES)
+                .map(chunk -> String.join("", chunk));
+    }
+
+    private static String toCsv(ExchangeRate exchangeRate) {
+        return fields(exchangeRate) + '\n';
+    }
+
+    private static String toCsv(JournalRecord record) {
+        return Long.toString(record.time()) + ',' + record.getType() + ',' + fields(record.exchangeRate()) + ','
+                + record.providerCount() + '\n';
+    }
+
+    private static String fields(ExchangeRate exchangeRate) {
+        return escape(exchangeRate.getCurrency()) + ',' + exchangeRate.getPrice() + ','
+                + exchangeRate.getTimestamp() + ',' + escape(exchangeRate.getProvider());
+    }
+
+    // Quotes fields with separators, as in RFC 4180
+    private static String escape(String field) {
+        if (field == null) {
+            return "";
+        }
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0 && field.indexOf('\r') < 0) {
+            return field;
+        }
+        return '"' + field.replace("\"", "\"\"") + '"';
+    }
+}
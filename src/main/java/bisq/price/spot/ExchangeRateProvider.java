@@ -39,7 +39,6 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -55,7 +54,7 @@ import java.util.stream.Stream;
  */
 public abstract class ExchangeRateProvider extends PriceProvider<Set<ExchangeRate>> {
 
-    private static final long STALE_PRICE_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final Duration DEFAULT_STALE_AFTER = Duration.ofMinutes(10);
     private static Set<String> SUPPORTED_CRYPTO_CURRENCIES = new HashSet<>();
     private static Set<String> SUPPORTED_FIAT_CURRENCIES = new HashSet<>();
     private final Set<String> providerExclusionList = new HashSet<>();
@@ -86,6 +85,16 @@ public abstract class ExchangeRateProvider extends PriceProvider<Set<ExchangeRat
         }
     }
 
+    /**
+     * Exchanges run in a lane of their own by default. Setting
+     * {@code bisq.price.lane.<prefix>} to a common group name makes several of them
+     * share one lane instead.
+     */
+    @Override
+    protected String getLaneName() {
+        return Objects.requireNonNullElse(env.getProperty("bisq.price.lane." + prefix), name);
+    }
+
     public Set<String> getSupportedFiatCurrencies() {
         if (SUPPORTED_FIAT_CURRENCIES.isEmpty()) {         // one-time initialization
             List<String> excludedFiatCurrencies =
@@ -128,23 +137,19 @@ public abstract class ExchangeRateProvider extends PriceProvider<Set<ExchangeRat
                 .collect(Collectors.toSet());
     }
 
-    public void maybeClearStaleRates() {
-        if (get() == null) {
-            return;
-        }
-        // a stale rate is older than the specified interval, except:
-        // timestamp of 0L is used as special case re: CoinMarketCap and BitcoinAverage
-        //   (https://github.com/bisq-network/bisq-pricenode/issues/23)
-        long staleTimestamp = new Date().getTime() - STALE_PRICE_INTERVAL_MILLIS;
-        Set<ExchangeRate> nonStaleRates = get().stream()
-                .filter(e -> e.getTimestamp() == 0L || e.getTimestamp() > staleTimestamp)
-                .collect(Collectors.toSet());
-        long numberOriginalRates = get().size();
-        if (numberOriginalRates > nonStaleRates.size()) {
-            put(nonStaleRates);
-            log.warn("{} {} stale rates removed, now {} rates",
-                    getName(), numberOriginalRates, nonStaleRates.size());
+    /**
+     * @return how long after their timestamp this provider's rates are considered stale
+     * and dropped: {@code bisq.price.staleAfter.<prefix>} if set, else
+     * {@code bisq.price.staleAfter}, else 10 minutes. Rates with a timestamp of 0 never
+     * go stale, as used by CoinMarketCap and BitcoinAverage
+     * (https://github.com/bisq-network/bisq-pricenode/issues/23).
+     */
+    public Duration getStaleAfter() {
+        Duration staleAfter = env.getProperty("bisq.price.staleAfter." + prefix, Duration.class);
+        if (staleAfter == null) {
+            staleAfter = env.getProperty("bisq.price.staleAfter", Duration.class);
         }
+        return Objects.requireNonNullElse(staleAfter, DEFAULT_STALE_AFTER);
     }
 
     @Override
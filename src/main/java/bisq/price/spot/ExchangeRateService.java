@@ -17,28 +17,93 @@
 
 package bisq.price.spot;
 
-import bisq.price.common.util.InlierUtil;
-import bisq.price.common.util.Tuple2;
 import bisq.price.util.GatedLogging;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * High-level {@link ExchangeRate} data operations.
+ *
+ * <p>All aggregation state has a single writer, the aggregator thread. Providers
+ * announce new rates through a lock-free queue, the aggregator drains it in batches,
+ * updates the {@link ExchangeRateStore}, aggregates and publishes an immutable
+ * {@link Snapshot}, which requests read without any locking, and without waiting for
+ * updates still pending.</p>
+ *
+ * <p>The rates at hand are published on construction. The aggregator thread runs from
+ * {@link #start()} to {@link #stop()}.</p>
  */
 @Service
 @Slf4j
-class ExchangeRateService {
+class ExchangeRateService implements SmartLifecycle {
+    // Resolution of stale rate expiry, and how long the aggregator waits for updates
+    // before it expires stale rates anyway
+    private static final long EXPIRY_TICK_MILLIS = TimeUnit.SECONDS.toMillis(5);
+    // One turn of the wheel covers about 20 minutes, i.e. the usual staleness windows
+    private static final int EXPIRY_WHEEL_SLOTS = 256;
+    // Queued instead of a provider id when a transformer may have changed
+    private static final int TRANSFORMERS_CHANGED = -1;
+
     private final Environment env;
     private final List<ExchangeRateProvider> providers;
     private final List<ExchangeRateTransformer> transformers;
+    private final List<AggregateExchangeRateListener> aggregateListeners;
+    // Transformers by the (upper case) currency code they apply to, in the order they
+    // are chained, and the same chains by currency id, resolved on first sight of a currency
+    private final Map<String, List<ExchangeRateTransformer>> transformersByCurrencyCode = new HashMap<>();
+    private final List<List<ExchangeRateTransformer>> transformerChains = new ArrayList<>();
     private final GatedLogging gatedLogging = new GatedLogging();
 
+    // Aggregation state, only touched by the aggregator thread (and by the constructor,
+    // before that thread starts): the latest rate of every provider per currency, the
+    // provider versions they were taken at, and the resulting aggregates
+    private final ExchangeRateStore exchangeRateStore;
+    private final long[] providerVersions;
+    private final long[] transformerVersions;
+    private final SortedMap<String, ExchangeRate> aggregateExchangeRates = new TreeMap<>();
+    private final BitSet changedCurrencies = new BitSet();
+    private final BitSet changedProviders = new BitSet();
+    private final ExchangeRateAggregator aggregator;
+    // The currencies to aggregate again, their new aggregates and the bounds of the
+    // prices these are based on, reused across calls
+    private int[] changedCurrencyIds = new int[0];
+    private ExchangeRate[] changedAggregates = new ExchangeRate[0];
+    private double[] changedBounds = new double[0];
+    // Per provider: whether it reported rates yet, how long until they go stale, the
+    // timestamp reported as metadata, and the number of rates that just went stale
+    private final boolean[] reported;
+    private final long[] staleAfterMillis;
+    private final long[] providerTimestamps;
+    private final int[] staleRateCounts;
+    private final BitSet metadataChangedProviders = new BitSet();
+    // Expiry of every stored rate, keyed by source and currency id
+    private final ExpiryWheel expiryWheel;
+
+    // Hand-off between providers, requests and the aggregator thread
+    private final Queue<Integer> updates = new ConcurrentLinkedQueue<>();
+    private volatile Snapshot snapshot;
+    private final List<Runnable> marketPricesListeners = new CopyOnWriteArrayList<>();
+    // Null unless running
+    private volatile Thread aggregatorThread;
+
+    /**
+     * Everything a request needs, as of one aggregation.
+     */
+    private record Snapshot(Map<String, Object> metadata,
+                            List<ExchangeRate> exchangeRates,
+                            long[] transformerVersions,
+                            Map<String, Object> marketPrices) {
+    }
+
     /**
      * Construct an {@link ExchangeRateService} with a list of all
      * {@link ExchangeRateProvider} implementations discovered via classpath scanning.
@@ -50,198 +115,472 @@ class ExchangeRateService {
     public ExchangeRateService(Environment env,
                                List<ExchangeRateProvider> providers,
                                List<ExchangeRateTransformer> transformers) {
+        this(env, providers, transformers, List.of());
+    }
+
+    /**
+     * @param aggregateListeners all {@link AggregateExchangeRateListener} implementations
+     * @see #ExchangeRateService(Environment, List, List)
+     */
+    @Autowired
+    public ExchangeRateService(Environment env,
+                               List<ExchangeRateProvider> providers,
+                               List<ExchangeRateTransformer> transformers,
+                               List<AggregateExchangeRateListener> aggregateListeners) {
         this.env = env;
         this.providers = providers;
         this.transformers = transformers;
+        this.aggregateListeners = aggregateListeners;
+        this.exchangeRateStore = new ExchangeRateStore(providers.size());
+        this.providerVersions = new long[providers.size()];
+        Arrays.fill(providerVersions, Long.MIN_VALUE);
+        this.aggregator = new ExchangeRateAggregator(env, exchangeRateStore);
+        this.reported = new boolean[providers.size()];
+        this.staleAfterMillis = new long[providers.size()];
+        for (int providerId = 0; providerId < providers.size(); providerId++) {
+            staleAfterMillis[providerId] = providers.get(providerId).getStaleAfter().toMillis();
+        }
+        this.providerTimestamps = new long[providers.size()];
+        this.staleRateCounts = new int[providers.size()];
+        this.expiryWheel = new ExpiryWheel(EXPIRY_WHEEL_SLOTS, EXPIRY_TICK_MILLIS, System.currentTimeMillis());
+
+        this.transformerVersions = new long[transformers.size()];
+        for (int i = 0; i < transformers.size(); i++) {
+            ExchangeRateTransformer transformer = transformers.get(i);
+            transformersByCurrencyCode
+                    .computeIfAbsent(transformer.supportedCurrency().toUpperCase(Locale.ROOT), c -> new ArrayList<>())
+                    .add(transformer);
+            transformerVersions[i] = transformer.getVersion();
+        }
+
+        for (int providerId = 0; providerId < providers.size(); providerId++) {
+            int id = providerId;
+            providers.get(providerId).addUpdateListener(() -> requestUpdate(id));
+        }
+
+        for (AggregateExchangeRateListener source : aggregateListeners) {
+            for (AggregateExchangeRateListener target : aggregateListeners) {
+                if (target != source) {
+                    source.replayTo(target);
+                }
+            }
+        }
+
+        // Publish the rates at hand before serving the first request
+        changedProviders.set(0, providers.size());
+        update();
     }
 
+    @Override
+    public synchronized void start() {
+        if (aggregatorThread != null) {
+            return;
+        }
+        Thread thread = new Thread(this::runAggregator, "exchange-rate-aggregator");
+        thread.setDaemon(true);
+        aggregatorThread = thread;
+        thread.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        Thread thread = aggregatorThread;
+        if (thread == null) {
+            return;
+        }
+        aggregatorThread = null;
+        thread.interrupt();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return aggregatorThread != null;
+    }
+
+    /**
+     * @return the provider metadata and the aggregate rates of the latest snapshot, as
+     * an immutable map which stays the same object until the rates or the metadata change
+     */
     public Map<String, Object> getAllMarketPrices() {
-        Map<String, Object> metadata = new LinkedHashMap<>();
-        Map<String, ExchangeRate> aggregateExchangeRates = getAggregateExchangeRates();
-
-        providers.forEach(p -> {
-            p.maybeClearStaleRates();
-            // Specific metadata fields for specific providers are expected by the client,
-            // mostly for historical reasons
-            // Therefore, add metadata fields for all known providers
-            // Rates are encapsulated in the "data" map below
-            metadata.putAll(getMetadata(p));
-        });
+        return currentSnapshot().marketPrices();
+    }
 
+    /**
+     * Registers a listener to run on the aggregator thread whenever a snapshot with a new
+     * {@link #getAllMarketPrices()} map is published. Listeners must not block.
+     */
+    public void addMarketPricesListener(Runnable listener) {
+        marketPricesListeners.add(listener);
+    }
 
-        LinkedHashMap<String, Object> result = new LinkedHashMap<>(metadata);
-        // Use a sorted list by currency code to make comparison of json data between
-        // different price nodes easier
-        List<ExchangeRate> values = new ArrayList<>(aggregateExchangeRates.values());
-        values.sort(Comparator.comparing(ExchangeRate::getCurrency));
-        result.put("data", values);
+    /**
+     * @return the aggregate rates of the latest snapshot, sorted by currency code
+     */
+    public List<ExchangeRate> getExchangeRates() {
+        return currentSnapshot().exchangeRates();
+    }
 
-        return result;
+    /**
+     * @return the latest published {@link Snapshot}. If a transformer changed since, the
+     * aggregator is asked to apply it, and a later request sees the result.
+     */
+    private Snapshot currentSnapshot() {
+        Snapshot current = snapshot;
+        for (int i = 0; i < transformers.size(); i++) {
+            if (transformers.get(i).getVersion() != current.transformerVersions()[i]) {
+                requestUpdate(TRANSFORMERS_CHANGED);
+                break;
+            }
+        }
+        return current;
+    }
+
+    private void requestUpdate(int providerId) {
+        updates.offer(providerId);
+        Thread thread = aggregatorThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void runAggregator() {
+        while (!Thread.currentThread().isInterrupted()) {
+            if (updates.isEmpty()) {
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(EXPIRY_TICK_MILLIS));
+            }
+            try {
+                update();
+            } catch (Throwable t) {
+                // Keep the previous snapshot, the next update may well succeed
+                log.error("Exchange rate aggregation failed", t);
+            }
+        }
     }
 
     /**
-     * For each currency, create an aggregate {@link ExchangeRate} based on the currency's
+     * Drains the queued updates, writes the rates of the providers that changed to the
+     * {@link ExchangeRateStore}, removes the rates that went stale since the last update
+     * and publishes a new {@link Snapshot}.
+     *
+     * <p>For each currency, the aggregate {@link ExchangeRate} is based on the currency's
      * rates from all providers. If multiple providers have rates for the currency, then
-     * aggregate price = average of retrieved prices. If a single provider has rates for
-     * the currency, then aggregate price = the rate from that provider.
+     * aggregate price = average of retrieved prices, or whatever the currency's
+     * {@link AggregationStrategy} makes of them. If a single provider has rates for
+     * the currency, then aggregate price = the rate from that provider. See
+     * {@link ExchangeRateAggregator}.</p>
      *
-     * @return Aggregate {@link ExchangeRate}s based on info from all providers, indexed
-     * by currency code
+     * <p>Aggregates are maintained incrementally. Only providers whose version changed
+     * are queried again, and their rates written to the {@link ExchangeRateStore}.
+     * Transformations are applied at that point too, for new rates only, and again for
+     * the currency of a transformer whose version changed. Only the currencies whose
+     * rates changed as a result are aggregated again. All other aggregates are the very
+     * same objects as in the previous snapshot.</p>
      */
-    private Map<String, ExchangeRate> getAggregateExchangeRates() {
+    private void update() {
         boolean maybeLogDetails = gatedLogging.gatingOperation();
-        Map<String, ExchangeRate> aggregateExchangeRates = new HashMap<>();
-
-        // Query all providers and collect all exchange rates, grouped by currency code
-        // key = currency code
-        // value = list of exchange rates
-        Map<String, List<ExchangeRate>> currencyCodeToExchangeRates = getCurrencyCodeToExchangeRates();
-
-        // For each currency code, calculate aggregate rate
-        currencyCodeToExchangeRates.forEach((currencyCode, exchangeRateList) -> {
-            if (exchangeRateList.isEmpty()) {
-                // If the map was built incorrectly and this currency points to an empty
-                // list of rates, skip it
-                return;
-            }
-
-            ExchangeRate aggregateExchangeRate;
-            if (exchangeRateList.size() == 1) {
-                // If a single provider has rates for this currency, then aggregate = rate
-                // from that provider
-                aggregateExchangeRate = exchangeRateList.getFirst();
-            } else {
-                // If multiple providers have rates for this currency, then
-                // aggregate = average of the rates
-                double priceAvg = priceAverageWithOutliersRemoved(exchangeRateList, currencyCode, maybeLogDetails);
-                aggregateExchangeRate = new ExchangeRate(
-                        currencyCode,
-                        BigDecimal.valueOf(priceAvg),
-                        new Date(), // timestamp = time when avg is calculated
-                        "Bisq-Aggregate");
-            }
-            aggregateExchangeRates.put(aggregateExchangeRate.getCurrency(), aggregateExchangeRate);
+        for (Integer providerId = updates.poll(); providerId != null; providerId = updates.poll()) {
+            if (providerId != TRANSFORMERS_CHANGED) {
+                changedProviders.set(providerId);
+            }
+        }
+
+        changedCurrencies.clear();
+        metadataChangedProviders.clear();
+        for (int providerId = changedProviders.nextSetBit(0);
+             providerId >= 0;
+             providerId = changedProviders.nextSetBit(providerId + 1)) {
+            ExchangeRateProvider p = providers.get(providerId);
+            // Read the version before the rates, so a concurrent refresh can at worst
+            // cause one needless update, but never a missed one
+            long providerVersion = p.getVersion();
+            if (providerVersions[providerId] == providerVersion) {
+                continue;
+            }
+            providerVersions[providerId] = providerVersion;
+            Set<ExchangeRate> exchangeRates = p.get();
+            reported[providerId] = exchangeRates != null;
+            if (exchangeRates != null) {
+                notifyProviderRatesListeners(p, exchangeRates);
+            }
+            writeExchangeRates(providerId, p, exchangeRates == null ? Set.of() : exchangeRates);
+            metadataChangedProviders.set(providerId);
+        }
+        changedProviders.clear();
+
+        expireStaleRates();
+        for (int providerId = metadataChangedProviders.nextSetBit(0);
+             providerId >= 0;
+             providerId = metadataChangedProviders.nextSetBit(providerId + 1)) {
+            providerTimestamps[providerId] = reported[providerId] ? getTimestamp(providerId) : 0;
+        }
+        boolean metadataChanged = !metadataChangedProviders.isEmpty();
+
+        boolean transformersChanged = false;
+        for (int i = 0; i < transformers.size(); i++) {
+            ExchangeRateTransformer transformer = transformers.get(i);
+            long transformerVersion = transformer.getVersion();
+            if (transformerVersions[i] != transformerVersion) {
+                transformerVersions[i] = transformerVersion;
+                transformersChanged = true;
+                retransform(transformer.supportedCurrency().toUpperCase(Locale.ROOT));
+            }
+        }
+
+        Snapshot previous = snapshot;
+        boolean ratesChanged = !changedCurrencies.isEmpty();
+        if (ratesChanged) {
+            aggregateChangedCurrencies(maybeLogDetails);
+        }
+        // A new transformer version is published even if it changed no rate, so requests
+        // stop asking for it
+        if (previous != null && !ratesChanged && !metadataChanged && !transformersChanged) {
+            return;
+        }
+        Map<String, Object> metadata = metadataChanged || previous == null ? getMetadata() : previous.metadata();
+        List<ExchangeRate> exchangeRates = ratesChanged || previous == null
+                ? List.copyOf(aggregateExchangeRates.values())
+                : previous.exchangeRates();
+        Map<String, Object> marketPrices =
+                previous != null && metadata == previous.metadata() && exchangeRates == previous.exchangeRates()
+                        ? previous.marketPrices()
+                        : getMarketPrices(metadata, exchangeRates);
+        snapshot = new Snapshot(metadata, exchangeRates, transformerVersions.clone(), marketPrices);
+        if (previous != null && marketPrices != previous.marketPrices()) {
+            notifyMarketPricesListeners();
+        }
+    }
+
+    /**
+     * Removes the rates whose staleness window ended by now from the
+     * {@link ExchangeRateStore}. Each stored rate was scheduled for expiry in the
+     * {@link ExpiryWheel} when it was written, so no rate is looked at before it is due.
+     */
+    private void expireStaleRates() {
+        long now = System.currentTimeMillis();
+        expiryWheel.advance(now, key -> {
+            int sourceId = (int) (key >>> 32);
+            int currencyId = (int) key;
+            int providerId = exchangeRateStore.getProviderId(sourceId);
+            ExchangeRate exchangeRate = exchangeRateStore.getSourceExchangeRate(currencyId, sourceId);
+            // The rate may have been replaced by a newer one since it was scheduled
+            if (exchangeRate != null && exchangeRate.getTimestamp() + staleAfterMillis[providerId] <= now) {
+                exchangeRateStore.remove(currencyId, sourceId, changedCurrencies);
+                staleRateCounts[providerId]++;
+            }
         });
 
-        return aggregateExchangeRates;
+        for (int providerId = 0; providerId < providers.size(); providerId++) {
+            if (staleRateCounts[providerId] > 0) {
+                log.warn("{} {} stale rates removed, now {} rates", providers.get(providerId).getName(),
+                        staleRateCounts[providerId], exchangeRateStore.getRateCount(providerId));
+                staleRateCounts[providerId] = 0;
+                metadataChangedProviders.set(providerId);
+            }
+        }
     }
 
-    private double priceAverageWithOutliersRemoved(
-            List<ExchangeRate> exchangeRateList, String contextInfo, boolean logOutliers) {
-        final List<Double> yValues = exchangeRateList.stream().
-                mapToDouble(ExchangeRate::getPrice).boxed().collect(Collectors.toList());
-        Tuple2<Double, Double> tuple = InlierUtil.findInlierRange(yValues, 0, getOutlierStdDeviation());
-        double lowerBound = tuple.first;
-        double upperBound = tuple.second;
-        final List<ExchangeRate> filteredPrices = exchangeRateList.stream()
-                .filter(e -> e.getPrice() >= lowerBound)
-                .filter(e -> e.getPrice() <= upperBound)
-                .toList();
+    private void aggregateChangedCurrencies(boolean maybeLogDetails) {
+        int count = changedCurrencies.cardinality();
+        if (changedCurrencyIds.length < count) {
+            changedCurrencyIds = new int[exchangeRateStore.getCurrencyCount()];
+            changedAggregates = new ExchangeRate[changedCurrencyIds.length];
+            changedBounds = new double[2 * changedCurrencyIds.length];
+        }
+        for (int i = 0, currencyId = changedCurrencies.nextSetBit(0);
+             currencyId >= 0;
+             i++, currencyId = changedCurrencies.nextSetBit(currencyId + 1)) {
+            changedCurrencyIds[i] = currencyId;
+        }
+        aggregator.aggregate(changedCurrencyIds, count, changedAggregates, changedBounds, maybeLogDetails);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < count; i++) {
+            String currencyCode = exchangeRateStore.getCurrencyCode(changedCurrencyIds[i]);
+            if (changedAggregates[i] == null) {
+                // No provider has rates for this currency any more
+                aggregateExchangeRates.remove(currencyCode);
+            } else {
+                aggregateExchangeRates.put(currencyCode, changedAggregates[i]);
+                notifyAggregateListeners(now, changedAggregates[i], changedCurrencyIds[i],
+                        changedBounds[2 * i], changedBounds[2 * i + 1]);
+            }
+            changedAggregates[i] = null;
+        }
+    }
 
-        if (filteredPrices.isEmpty()) {
-            log.error("{}: could not filter, revert to plain average. lowerBound={}, upperBound={}, stdDev={}, yValues={}",
-                    contextInfo, lowerBound, upperBound, getOutlierStdDeviation(), yValues);
-            return exchangeRateList.stream().mapToDouble(ExchangeRate::getPrice).average().getAsDouble();
+    private void notifyProviderRatesListeners(ExchangeRateProvider p, Set<ExchangeRate> exchangeRates) {
+        long now = System.currentTimeMillis();
+        for (AggregateExchangeRateListener listener : aggregateListeners) {
+            try {
+                listener.onProviderRates(now, p.getName(), exchangeRates);
+            } catch (RuntimeException e) {
+                log.error("Aggregate listener {} failed for {}", listener.getClass().getSimpleName(),
+                        p.getName(), e);
+            }
         }
+    }
 
-        OptionalDouble opt = filteredPrices.stream().mapToDouble(ExchangeRate::getPrice).average();
-        // List size > 1, so opt is always set
-        double priceAvg = opt.orElseThrow(IllegalStateException::new);
+    private void notifyAggregateListeners(long now, ExchangeRate aggregate, int currencyId,
+                                          double lowerBound, double upperBound) {
+        if (aggregateListeners.isEmpty()) {
+            return;
+        }
+        int providerCount = exchangeRateStore.getValidCount(currencyId);
+        List<ExchangeRate> contributingRates = getContributingRates(currencyId, lowerBound, upperBound);
+        for (AggregateExchangeRateListener listener : aggregateListeners) {
+            try {
+                listener.onAggregate(now, aggregate, providerCount, contributingRates);
+            } catch (RuntimeException e) {
+                log.error("Aggregate listener {} failed for {}", listener.getClass().getSimpleName(),
+                        aggregate.getCurrency(), e);
+            }
+        }
+    }
 
-        // log the outlier prices which were removed from the average, if any.
-        if (logOutliers) {
-            for (ExchangeRate badRate : exchangeRateList.stream()
-                    .filter(e -> !filteredPrices.contains(e))
-                    .toList()) {
-                log.info("{} {} outlier price removed:{}, lower/upper bounds:{}/{}, consensus price:{}",
-                        badRate.getProvider(),
-                        badRate.getCurrency(),
-                        badRate.getPrice(),
-                        lowerBound,
-                        upperBound,
-                        priceAvg);
+    /**
+     * @return the rates of the currency within the bounds, i.e. the ones an aggregate is
+     * based on, as they were aggregated
+     */
+    private List<ExchangeRate> getContributingRates(int currencyId, double lowerBound, double upperBound) {
+        List<ExchangeRate> contributingRates = new ArrayList<>();
+        for (int sourceId = exchangeRateStore.nextValidSource(currencyId, 0);
+             sourceId >= 0;
+             sourceId = exchangeRateStore.nextValidSource(currencyId, sourceId + 1)) {
+            double price = exchangeRateStore.getPrice(currencyId, sourceId);
+            if (price >= lowerBound && price <= upperBound) {
+                contributingRates.add(exchangeRateStore.getExchangeRate(currencyId, sourceId));
             }
         }
-        return priceAvg;
+        return Collections.unmodifiableList(contributingRates);
     }
 
-    private double getOutlierStdDeviation() {
-        return Double.parseDouble(env.getProperty("bisq.price.outlierStdDeviation", "1.1"));
+    private void notifyMarketPricesListeners() {
+        for (Runnable listener : marketPricesListeners) {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                log.error("Market prices listener failed", e);
+            }
+        }
     }
 
     /**
-     * @return All {@link ExchangeRate}s from all providers, grouped by currency code
+     * Writes the rates of the given provider to its row in the {@link ExchangeRateStore}
+     * and records the currencies whose rates changed. Only rates the provider did not
+     * report before are transformed, the others keep their previous transformation, and
+     * only those are scheduled to expire.
+     *
+     * <p>Rates carrying different names, e.g. CryptoYa's one per exchange, are written to
+     * different sources, so each of them is aggregated.</p>
      */
-    private Map<String, List<ExchangeRate>> getCurrencyCodeToExchangeRates() {
-        Map<String, List<ExchangeRate>> currencyCodeToExchangeRates = new HashMap<>();
-        for (ExchangeRateProvider p : providers) {
-            Set<ExchangeRate> exchangeRates = p.get();
-            if (exchangeRates == null)
-                continue;
-            for (ExchangeRate exchangeRate : exchangeRates) {
-                String currencyCode = exchangeRate.getCurrency();
-
-                List<ExchangeRate> finalExchangeRates = transformers.stream()
-                        .filter(transformer -> transformer.supportedCurrency()
-                                .equalsIgnoreCase(currencyCode)
-                        )
-                        .map(t -> t.apply(p, exchangeRate))
-                        .filter(Optional::isPresent)
-                        .map(Optional::get)
-                        .collect(Collectors.toList());
-
-                if (currencyCodeToExchangeRates.containsKey(currencyCode)) {
-                    List<ExchangeRate> l = new ArrayList<>(currencyCodeToExchangeRates.get(currencyCode));
-                    if (finalExchangeRates.isEmpty()) {
-                        l.add(exchangeRate);
-                    } else {
-                        l.addAll(finalExchangeRates);
-                    }
-                    currencyCodeToExchangeRates.put(currencyCode, l);
-                } else {
-                    if (finalExchangeRates.isEmpty()) {
-                        currencyCodeToExchangeRates.put(currencyCode, List.of(exchangeRate));
-                    } else {
-                        currencyCodeToExchangeRates.put(currencyCode, finalExchangeRates);
-                    }
+    private void writeExchangeRates(int providerId, ExchangeRateProvider p, Set<ExchangeRate> exchangeRates) {
+        exchangeRateStore.beginRow(providerId);
+        for (ExchangeRate exchangeRate : exchangeRates) {
+            int currencyId = exchangeRateStore.getCurrencyId(exchangeRate.getCurrency());
+            int sourceId = exchangeRateStore.getSourceId(providerId, exchangeRate.getProvider());
+            ExchangeRate finalExchangeRate;
+            if (exchangeRateStore.getSourceExchangeRate(currencyId, sourceId) == exchangeRate) {
+                finalExchangeRate = exchangeRateStore.getExchangeRate(currencyId, sourceId);
+            } else {
+                finalExchangeRate = transform(p, currencyId, exchangeRate);
+                // A timestamp of 0 never goes stale
+                if (exchangeRate.getTimestamp() != 0L) {
+                    expiryWheel.schedule((long) sourceId << 32 | currencyId,
+                            exchangeRate.getTimestamp() + staleAfterMillis[providerId]);
                 }
             }
+            exchangeRateStore.put(currencyId, sourceId, exchangeRate, finalExchangeRate, changedCurrencies);
         }
+        exchangeRateStore.endRow(changedCurrencies);
+    }
 
-        return currencyCodeToExchangeRates;
+    /**
+     * Transforms the rates of all providers for the given currency again, starting from
+     * the rates as reported.
+     */
+    private void retransform(String currencyCode) {
+        int currencyId = exchangeRateStore.findCurrencyId(currencyCode);
+        if (currencyId < 0) {
+            return;
+        }
+        for (int sourceId = exchangeRateStore.nextValidSource(currencyId, 0);
+             sourceId >= 0;
+             sourceId = exchangeRateStore.nextValidSource(currencyId, sourceId + 1)) {
+            ExchangeRate sourceExchangeRate = exchangeRateStore.getSourceExchangeRate(currencyId, sourceId);
+            ExchangeRateProvider p = providers.get(exchangeRateStore.getProviderId(sourceId));
+            exchangeRateStore.replace(currencyId, sourceId,
+                    transform(p, currencyId, sourceExchangeRate), changedCurrencies);
+        }
     }
 
-    private Map<String, Object> getMetadata(ExchangeRateProvider provider) {
+    /**
+     * Applies the currency's transformers, each to the result of the previous one. A
+     * transformer returning nothing leaves the rate as it is.
+     */
+    private ExchangeRate transform(ExchangeRateProvider p, int currencyId, ExchangeRate exchangeRate) {
+        while (transformerChains.size() <= currencyId) {
+            String currencyCode = exchangeRateStore.getCurrencyCode(transformerChains.size());
+            transformerChains.add(transformersByCurrencyCode.getOrDefault(
+                    currencyCode.toUpperCase(Locale.ROOT), List.of()));
+        }
+
+        ExchangeRate finalExchangeRate = exchangeRate;
+        for (ExchangeRateTransformer transformer : transformerChains.get(currencyId)) {
+            finalExchangeRate = transformer.apply(p, finalExchangeRate).orElse(finalExchangeRate);
+        }
+        return finalExchangeRate;
+    }
+
+    private static Map<String, Object> getMarketPrices(Map<String, Object> metadata,
+                                                       List<ExchangeRate> exchangeRates) {
+        // Specific metadata fields for specific providers are expected by the client,
+        // mostly for historical reasons
+        // Therefore, add metadata fields for all known providers
+        // Rates are encapsulated in the "data" map below
+        LinkedHashMap<String, Object> result = new LinkedHashMap<>(metadata);
+        // Use a sorted list by currency code to make comparison of json data between
+        // different price nodes easier
+        result.put("data", exchangeRates);
+        return Collections.unmodifiableMap(result);
+    }
+
+    private Map<String, Object> getMetadata() {
         Map<String, Object> metadata = new LinkedHashMap<>();
+        for (int providerId = 0; providerId < providers.size(); providerId++) {
+            String prefix = providers.get(providerId).getPrefix();
+            metadata.put(prefix + "Ts", providerTimestamps[providerId]);
+            metadata.put(prefix + "Count", exchangeRateStore.getRateCount(providerId));
+        }
+        return Collections.unmodifiableMap(metadata);
+    }
 
+    private long getTimestamp(int providerId) {
         // In case a provider is not available we still want to deliver the data of the
         // other providers, so we catch a possible exception and leave timestamp at 0. The
         // Bisq app will check if the timestamp is in a tolerance window and if it is too
         // old it will show that the price is not available.
-        long timestamp = 0;
-        Set<ExchangeRate> exchangeRates = provider.get();
+        String name = providers.get(providerId).getName();
         try {
-            if (exchangeRates != null) {
-                timestamp = getTimestamp(provider, exchangeRates);
+            for (int sourceId : exchangeRateStore.getSourceIds(providerId)) {
+                int currencyId = exchangeRateStore.nextCurrency(sourceId, 0);
+                if (currencyId < 0) {
+                    continue;
+                }
+                ExchangeRate exchangeRate = exchangeRateStore.getSourceExchangeRate(currencyId, sourceId);
+                if (exchangeRate.getProvider().startsWith(name)) {
+                    return exchangeRate.getTimestamp();
+                }
             }
+            throw new IllegalStateException("No exchange rate data found for " + name);
         } catch (Throwable t) {
             log.error(t.toString());
             if (log.isDebugEnabled())
                 t.printStackTrace();
+            return 0;
         }
-
-        String prefix = provider.getPrefix();
-        metadata.put(prefix + "Ts", timestamp);
-        metadata.put(prefix + "Count", exchangeRates == null ? 0 : exchangeRates.size());
-
-        return metadata;
-    }
-
-    private long getTimestamp(ExchangeRateProvider provider, Set<ExchangeRate> exchangeRates) {
-        return exchangeRates.stream()
-                .filter(e -> e.getProvider().startsWith(provider.getName()))
-                .findFirst()
-                .orElseThrow(() -> new IllegalStateException("No exchange rate data found for " + provider.getName()))
-                .getTimestamp();
     }
 }
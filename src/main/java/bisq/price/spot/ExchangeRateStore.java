@@ -0,0 +1,347 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.spot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar store of the latest {@link ExchangeRate} of every source for every currency.
+ * A source is a provider together with the name its rates carry, see
+ * {@link ExchangeRate#getProvider()}. Most providers have a single source, but some
+ * report several rates per currency, e.g. CryptoYa one per exchange it covers, each of
+ * which has to be aggregated.
+ *
+ * <p>Currencies and sources are identified by dense ids. Per currency id, the store
+ * keeps a {@code double[]} of prices and a {@code long[]} of timestamps indexed by
+ * source id, plus a bitset of the sources which currently have a rate for it. So
+ * aggregating a currency reads one short, contiguous primitive column.</p>
+ *
+ * <p>A source contributes at most one rate per currency; writing a second one replaces
+ * the first. Currency and source ids are assigned on first sight and never reused. The
+ * first source of every provider has the provider's id, further sources get the ids
+ * after those of the providers.</p>
+ *
+ * <p>Not thread-safe.</p>
+ */
+class ExchangeRateStore {
+    private static final int INITIAL_CURRENCY_CAPACITY = 256;
+
+    private final int providerCount;
+    private final Map<String, Integer> currencyIds = new HashMap<>();
+    private final List<String> currencyCodes = new ArrayList<>();
+
+    // Per provider, its source ids by source name, and the provider id of every source
+    private final List<Map<String, Integer>> sourceIds;
+    private final List<int[]> providerSources;
+    private int[] sourceProviderIds;
+    private int sourceCapacity;
+
+    // [currency id][source id]
+    private double[][] prices;
+    private long[][] timestamps;
+    private ExchangeRate[][] exchangeRates;
+    // The rates as reported by the providers, before any transformation
+    private ExchangeRate[][] sourceExchangeRates;
+    private BitSet[] valid;
+
+    // Per source, the ids of the currencies it currently has a rate for
+    private final List<BitSet> sourceCurrencies = new ArrayList<>();
+    // The row being written, i.e. all sources of one provider, and per source the
+    // currencies written so far
+    private int rowProviderId = -1;
+    private final List<BitSet> rowCurrencies = new ArrayList<>();
+
+    ExchangeRateStore(int providerCount) {
+        this.providerCount = providerCount;
+        this.sourceCapacity = Math.max(1, 2 * providerCount);
+        this.prices = new double[INITIAL_CURRENCY_CAPACITY][];
+        this.timestamps = new long[INITIAL_CURRENCY_CAPACITY][];
+        this.exchangeRates = new ExchangeRate[INITIAL_CURRENCY_CAPACITY][];
+        this.sourceExchangeRates = new ExchangeRate[INITIAL_CURRENCY_CAPACITY][];
+        this.valid = new BitSet[INITIAL_CURRENCY_CAPACITY];
+        this.sourceIds = new ArrayList<>(providerCount);
+        this.providerSources = new ArrayList<>(providerCount);
+        this.sourceProviderIds = new int[providerCount];
+        for (int i = 0; i < providerCount; i++) {
+            sourceIds.add(new HashMap<>());
+            providerSources.add(new int[0]);
+            sourceProviderIds[i] = i;
+            sourceCurrencies.add(new BitSet());
+            rowCurrencies.add(new BitSet());
+        }
+    }
+
+    int getProviderCount() {
+        return providerCount;
+    }
+
+    int getCurrencyCount() {
+        return currencyCodes.size();
+    }
+
+    String getCurrencyCode(int currencyId) {
+        return currencyCodes.get(currencyId);
+    }
+
+    int getCurrencyId(String currencyCode) {
+        Integer currencyId = currencyIds.get(currencyCode);
+        if (currencyId != null) {
+            return currencyId;
+        }
+
+        int newId = currencyCodes.size();
+        if (newId == prices.length) {
+            int capacity = 2 * newId;
+            prices = Arrays.copyOf(prices, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            exchangeRates = Arrays.copyOf(exchangeRates, capacity);
+            sourceExchangeRates = Arrays.copyOf(sourceExchangeRates, capacity);
+            valid = Arrays.copyOf(valid, capacity);
+        }
+        prices[newId] = new double[sourceCapacity];
+        timestamps[newId] = new long[sourceCapacity];
+        exchangeRates[newId] = new ExchangeRate[sourceCapacity];
+        sourceExchangeRates[newId] = new ExchangeRate[sourceCapacity];
+        valid[newId] = new BitSet(sourceCapacity);
+        currencyIds.put(currencyCode, newId);
+        currencyCodes.add(currencyCode);
+        return newId;
+    }
+
+    int getSourceCount() {
+        return sourceCurrencies.size();
+    }
+
+    /**
+     * @param sourceName the name the provider's rate carries, see
+     *                   {@link ExchangeRate#getProvider()}
+     */
+    int getSourceId(int providerId, String sourceName) {
+        Map<String, Integer> providerSourceIds = sourceIds.get(providerId);
+        Integer sourceId = providerSourceIds.get(sourceName);
+        if (sourceId != null) {
+            return sourceId;
+        }
+        if (providerSourceIds.isEmpty()) {
+            addSource(providerId, sourceName, providerId);
+            return providerId;
+        }
+
+        int newId = sourceCurrencies.size();
+        if (newId == sourceCapacity) {
+            sourceCapacity *= 2;
+            for (int currencyId = 0; currencyId < currencyCodes.size(); currencyId++) {
+                prices[currencyId] = Arrays.copyOf(prices[currencyId], sourceCapacity);
+                timestamps[currencyId] = Arrays.copyOf(timestamps[currencyId], sourceCapacity);
+                exchangeRates[currencyId] = Arrays.copyOf(exchangeRates[currencyId], sourceCapacity);
+                sourceExchangeRates[currencyId] = Arrays.copyOf(sourceExchangeRates[currencyId], sourceCapacity);
+            }
+        }
+        sourceProviderIds = Arrays.copyOf(sourceProviderIds, newId + 1);
+        sourceProviderIds[newId] = providerId;
+        sourceCurrencies.add(new BitSet());
+        rowCurrencies.add(new BitSet());
+        addSource(providerId, sourceName, newId);
+        return newId;
+    }
+
+    private void addSource(int providerId, String sourceName, int sourceId) {
+        int[] sources = providerSources.get(providerId);
+        sources = Arrays.copyOf(sources, sources.length + 1);
+        sources[sources.length - 1] = sourceId;
+        providerSources.set(providerId, sources);
+        sourceIds.get(providerId).put(sourceName, sourceId);
+    }
+
+    int getProviderId(int sourceId) {
+        return sourceProviderIds[sourceId];
+    }
+
+    /**
+     * @return the ids of the provider's sources, in the order they were first seen
+     */
+    int[] getSourceIds(int providerId) {
+        return providerSources.get(providerId);
+    }
+
+    /**
+     * Starts replacing the row of the given provider, i.e. the rates of all its sources.
+     * Call {@link #put} for each of its rates, then {@link #endRow}. Only one row can be
+     * written at a time.
+     */
+    void beginRow(int providerId) {
+        rowProviderId = providerId;
+        for (int sourceId : providerSources.get(providerId)) {
+            rowCurrencies.get(sourceId).clear();
+        }
+    }
+
+    /**
+     * @param sourceId           a source of the provider whose row is being written
+     * @param sourceExchangeRate the rate as reported by the provider
+     * @param exchangeRate       the rate after transformation, if any, which is the one
+     *                           aggregated
+     * @param changed            receives the currency id if the source's rate for it is
+     *                           a different object than before
+     */
+    void put(int currencyId, int sourceId, ExchangeRate sourceExchangeRate, ExchangeRate exchangeRate,
+             BitSet changed) {
+        if (sourceProviderIds[sourceId] != rowProviderId) {
+            throw new IllegalStateException("Source " + sourceId + " is not part of row " + rowProviderId);
+        }
+        sourceExchangeRates[currencyId][sourceId] = sourceExchangeRate;
+        replace(currencyId, sourceId, exchangeRate, changed);
+        rowCurrencies.get(sourceId).set(currencyId);
+    }
+
+    /**
+     * Replaces the aggregated rate of a source which already has a rate for the
+     * currency, keeping its source rate, e.g. when the transformation changed.
+     */
+    void replace(int currencyId, int sourceId, ExchangeRate exchangeRate, BitSet changed) {
+        if (exchangeRates[currencyId][sourceId] != exchangeRate) {
+            prices[currencyId][sourceId] = exchangeRate.getPrice();
+            timestamps[currencyId][sourceId] = exchangeRate.getTimestamp();
+            exchangeRates[currencyId][sourceId] = exchangeRate;
+            valid[currencyId].set(sourceId);
+            changed.set(currencyId);
+        }
+    }
+
+    /**
+     * Clears the rates of the provider's sources for all currencies they had no
+     * {@link #put} for.
+     *
+     * @param changed receives the ids of those currencies
+     */
+    void endRow(BitSet changed) {
+        for (int sourceId : providerSources.get(rowProviderId)) {
+            BitSet written = rowCurrencies.get(sourceId);
+            BitSet previousCurrencies = sourceCurrencies.get(sourceId);
+            previousCurrencies.andNot(written);
+            for (int currencyId = previousCurrencies.nextSetBit(0);
+                 currencyId >= 0;
+                 currencyId = previousCurrencies.nextSetBit(currencyId + 1)) {
+                valid[currencyId].clear(sourceId);
+                exchangeRates[currencyId][sourceId] = null;
+                sourceExchangeRates[currencyId][sourceId] = null;
+                changed.set(currencyId);
+            }
+            previousCurrencies.clear();
+            previousCurrencies.or(written);
+        }
+        rowProviderId = -1;
+    }
+
+    /**
+     * Clears the source's rate for the currency, e.g. when it went stale.
+     *
+     * @param changed receives the currency id if the source had a rate for it
+     */
+    void remove(int currencyId, int sourceId, BitSet changed) {
+        if (!valid[currencyId].get(sourceId)) {
+            return;
+        }
+        valid[currencyId].clear(sourceId);
+        exchangeRates[currencyId][sourceId] = null;
+        sourceExchangeRates[currencyId][sourceId] = null;
+        sourceCurrencies.get(sourceId).clear(currencyId);
+        changed.set(currencyId);
+    }
+
+    /**
+     * @return the number of rates the provider currently has, over all its sources
+     */
+    int getRateCount(int providerId) {
+        int count = 0;
+        for (int sourceId : providerSources.get(providerId)) {
+            count += sourceCurrencies.get(sourceId).cardinality();
+        }
+        return count;
+    }
+
+    /**
+     * @return the id of the first currency the source has a rate for after (and
+     * including) {@code fromCurrencyId}, or -1
+     */
+    int nextCurrency(int sourceId, int fromCurrencyId) {
+        return sourceCurrencies.get(sourceId).nextSetBit(fromCurrencyId);
+    }
+
+    /**
+     * Copies the valid prices of a currency, in source order, to the start of
+     * {@code out}, which must hold at least {@link #getSourceCount()} elements.
+     *
+     * @return the number of prices copied
+     */
+    int gatherPrices(int currencyId, double[] out) {
+        double[] column = prices[currencyId];
+        BitSet columnValid = valid[currencyId];
+        int count = 0;
+        for (int sourceId = columnValid.nextSetBit(0);
+             sourceId >= 0;
+             sourceId = columnValid.nextSetBit(sourceId + 1)) {
+            out[count++] = column[sourceId];
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of rates for the currency, one per source
+     */
+    int getValidCount(int currencyId) {
+        return valid[currencyId].cardinality();
+    }
+
+    /**
+     * @return the id of the first source with a rate for the currency after (and
+     * including) {@code fromSourceId}, or -1
+     */
+    int nextValidSource(int currencyId, int fromSourceId) {
+        return valid[currencyId].nextSetBit(fromSourceId);
+    }
+
+    double getPrice(int currencyId, int sourceId) {
+        return prices[currencyId][sourceId];
+    }
+
+    long getTimestamp(int currencyId, int sourceId) {
+        return timestamps[currencyId][sourceId];
+    }
+
+    ExchangeRate getExchangeRate(int currencyId, int sourceId) {
+        return exchangeRates[currencyId][sourceId];
+    }
+
+    ExchangeRate getSourceExchangeRate(int currencyId, int sourceId) {
+        return sourceExchangeRates[currencyId][sourceId];
+    }
+
+    /**
+     * @return the id of the currency, or -1 if no rate for it was ever stored
+     */
+    int findCurrencyId(String currencyCode) {
+        Integer currencyId = currencyIds.get(currencyCode);
+        return currencyId == null ? -1 : currencyId;
+    }
+}
@@ -28,4 +28,13 @@ public interface ExchangeRateTransformer {
     Optional<ExchangeRate> apply(ExchangeRateProvider provider, ExchangeRate exchangeRate);
 
     String supportedCurrency();
+
+    /**
+     * @return a counter which changes whenever {@link #apply} may transform the same
+     * rate differently than before, e.g. because the data the transformation is based
+     * on was refreshed. Transformers that only depend on their input can keep the default.
+     */
+    default long getVersion() {
+        return 0;
+    }
 }
@@ -0,0 +1,119 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.spot;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Hashed timing wheel of {@code long} keys, each scheduled to expire at a deadline in
+ * epoch millis. The wheel is an array of slots, each covering one tick; an entry goes to
+ * the slot of its deadline's tick, modulo the number of slots. Scheduling is O(1), and
+ * {@link #advance} only visits the slots of the ticks that passed since its last call.
+ * Entries whose deadline is more than one turn of the wheel away simply stay in their
+ * slot until a later turn.
+ *
+ * <p>Entries cannot be cancelled. A consumer of expired keys checks whether what the key
+ * stands for is still due, and ignores it otherwise.</p>
+ *
+ * <p>Not thread-safe.</p>
+ */
+class ExpiryWheel {
+    private static final int INITIAL_SLOT_CAPACITY = 16;
+
+    private final long tickMillis;
+    private final int mask;
+    // [slot][entry]
+    private final long[][] keys;
+    private final long[][] deadlines;
+    private final int[] sizes;
+    // The first tick not completely expired yet
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param slots      the number of slots, a power of two
+     * @param tickMillis the time covered by one slot
+     * @param nowMillis  the current time
+     */
+    ExpiryWheel(int slots, long tickMillis, long nowMillis) {
+        if (Integer.bitCount(slots) != 1) {
+            throw new IllegalArgumentException("The number of slots must be a power of two, not " + slots);
+        }
+        this.tickMillis = tickMillis;
+        this.mask = slots - 1;
+        this.keys = new long[slots][INITIAL_SLOT_CAPACITY];
+        this.deadlines = new long[slots][INITIAL_SLOT_CAPACITY];
+        this.sizes = new int[slots];
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Schedules the key to expire at the given deadline. A deadline that passed already
+     * expires on the next {@link #advance}.
+     */
+    void schedule(long key, long deadlineMillis) {
+        long tick = Math.max(deadlineMillis / tickMillis, currentTick);
+        int slot = (int) (tick & mask);
+        int slotSize = sizes[slot];
+        if (slotSize == keys[slot].length) {
+            keys[slot] = Arrays.copyOf(keys[slot], 2 * slotSize);
+            deadlines[slot] = Arrays.copyOf(deadlines[slot], 2 * slotSize);
+        }
+        keys[slot][slotSize] = key;
+        deadlines[slot][slotSize] = deadlineMillis;
+        sizes[slot] = slotSize + 1;
+        size++;
+    }
+
+    /**
+     * Removes all entries due at {@code nowMillis} and passes their keys to
+     * {@code expired}, in no particular order. {@code expired} must not schedule.
+     */
+    void advance(long nowMillis, LongConsumer expired) {
+        long nowTick = nowMillis / tickMillis;
+        // A full turn visits every slot, there is no need to go round twice
+        long lastTick = Math.min(nowTick, currentTick + mask);
+        for (long tick = currentTick; tick <= lastTick; tick++) {
+            expireSlot((int) (tick & mask), nowMillis, expired);
+        }
+        // The current tick may still hold entries due later within it
+        currentTick = Math.max(currentTick, nowTick);
+    }
+
+    private void expireSlot(int slot, long nowMillis, LongConsumer expired) {
+        long[] slotKeys = keys[slot];
+        long[] slotDeadlines = deadlines[slot];
+        int kept = 0;
+        for (int i = 0; i < sizes[slot]; i++) {
+            if (slotDeadlines[i] <= nowMillis) {
+                expired.accept(slotKeys[i]);
+                size--;
+            } else {
+                slotKeys[kept] = slotKeys[i];
+                slotDeadlines[kept] = slotDeadlines[i];
+                kept++;
+            }
+        }
+        sizes[slot] = kept;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.spot;
+
+import bisq.price.common.util.InlierStatistics;
+
+/**
+ * The default strategy: the average of all prices within a number of standard deviations
+ * of the mean (property {@code bisq.price.outlierStdDeviation}).
+ */
+class InlierMeanAggregation implements AggregationStrategy {
+    static final String NAME = "inlier-mean";
+
+    private final double outlierStdDeviation;
+    private final InlierStatistics inlierStatistics;
+
+    InlierMeanAggregation(double outlierStdDeviation) {
+        this(outlierStdDeviation, false);
+    }
+
+    /**
+     * @param vectorized whether to run on the JDK Vector API if available, which may
+     *                   change the aggregate in the last few bits, see
+     *                   {@link InlierStatistics#vectorized()}
+     */
+    InlierMeanAggregation(double outlierStdDeviation, boolean vectorized) {
+        this.outlierStdDeviation = outlierStdDeviation;
+        this.inlierStatistics = vectorized ? InlierStatistics.vectorized() : new InlierStatistics();
+    }
+
+    @Override
+    public double aggregate(double[] prices, int count, double[] bounds) {
+        inlierStatistics.compute(prices, count, 0, outlierStdDeviation);
+        bounds[0] = inlierStatistics.getInlierMin();
+        bounds[1] = inlierStatistics.getInlierMax();
+        return inlierStatistics.getInlierMean();
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.spot;
+
+import bisq.price.common.util.QuickSelect;
+
+/**
+ * The median price. It ignores up to half of the prices being wrong, however far off
+ * they are. Prices further from the median than a multiple (property
+ * {@code bisq.price.aggregation.madThreshold}) of the scaled median absolute deviation
+ * are reported as outliers. Both medians are found by quickselect in linear time.
+ */
+class MedianAggregation implements AggregationStrategy {
+    static final String NAME = "median";
+
+    // Scales the MAD to the standard deviation for normally distributed prices
+    private static final double MAD_SCALE = 1.4826;
+
+    private final double madThreshold;
+    private double[] scratch = new double[0];
+
+    MedianAggregation(double madThreshold) {
+        this.madThreshold = madThreshold;
+    }
+
+    @Override
+    public double aggregate(double[] prices, int count, double[] bounds) {
+        if (scratch.length < count) {
+            scratch = new double[count];
+        }
+
+        System.arraycopy(prices, 0, scratch, 0, count);
+        double median = QuickSelect.median(scratch, count);
+
+        for (int i = 0; i < count; i++) {
+            scratch[i] = Math.abs(prices[i] - median);
+        }
+        double tolerance = madThreshold * MAD_SCALE * QuickSelect.median(scratch, count);
+
+        bounds[0] = median - tolerance;
+        bounds[1] = median + tolerance;
+        return median;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.spot;
+
+import bisq.price.common.util.InlierStatistics;
+
+/**
+ * The trimmed mean: prices are sorted, the given percentage of them is discarded at
+ * either end (property {@code bisq.price.aggregation.trimPercent}) and the rest is
+ * averaged. Note that nothing is trimmed unless the percentage covers at least half a
+ * price, e.g. 20% trims one price at either end from 3 to 7 prices.
+ */
+class TrimmedMeanAggregation implements AggregationStrategy {
+    static final String NAME = "trimmed-mean";
+
+    private final double percentToTrim;
+    private final InlierStatistics inlierStatistics;
+
+    TrimmedMeanAggregation(double percentToTrim) {
+        this(percentToTrim, false);
+    }
+
+    /**
+     * @param vectorized whether to run on the JDK Vector API if available, which may
+     *                   change the aggregate in the last few bits, see
+     *                   {@link InlierStatistics#vectorized()}
+     */
+    TrimmedMeanAggregation(double percentToTrim, boolean vectorized) {
+        this.percentToTrim = percentToTrim;
+        this.inlierStatistics = vectorized ? InlierStatistics.vectorized() : new InlierStatistics();
+    }
+
+    @Override
+    public double aggregate(double[] prices, int count, double[] bounds) {
+        // The standard deviation based outlier filter is not needed here, any value does
+        inlierStatistics.compute(prices, count, percentToTrim, 1);
+        bounds[0] = inlierStatistics.getTrimmedMin();
+        bounds[1] = inlierStatistics.getTrimmedMax();
+        return inlierStatistics.getMean();
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.spot.history;
+
+import bisq.price.PriceController;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+@RestController
+class CandleController extends PriceController {
+
+    // The currency code is written into the response as it is
+    private static final Pattern CURRENCY_CODE = Pattern.compile("[A-Z0-9]{1,16}");
+
+    private final Candles candles;
+
+    public CandleController(Candles candles) {
+        this.candles = candles;
+    }
+
+    /**
+     * @param resolution one of 1m, 5m, 1h and 1d
+     */
+    @GetMapping(path = "/getCandles/{currency}/{resolution}")
+    public ResponseEntity<byte[]> getCandles(@PathVariable("currency") String currency,
+                                             @PathVariable("resolution") String resolution) {
+        String currencyCode = currency.toUpperCase(Locale.ROOT);
+        if (!CURRENCY_CODE.matcher(currencyCode).matches()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid currency " + currency);
+        }
+        // The closed candles are encoded already, so hand over the bytes as they are
+        byte[] body = candles.getCandles(currencyCode, resolution)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "Unknown resolution " + resolution));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.spot.history;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * The resolutions candles are kept in, with how many closed candles of each are kept
+ * by default.
+ */
+enum CandleResolution {
+    ONE_MINUTE("1m", Duration.ofMinutes(1), 1440),
+    FIVE_MINUTES("5m", Duration.ofMinutes(5), 2016),
+    ONE_HOUR("1h", Duration.ofHours(1), 720),
+    ONE_DAY("1d", Duration.ofDays(1), 365);
+
+    private static final CandleResolution[] VALUES = values();
+
+    final String name;
+    final long millis;
+    final int defaultCapacity;
+
+    CandleResolution(String name, Duration duration, int defaultCapacity) {
+        this.name = name;
+        this.millis = duration.toMillis();
+        this.defaultCapacity = defaultCapacity;
+    }
+
+    static Optional<CandleResolution> forName(String name) {
+        for (CandleResolution resolution : VALUES) {
+            if (resolution.name.equals(name)) {
+                return Optional.of(resolution);
+            }
+        }
+        return Optional.empty();
+    }
+}
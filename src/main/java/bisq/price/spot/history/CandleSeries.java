@@ -0,0 +1,120 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.spot.history;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The OHLC candles of one currency in one {@link CandleResolution}. Each price updates
+ * the open candle in constant time. Once a price falls into a later interval, the open
+ * candle is closed: it is encoded to JSON once and kept in a ring of the latest closed
+ * candles, so serving them takes no more than copying bytes.
+ *
+ * <p>There must be a single writer. Readers take no locks: the count of closed candles
+ * and the open candle are published together, as one immutable {@link State}.</p>
+ */
+class CandleSeries {
+
+    /**
+     * @param start epoch millis of the start of the candle's interval
+     */
+    record Candle(long start, double open, double high, double low, double close) {
+
+        Candle update(double price) {
+            return new Candle(start, open, Math.max(high, price), Math.min(low, price), price);
+        }
+
+        byte[] encode() {
+            return ("{\"timestampSec\":" + start / 1000 +
+                    ",\"open\":" + open +
+                    ",\"high\":" + high +
+                    ",\"low\":" + low +
+                    ",\"close\":" + close + "}").getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    /**
+     * @param closedCount how many candles were closed so far
+     * @param open the candle following the closed ones, null before the first price
+     */
+    private record State(long closedCount, Candle open) {
+    }
+
+    private final long intervalMillis;
+    private final int capacity;
+    // One spare slot, which the writer fills while readers still see 'capacity' candles
+    private final byte[][] closed;
+    private volatile State state = new State(0, null);
+
+    CandleSeries(CandleResolution resolution, int capacity) {
+        this.intervalMillis = resolution.millis;
+        this.capacity = capacity;
+        this.closed = new byte[capacity + 1][];
+    }
+
+    void update(long time, double price) {
+        State current = state;
+        Candle candle = current.open();
+        long count = current.closedCount();
+        long start = time - Math.floorMod(time, intervalMillis);
+        if (candle == null || start > candle.start()) {
+            if (candle != null) {
+                // Readers see the slot only once the state counting it is published
+                closed[(int) (count % closed.length)] = candle.encode();
+                count++;
+            }
+            state = new State(count, new Candle(start, price, price, price, price));
+        } else {
+            // A time before the open candle's interval counts towards the open candle
+            state = new State(count, candle.update(price));
+        }
+    }
+
+    /**
+     * Writes the closed candles, oldest first, followed by the open one, as the
+     * elements of a JSON array (without brackets).
+     */
+    void writeTo(ByteArrayOutputStream out) {
+        // The open candle read is the one following the closed ones read
+        State current = state;
+        long end = current.closedCount();
+        Candle candle = current.open();
+        long start = Math.max(0, end - capacity);
+        byte[][] candles = new byte[(int) (end - start)][];
+        for (long i = start; i < end; i++) {
+            candles[(int) (i - start)] = closed[(int) (i % closed.length)];
+        }
+        // Skip the candles overwritten in the meantime, the one being written never is
+        long valid = Math.max(start, state.closedCount() - capacity);
+        boolean first = true;
+        for (long i = valid; i < end; i++) {
+            if (!first) {
+                out.write(',');
+            }
+            out.writeBytes(candles[(int) (i - start)]);
+            first = false;
+        }
+        if (candle != null) {
+            if (!first) {
+                out.write(',');
+            }
+            out.writeBytes(candle.encode());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.spot.history;
+
+import bisq.price.spot.AggregateExchangeRateListener;
+import bisq.price.spot.ExchangeRate;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maintains the OHLC candles of the aggregate price of every currency in every
+ * {@link CandleResolution}, updating them as aggregates are published.
+ */
+@Component
+public class Candles implements AggregateExchangeRateListener {
+    private static final CandleResolution[] RESOLUTIONS = CandleResolution.values();
+
+    private final Map<String, CandleSeries[]> series = new ConcurrentHashMap<>();
+    private final int[] capacities = new int[RESOLUTIONS.length];
+
+    public Candles(Environment env) {
+        for (CandleResolution resolution : RESOLUTIONS) {
+            Integer capacity = env.getProperty("bisq.price.candles.capacity." + resolution.name, Integer.class);
+            capacities[resolution.ordinal()] = Objects.requireNonNullElse(capacity, resolution.defaultCapacity);
+        }
+    }
+
+    @Override
+    public void onAggregate(long time, ExchangeRate aggregate, int providerCount) {
+        CandleSeries[] currencySeries = series.computeIfAbsent(aggregate.getCurrency(), c -> newSeries());
+        for (CandleSeries candleSeries : currencySeries) {
+            candleSeries.update(time, aggregate.getPrice());
+        }
+    }
+
+    /**
+     * @return the candles of the currency as a JSON document, oldest first, or empty if
+     * the resolution is unknown
+     */
+    Optional<byte[]> getCandles(String currencyCode, String resolutionName) {
+        return CandleResolution.forName(resolutionName).map(resolution -> {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            out.writeBytes(("{\"currencyCode\":\"" + currencyCode +
+                    "\",\"resolution\":\"" + resolution.name +
+                    "\",\"data\":[").getBytes(StandardCharsets.UTF_8));
+            CandleSeries[] currencySeries = series.get(currencyCode);
+            if (currencySeries != null) {
+                currencySeries[resolution.ordinal()].writeTo(out);
+            }
+            out.writeBytes("]}".getBytes(StandardCharsets.US_ASCII));
+            return out.toByteArray();
+        });
+    }
+
+    private CandleSeries[] newSeries() {
+        CandleSeries[] currencySeries = new CandleSeries[RESOLUTIONS.length];
+        for (CandleResolution resolution : RESOLUTIONS) {
+            currencySeries[resolution.ordinal()] = new CandleSeries(resolution, capacities[resolution.ordinal()]);
+        }
+        return currencySeries;
+    }
+}
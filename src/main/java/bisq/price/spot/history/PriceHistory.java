@@ -0,0 +1,210 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+package bisq.price.spot.history;
+
+import bisq.price.spot.AggregateExchangeRateListener;
+import bisq.price.spot.ExchangeRate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the history of the aggregate price of every currency in tiers of decreasing
+ * resolution, each in one {@link PriceHistoryBuffer} per currency. By default the raw
+ * tier keeps one point per minute for the last day, the hourly tier one per hour for
+ * 90 days and the daily tier one per day for 5 years. The hourly and daily tiers are
+ * kept in memory too, unless {@code bisq.price.history.dir} is set to an absolute path:
+ * then they are kept in memory-mapped files there, two per currency, so that they
+ * survive restarts.
+ *
+ * <p>Every aggregate is merged into the current point of every tier, so the tiers are
+ * rolled up as the aggregates come in, at a constant cost per aggregate. The retention
+ * of the hourly and daily tiers is set by {@code bisq.price.history.retention.1h} and
+ * {@code bisq.price.history.retention.1d}; a retention of 0 disables the tier.</p>
+ */
+@Slf4j
+@Component
+public class PriceHistory implements AggregateExchangeRateListener {
+    static final int DEFAULT_CAPACITY = 1440;
+    static final Duration DEFAULT_INTERVAL = Duration.ofMinutes(1);
+    static final Duration DEFAULT_HOURLY_RETENTION = Duration.ofDays(90);
+    static final Duration DEFAULT_DAILY_RETENTION = Duration.ofDays(5 * 365);
+    static final String FILE_SUFFIX = ".history";
+
+    // Currency codes are part of the file names
+    private static final Pattern FILE_NAME = Pattern.compile("([A-Z0-9]{1,16})-(\\w+)" + Pattern.quote(FILE_SUFFIX));
+    private static final Pattern CURRENCY_CODE = Pattern.compile("[A-Z0-9]{1,16}");
+
+    /**
+     * @param persistent whether the tier is kept in a file per currency
+     */
+    record Tier(String name, long intervalMillis, int capacity, boolean persistent) {
+        long retentionMillis() {
+            return intervalMillis * capacity;
+        }
+    }
+
+    /**
+     * @param resolutionMillis the interval of the tier the points are taken from
+     */
+    public record Series(long resolutionMillis, List<PricePoint> points) {
+    }
+
+    // Finest first
+    private final List<Tier> tiers = new ArrayList<>();
+    // Null if the persistent tiers are kept in memory only
+    private final Path directory;
+    private final Map<String, PriceHistoryBuffer[]> buffers = new ConcurrentHashMap<>();
+
+    public PriceHistory(Environment env) {
+        Integer capacity = env.getProperty("bisq.price.history.capacity", Integer.class);
+        Duration interval = env.getProperty("bisq.price.history.interval", Duration.class);
+        long intervalMillis = Objects.requireNonNullElse(interval, DEFAULT_INTERVAL).toMillis();
+        tiers.add(new Tier("raw", intervalMillis, Objects.requireNonNullElse(capacity, DEFAULT_CAPACITY), false));
+        addRollupTier(env, "1h", Duration.ofHours(1), DEFAULT_HOURLY_RETENTION);
+        addRollupTier(env, "1d", Duration.ofDays(1), DEFAULT_DAILY_RETENTION);
+
+        String configuredDirectory = env.getProperty("bisq.price.history.dir");
+        Path directory = null;
+        if (tiers.size() > 1 && configuredDirectory != null && !configuredDirectory.isBlank()) {
+            directory = Paths.get(configuredDirectory);
+            if (!directory.isAbsolute()) {
+                log.error("Price history needs an absolute bisq.price.history.dir, not '{}', keeping it in memory only",
+                        configuredDirectory);
+                directory = null;
+            } else {
+                try {
+                    Files.createDirectories(directory);
+                } catch (IOException e) {
+                    log.error("Could not open price history in {}, keeping it in memory only", directory, e);
+                    directory = null;
+                }
+            }
+        }
+        this.directory = directory;
+        openExistingBuffers();
+    }
+
+    private void addRollupTier(Environment env, String name, Duration interval, Duration defaultRetention) {
+        Duration retention = Objects.requireNonNullElse(
+                env.getProperty("bisq.price.history.retention." + name, Duration.class), defaultRetention);
+        long capacity = retention.toMillis() / interval.toMillis();
+        // Only coarser than the raw tier
+        if (capacity > 0 && interval.toMillis() > tiers.get(0).intervalMillis()) {
+            tiers.add(new Tier(name, interval.toMillis(), (int) Math.min(capacity, 1_000_000), true));
+        }
+    }
+
+    // So that the history is served before the first aggregate of a currency
+    private void openExistingBuffers() {
+        if (directory == null) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(path -> {
+                Matcher matcher = FILE_NAME.matcher(path.getFileName().toString());
+                if (matcher.matches() && tiers.stream().anyMatch(tier -> tier.name().equals(matcher.group(2)))) {
+                    buffers.computeIfAbsent(matcher.group(1), this::openBuffers);
+                }
+            });
+        } catch (IOException e) {
+            log.error("Could not list price history files in {}", directory.toAbsolutePath(), e);
+        }
+    }
+
+    private PriceHistoryBuffer[] openBuffers(String currencyCode) {
+        PriceHistoryBuffer[] currencyBuffers = new PriceHistoryBuffer[tiers.size()];
+        for (int i = 0; i < currencyBuffers.length; i++) {
+            Tier tier = tiers.get(i);
+            if (tier.persistent() && directory != null && CURRENCY_CODE.matcher(currencyCode).matches()) {
+                Path path = directory.resolve(currencyCode + "-" + tier.name() + FILE_SUFFIX);
+                try {
+                    currencyBuffers[i] = PriceHistoryBuffer.open(path, tier.capacity(), tier.intervalMillis());
+                    continue;
+                } catch (IOException | RuntimeException e) {
+                    log.error("Could not open price history {}, keeping it in memory only", path, e);
+                }
+            }
+            currencyBuffers[i] = new PriceHistoryBuffer(tier.capacity(), tier.intervalMillis());
+        }
+        return currencyBuffers;
+    }
+
+    List<Tier> getTiers() {
+        return tiers;
+    }
+
+    @Override
+    public void onAggregate(long time, ExchangeRate aggregate, int providerCount) {
+        PriceHistoryBuffer[] currencyBuffers = buffers.computeIfAbsent(aggregate.getCurrency(), this::openBuffers);
+        currencyBuffers[0].append(time, aggregate.getPrice(), providerCount);
+        for (int i = 1; i < currencyBuffers.length; i++) {
+            // The rollups survive restarts, so skip the aggregates replayed from before
+            if (time > currencyBuffers[i].getLastTimestamp()) {
+                currencyBuffers[i].append(time, aggregate.getPrice(), providerCount);
+            }
+        }
+    }
+
+    /**
+     * Takes the points from the coarsest tier that is at least as fine as the requested
+     * resolution or, without one, from the finest tier that still reaches back to
+     * {@code from}, or the coarsest if none does.
+     *
+     * @param from             epoch millis, inclusive
+     * @param to               epoch millis, inclusive
+     * @param resolutionMillis the requested interval between points, or 0 for any
+     * @return the recorded points of the currency between {@code from} and {@code to},
+     * oldest first
+     */
+    public Series get(String currencyCode, long from, long to, long resolutionMillis) {
+        int tierIndex = tierIndex(from, resolutionMillis, System.currentTimeMillis());
+        PriceHistoryBuffer[] currencyBuffers = buffers.get(currencyCode);
+        List<PricePoint> points = currencyBuffers == null ? List.of() : currencyBuffers[tierIndex].get(from, to);
+        return new Series(tiers.get(tierIndex).intervalMillis(), points);
+    }
+
+    int tierIndex(long from, long resolutionMillis, long now) {
+        if (resolutionMillis > 0) {
+            int index = 0;
+            while (index + 1 < tiers.size() && tiers.get(index + 1).intervalMillis() <= resolutionMillis) {
+                index++;
+            }
+            return index;
+        }
+        for (int index = 0; index < tiers.size(); index++) {
+            if (from >= now - tiers.get(index).retentionMillis()) {
+                return index;
+            }
+        }
+        return tiers.size() - 1;
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+package bisq.price.spot.history;
+
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed-capacity ring buffer of the price history of one currency, held off-heap in a
+ * direct {@link ByteBuffer} or in a memory-mapped file. Each slot summarizes the prices
+ * of one interval: their minimum, maximum, mean and last value, the provider count of
+ * the last one and how many there were. Once full, every new interval overwrites the
+ * oldest one, so memory use is bounded and, as no objects are allocated per point,
+ * appending causes no GC work.
+ *
+ * <p>A price within the interval of the latest point is merged into it, so the latest
+ * point always carries the latest price. Timestamps never decrease, which lets readers
+ * binary search by time.</p>
+ *
+ * <p>There must be a single writer. Readers never block it; they validate what they
+ * read against a sequence counter the writer bumps around every write (a seqlock), and
+ * read again if a write interfered.</p>
+ */
+class PriceHistoryBuffer {
+    private static final int MAGIC = 0x42514831; // "BQH1"
+    private static final int MAGIC_OFFSET = 0;
+    private static final int CAPACITY_OFFSET = 4;
+    private static final int INTERVAL_OFFSET = 8;
+    private static final int COUNT_OFFSET = 16;
+    static final int HEADER_SIZE = 32;
+
+    private static final int TIMESTAMP_OFFSET = 0;
+    private static final int MIN_OFFSET = 8;
+    private static final int MAX_OFFSET = 16;
+    private static final int MEAN_OFFSET = 24;
+    private static final int LAST_OFFSET = 32;
+    private static final int PROVIDER_COUNT_OFFSET = 40;
+    private static final int SAMPLES_OFFSET = 44;
+    static final int SLOT_SIZE = 48;
+
+    private final ByteBuffer slots;
+    private final int capacity;
+    private final long intervalMillis;
+
+    // Odd while a write is in progress
+    private volatile long sequence;
+    // The number of points ever appended, only changed by the writer within a write
+    private long count;
+
+    PriceHistoryBuffer(int capacity, long intervalMillis) {
+        this(ByteBuffer.allocateDirect(size(capacity)), capacity, intervalMillis);
+        slots.putInt(MAGIC_OFFSET, MAGIC);
+        slots.putInt(CAPACITY_OFFSET, capacity);
+        slots.putLong(INTERVAL_OFFSET, intervalMillis);
+    }
+
+    private PriceHistoryBuffer(ByteBuffer slots, int capacity, long intervalMillis) {
+        if (capacity <= 0 || intervalMillis <= 0) {
+            throw new IllegalArgumentException("Capacity and interval must be positive");
+        }
+        this.slots = slots;
+        this.capacity = capacity;
+        this.intervalMillis = intervalMillis;
+        this.count = slots.getLong(COUNT_OFFSET);
+    }
+
+    /**
+     * Maps the buffer kept in the file, so that it survives restarts. A new file is
+     * created if there is none. The points of a file written with another capacity or
+     * interval are carried over, as far as they fit.
+     *
+     * @throws IOException if the file cannot be mapped or is not a price history file
+     */
+    static PriceHistoryBuffer open(Path path, int capacity, long intervalMillis) throws IOException {
+        if (!Files.exists(path)) {
+            return create(path, capacity, intervalMillis);
+        }
+        PriceHistoryBuffer existing = map(path);
+        if (existing.capacity == capacity && existing.intervalMillis == intervalMillis) {
+            return existing;
+        }
+        Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.deleteIfExists(temporaryPath);
+        PriceHistoryBuffer resized = create(temporaryPath, capacity, intervalMillis);
+        existing.copyTo(resized);
+        Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING);
+        return resized;
+    }
+
+    private static PriceHistoryBuffer create(Path path, int capacity, long intervalMillis) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer slots = channel.map(FileChannel.MapMode.READ_WRITE, 0, size(capacity));
+            slots.putInt(CAPACITY_OFFSET, capacity);
+            slots.putLong(INTERVAL_OFFSET, intervalMillis);
+            // Written last, so a partly written header is not taken for a valid one
+            slots.putInt(MAGIC_OFFSET, MAGIC);
+            return new PriceHistoryBuffer(slots, capacity, intervalMillis);
+        }
+    }
+
+    private static PriceHistoryBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("Not a price history file: " + path);
+            }
+            ByteBuffer slots = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            int capacity = slots.getInt(CAPACITY_OFFSET);
+            long intervalMillis = slots.getLong(INTERVAL_OFFSET);
+            if (slots.getInt(MAGIC_OFFSET) != MAGIC || capacity <= 0 || intervalMillis <= 0
+                    || size != size(capacity) || slots.getLong(COUNT_OFFSET) < 0) {
+                throw new IOException("Not a price history file: " + path);
+            }
+            return new PriceHistoryBuffer(slots, capacity, intervalMillis);
+        }
+    }
+
+    private static int size(int capacity) {
+        return Math.addExact(HEADER_SIZE, Math.multiplyExact(capacity, SLOT_SIZE));
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    /**
+     * @return the timestamp of the latest point, or {@link Long#MIN_VALUE} if there is
+     * none. Only for the writer.
+     */
+    long getLastTimestamp() {
+        return count == 0 ? Long.MIN_VALUE : slots.getLong(offset(count - 1) + TIMESTAMP_OFFSET);
+    }
+
+    /**
+     * Appends a point, or merges the price into the latest one if it is within the same
+     * interval. A timestamp before the latest one is taken as the latest one.
+     */
+    void append(long timestamp, double price, int providerCount) {
+        append(timestamp, price, price, price, price, providerCount, 1);
+    }
+
+    private void append(long timestamp, double min, double max, double mean, double last,
+                        int providerCount, int samples) {
+        long index = count;
+        long lastTimestamp = getLastTimestamp();
+        timestamp = Math.max(timestamp, lastTimestamp);
+        if (count > 0 && timestamp / intervalMillis == lastTimestamp / intervalMillis) {
+            index = count - 1;
+            int offset = offset(index);
+            int mergedSamples = slots.getInt(offset + SAMPLES_OFFSET);
+            double mergedMean = slots.getDouble(offset + MEAN_OFFSET);
+            long totalSamples = (long) mergedSamples + samples;
+            min = Math.min(min, slots.getDouble(offset + MIN_OFFSET));
+            max = Math.max(max, slots.getDouble(offset + MAX_OFFSET));
+            mean = mergedMean + (mean - mergedMean) * samples / totalSamples;
+            samples = (int) Math.min(totalSamples, Integer.MAX_VALUE);
+        }
+
+        long s = sequence;
+        sequence = s + 1;
+        VarHandle.storeStoreFence();
+        int offset = offset(index);
+        slots.putLong(offset + TIMESTAMP_OFFSET, timestamp);
+        slots.putDouble(offset + MIN_OFFSET, min);
+        slots.putDouble(offset + MAX_OFFSET, max);
+        slots.putDouble(offset + MEAN_OFFSET, mean);
+        slots.putDouble(offset + LAST_OFFSET, last);
+        slots.putInt(offset + PROVIDER_COUNT_OFFSET, providerCount);
+        slots.putInt(offset + SAMPLES_OFFSET, samples);
+        count = index + 1;
+        slots.putLong(COUNT_OFFSET, count);
+        sequence = s + 2;
+    }
+
+    /**
+     * Appends all points to the other buffer, merging them into its intervals. Only for
+     * the writer of both.
+     */
+    void copyTo(PriceHistoryBuffer target) {
+        for (long i = Math.max(0, count - capacity); i < count; i++) {
+            int offset = offset(i);
+            target.append(slots.getLong(offset + TIMESTAMP_OFFSET),
+                    slots.getDouble(offset + MIN_OFFSET),
+                    slots.getDouble(offset + MAX_OFFSET),
+                    slots.getDouble(offset + MEAN_OFFSET),
+                    slots.getDouble(offset + LAST_OFFSET),
+                    slots.getInt(offset + PROVIDER_COUNT_OFFSET),
+                    slots.getInt(offset + SAMPLES_OFFSET));
+        }
+    }
+
+    /**
+     * @return the points with {@code from <= timestamp <= to}, oldest first
+     */
+    List<PricePoint> get(long from, long to) {
+        List<PricePoint> points = new ArrayList<>();
+        while (true) {
+            long s = sequence;
+            if ((s & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            points.clear();
+            long end = count;
+            long start = Math.max(0, end - capacity);
+            for (long i = lowerBound(start, end, from); i < end; i++) {
+                int offset = offset(i);
+                long timestamp = slots.getLong(offset + TIMESTAMP_OFFSET);
+                if (timestamp > to) {
+                    break;
+                }
+                points.add(new PricePoint(timestamp,
+                        slots.getDouble(offset + LAST_OFFSET),
+                        slots.getDouble(offset + MIN_OFFSET),
+                        slots.getDouble(offset + MAX_OFFSET),
+                        slots.getDouble(offset + MEAN_OFFSET),
+                        slots.getInt(offset + PROVIDER_COUNT_OFFSET)));
+            }
+            // Keep the reads above from moving past the validation
+            VarHandle.acquireFence();
+            if (sequence == s) {
+                return points;
+            }
+        }
+    }
+
+    // The index of the first point in [start, end) at or after the timestamp, or end
+    private long lowerBound(long start, long end, long timestamp) {
+        long low = start, high = end;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (slots.getLong(offset(mid) + TIMESTAMP_OFFSET) < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int offset(long index) {
+        return HEADER_SIZE + (int) (index % capacity) * SLOT_SIZE;
+    }
+}
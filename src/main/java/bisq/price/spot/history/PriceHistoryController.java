@@ -0,0 +1,77 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.spot.history;
+
+import bisq.price.PriceController;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+@RestController
+class PriceHistoryController extends PriceController {
+
+    private static final long DEFAULT_RANGE_SEC = Duration.ofDays(1).toSeconds();
+    private static final long MAX_EPOCH_SEC = Long.MAX_VALUE / 1000 - 1;
+
+    private final PriceHistory priceHistory;
+
+    public PriceHistoryController(PriceHistory priceHistory) {
+        this.priceHistory = priceHistory;
+    }
+
+    /**
+     * @param from epoch seconds, inclusive, by default a day before {@code to}
+     * @param to   epoch seconds, inclusive, by default now
+     * @param resolution the interval between points that is needed, e.g. 1h; by default
+     *                   the finest that reaches back to {@code from}
+     */
+    @GetMapping(path = "/getPriceHistory/{currency}")
+    public Map<String, Object> getPriceHistory(@PathVariable("currency") String currency,
+                                               @RequestParam(name = "from", required = false) Long from,
+                                               @RequestParam(name = "to", required = false) Long to,
+                                               @RequestParam(name = "resolution", required = false) String resolution) {
+        String currencyCode = currency.toUpperCase(Locale.ROOT);
+        long toSec = Math.min(to != null ? to : System.currentTimeMillis() / 1000, MAX_EPOCH_SEC);
+        long fromSec = Math.max(from != null ? from : toSec - DEFAULT_RANGE_SEC, 0);
+        long resolutionMillis = 0;
+        if (resolution != null) {
+            try {
+                resolutionMillis = DurationStyle.detectAndParse(resolution).toMillis();
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid resolution " + resolution);
+            }
+        }
+
+        Map<String, Object> retVal = new LinkedHashMap<>();
+        // Include the whole last second
+        PriceHistory.Series series = priceHistory.get(currencyCode, fromSec * 1000, toSec * 1000 + 999, resolutionMillis);
+        retVal.put("currencyCode", currencyCode);
+        retVal.put("resolutionSec", series.resolutionMillis() / 1000);
+        retVal.put("data", series.points());
+        return retVal;
+    }
+}
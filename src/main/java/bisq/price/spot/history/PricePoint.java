@@ -0,0 +1,50 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+package bisq.price.spot.history;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The aggregate price of a currency over an interval of its history.
+ *
+ * @param timestamp     epoch millis of the last price within the interval
+ * @param price         the last aggregate price within the interval
+ * @param min           the lowest aggregate price within the interval
+ * @param max           the highest aggregate price within the interval
+ * @param mean          the mean of the aggregate prices within the interval
+ * @param providerCount the number of providers the last price is based on
+ */
+public record PricePoint(@JsonIgnore long timestamp,
+                         @JsonProperty(value = "price", index = 2) double price,
+                         @JsonProperty(value = "min", index = 4) double min,
+                         @JsonProperty(value = "max", index = 5) double max,
+                         @JsonProperty(value = "mean", index = 6) double mean,
+                         @JsonProperty(value = "providerCount", index = 3) int providerCount) {
+
+    /**
+     * A point of a single price.
+     */
+    public PricePoint(long timestamp, double price, int providerCount) {
+        this(timestamp, price, price, price, price, providerCount);
+    }
+
+    @JsonProperty(value = "timestampSec", index = 1)
+    public long getTimestampSec() {
+        return timestamp / 1000;
+    }
+}
@@ -15,33 +15,25 @@
  * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
  */
 
-package bisq.price.util.yadio;
+package bisq.price.spot.history;
 
-import lombok.Getter;
-import lombok.Setter;
+import bisq.price.PriceController;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
 
-import java.time.Instant;
 import java.util.Map;
 
-@Getter
-@Setter
-public class YadioTicker {
-    // in USD
-    private double BTC;
+@RestController
+class SmoothedPriceController extends PriceController {
 
-    // prices of other currencies currencies in USD
-    private Map<String, Double> USD;
+    private final SmoothedPrices smoothedPrices;
 
-    // currency used as base for each price in the USD map
-    private String base;
-
-    // timestamp on last rates update
-    private long timestamp;
+    public SmoothedPriceController(SmoothedPrices smoothedPrices) {
+        this.smoothedPrices = smoothedPrices;
+    }
 
-    /**
-     * @return true if not too old and prices are based in USD, false otherwise
-     */
-    public boolean isValid(Instant yesterdayInstant) {
-        return base.equals("USD") && timestamp > yesterdayInstant.toEpochMilli();
+    @GetMapping(path = "/getSmoothedPrices")
+    public Map<String, Object> getSmoothedPrices() {
+        return Map.of("data", smoothedPrices.getSmoothedPrices());
     }
 }
@@ -0,0 +1,133 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.spot.history;
+
+import java.util.Arrays;
+
+/**
+ * The time-weighted average (TWAP) and exponential moving average (EMA) of the
+ * aggregate price of one currency over a fixed set of windows, both updated with every
+ * price in constant time and memory.
+ *
+ * <p>The price is taken to hold from one update until the next. The TWAP is the average
+ * of that step function over the window, kept in {@value #BUCKETS} buckets per window,
+ * so the window moves in steps of 1/{@value #BUCKETS} of its length. The EMA weighs each
+ * price by how recently it held, decaying with the window length as time constant, so it
+ * needs no buckets at all.</p>
+ *
+ * <p>There must be a single writer. Readers get the values of the latest update from
+ * {@link #getValues()}.</p>
+ */
+class SmoothedPriceSeries {
+    static final int BUCKETS = 60;
+
+    /**
+     * @param time  epoch millis of the update
+     * @param twaps the TWAP per window, in the order of the windows
+     * @param emas  the EMA per window, in the order of the windows
+     */
+    record Values(long time, double[] twaps, double[] emas) {
+    }
+
+    private final long[] windowMillis;
+    private final long[] bucketMillis;
+    // Per window and bucket: the integral of the price over time, the time covered
+    // and the index of the bucket since the epoch, to tell outdated buckets
+    private final double[][] integrals;
+    private final long[][] durations;
+    private final long[][] bucketIndices;
+    private final double[] emas;
+
+    private long lastTime = Long.MIN_VALUE;
+    private double lastPrice;
+    private volatile Values values;
+
+    SmoothedPriceSeries(long[] windowMillis) {
+        this.windowMillis = windowMillis;
+        this.bucketMillis = new long[windowMillis.length];
+        this.integrals = new double[windowMillis.length][BUCKETS];
+        this.durations = new long[windowMillis.length][BUCKETS];
+        this.bucketIndices = new long[windowMillis.length][BUCKETS];
+        this.emas = new double[windowMillis.length];
+        for (int w = 0; w < windowMillis.length; w++) {
+            bucketMillis[w] = Math.max(1, windowMillis[w] / BUCKETS);
+            Arrays.fill(bucketIndices[w], -1);
+        }
+    }
+
+    /**
+     * @return the values as of the latest update, or null before the first one
+     */
+    Values getValues() {
+        return values;
+    }
+
+    void update(long time, double price) {
+        if (lastTime == Long.MIN_VALUE) {
+            Arrays.fill(emas, price);
+            lastTime = time;
+        }
+        // A time before the latest one counts as the latest one
+        time = Math.max(time, lastTime);
+        double[] twaps = new double[windowMillis.length];
+        for (int w = 0; w < windowMillis.length; w++) {
+            accumulate(w, lastTime, time, lastPrice);
+            double decay = Math.exp(-(double) (time - lastTime) / windowMillis[w]);
+            emas[w] = lastPrice + decay * (emas[w] - lastPrice);
+            twaps[w] = twap(w, time, price);
+        }
+        lastTime = time;
+        lastPrice = price;
+        values = new Values(time, twaps, emas.clone());
+    }
+
+    // Adds the price held over [from, to) to the buckets of the window, at most the
+    // latest BUCKETS of them
+    private void accumulate(int w, long from, long to, double price) {
+        long size = bucketMillis[w];
+        from = Math.max(from, to - size * BUCKETS);
+        while (from < to) {
+            long bucketIndex = Math.floorDiv(from, size);
+            long end = Math.min(to, (bucketIndex + 1) * size);
+            int slot = (int) Math.floorMod(bucketIndex, BUCKETS);
+            if (bucketIndices[w][slot] != bucketIndex) {
+                bucketIndices[w][slot] = bucketIndex;
+                integrals[w][slot] = 0;
+                durations[w][slot] = 0;
+            }
+            integrals[w][slot] += price * (end - from);
+            durations[w][slot] += end - from;
+            from = end;
+        }
+    }
+
+    private double twap(int w, long time, double price) {
+        // The buckets covering [time - window, time), exactly when time is on a bucket boundary
+        long oldestBucketIndex = Math.floorDiv(time - 1, bucketMillis[w]) - BUCKETS + 1;
+        double integral = 0;
+        long duration = 0;
+        for (int slot = 0; slot < BUCKETS; slot++) {
+            if (bucketIndices[w][slot] >= oldestBucketIndex) {
+                integral += integrals[w][slot];
+                duration += durations[w][slot];
+            }
+        }
+        // Before any time passed, the average is the price itself
+        return duration == 0 ? price : integral / duration;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.spot.history;
+
+import bisq.price.spot.AggregateExchangeRateListener;
+import bisq.price.spot.ExchangeRate;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Keeps the TWAP and EMA of the aggregate price of every currency over the windows
+ * configured by {@code bisq.price.smoothing.windows}, see {@link SmoothedPriceSeries}.
+ */
+@Component
+public class SmoothedPrices implements AggregateExchangeRateListener {
+    static final String[] DEFAULT_WINDOWS = {"5m", "1h", "24h"};
+
+    private final SortedMap<String, SmoothedPriceSeries> series = new ConcurrentSkipListMap<>();
+    private final String[] windowNames;
+    private final long[] windowMillis;
+
+    public SmoothedPrices(Environment env) {
+        String[] windows = env.getProperty("bisq.price.smoothing.windows", String[].class);
+        this.windowNames = Objects.requireNonNullElse(windows, DEFAULT_WINDOWS).clone();
+        this.windowMillis = new long[windowNames.length];
+        for (int i = 0; i < windowNames.length; i++) {
+            windowNames[i] = windowNames[i].trim();
+            windowMillis[i] = DurationStyle.detectAndParse(windowNames[i]).toMillis();
+        }
+    }
+
+    @Override
+    public void onAggregate(long time, ExchangeRate aggregate, int providerCount) {
+        series.computeIfAbsent(aggregate.getCurrency(), c -> new SmoothedPriceSeries(windowMillis))
+                .update(time, aggregate.getPrice());
+    }
+
+    /**
+     * @return per currency, sorted by currency code, the TWAP and EMA by window name
+     */
+    public List<Map<String, Object>> getSmoothedPrices() {
+        List<Map<String, Object>> result = new ArrayList<>(series.size());
+        series.forEach((currencyCode, currencySeries) -> {
+            SmoothedPriceSeries.Values values = currencySeries.getValues();
+            if (values == null) {
+                // Not updated yet
+                return;
+            }
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("currencyCode", currencyCode);
+            entry.put("timestampSec", values.time() / 1000);
+            entry.put("twap", byWindow(values.twaps()));
+            entry.put("ema", byWindow(values.emas()));
+            result.add(entry);
+        });
+        return result;
+    }
+
+    private Map<String, Double> byWindow(double[] windowValues) {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (int i = 0; i < windowNames.length; i++) {
+            result.put(windowNames[i], windowValues[i]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.spot.journal;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads what a {@link BitWriter} wrote from a buffer, without changing its position.
+ */
+class BitReader {
+    private final ByteBuffer buffer;
+    private long bitIndex;
+
+    BitReader(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.bitIndex = (long) offset << 3;
+    }
+
+    long read(int bits) {
+        long value = 0;
+        while (bits > 0) {
+            int offset = (int) (bitIndex & 7);
+            int n = Math.min(8 - offset, bits);
+            int b = buffer.get((int) (bitIndex >>> 3)) & 0xFF;
+            value = value << n | (b >>> (8 - offset - n)) & ((1 << n) - 1);
+            bits -= n;
+            bitIndex += n;
+        }
+        return value;
+    }
+
+    boolean readBit() {
+        return read(1) != 0;
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.spot.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.SoftReference;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link JournalSegment} with its dictionary, to look up records by currency code and
+ * provider name. The dictionary of the segment being written is filled by the writer as
+ * it writes dictionary records, the one of a segment written before this start is read
+ * on first use.
+ *
+ * <p>Once compressed, the segment is decoded when first needed and kept as long as
+ * there is memory to spare.</p>
+ */
+class IndexedSegment {
+    private final long startTime;
+    private final Map<String, Integer> currencyIds = new ConcurrentHashMap<>();
+    private final Map<Integer, String> currencyCodes = new ConcurrentHashMap<>();
+    private final Map<Integer, String> providerNames = new ConcurrentHashMap<>();
+    private volatile boolean dictionaryLoaded;
+
+    // Exactly one of the segment and the compressed file is set
+    private volatile JournalSegment segment;
+    private Path compressedPath;
+    private long endTime;
+    private SoftReference<JournalSegment> decoded = new SoftReference<>(null);
+
+    IndexedSegment(JournalSegment segment, boolean written) {
+        this.segment = segment;
+        this.startTime = segment.getTime(0);
+        this.dictionaryLoaded = written;
+    }
+
+    private IndexedSegment(Path compressedPath, SegmentCompressor.Header header) {
+        this.compressedPath = compressedPath;
+        this.startTime = header.startTime();
+        this.endTime = header.endTime();
+    }
+
+    static IndexedSegment compressed(Path path) throws IOException {
+        return new IndexedSegment(path, SegmentCompressor.readHeader(path, SegmentCompressor.map(path)));
+    }
+
+    /**
+     * @return the segment, decoded first if it is compressed
+     * @throws UncheckedIOException if it could not be decoded
+     */
+    JournalSegment getSegment() {
+        JournalSegment current = segment;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            current = decoded.get();
+            if (current == null) {
+                try {
+                    current = SegmentCompressor.decompress(compressedPath, SegmentCompressor.map(compressedPath));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                decoded = new SoftReference<>(current);
+            }
+            return current;
+        }
+    }
+
+    /**
+     * @return the file the segment is kept in, the compressed one once it is compressed
+     */
+    synchronized Path getPath() {
+        JournalSegment current = segment;
+        return current != null ? current.getPath() : compressedPath;
+    }
+
+    boolean isCompressed() {
+        return segment == null;
+    }
+
+    /**
+     * Drops the segment for its compressed file, which must hold the same records.
+     */
+    synchronized void setCompressed(Path path) {
+        JournalSegment current = segment;
+        endTime = current.getTime(current.getPublished() - 1);
+        compressedPath = path;
+        // Not kept as the decoded segment, the mapping would keep the deleted file's disk space
+        segment = null;
+    }
+
+    /**
+     * @return the time of the segment's header, no record in it is older
+     */
+    long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * @return the time of the latest published record
+     */
+    long getEndTime() {
+        JournalSegment current = segment;
+        if (current != null) {
+            return current.getTime(current.getPublished() - 1);
+        }
+        synchronized (this) {
+            return endTime;
+        }
+    }
+
+    /**
+     * @return the id of the currency in this segment, or -1 if it has no records of it
+     */
+    int getCurrencyId(String currencyCode) {
+        loadDictionary();
+        return currencyIds.getOrDefault(currencyCode, -1);
+    }
+
+    String getCurrencyCode(int currencyId) {
+        loadDictionary();
+        return currencyCodes.get(currencyId);
+    }
+
+    String getProviderName(int providerId) {
+        loadDictionary();
+        return providerNames.get(providerId);
+    }
+
+    // Called by the writer before the records using the ids are published
+    void putCurrency(int currencyId, String currencyCode) {
+        currencyIds.put(currencyCode, currencyId);
+        currencyCodes.put(currencyId, currencyCode);
+    }
+
+    void putProvider(int providerId, String providerName) {
+        providerNames.put(providerId, providerName);
+    }
+
+    private void loadDictionary() {
+        if (dictionaryLoaded) {
+            return;
+        }
+        synchronized (this) {
+            if (dictionaryLoaded) {
+                return;
+            }
+            JournalSegment current = getSegment();
+            for (int index = 0, count = current.getPublished(); index < count; index++) {
+                switch (current.getType(index)) {
+                    case JournalSegment.CURRENCY -> putCurrency(current.getId(index), current.getName(index));
+                    case JournalSegment.PROVIDER -> putProvider(current.getId(index), current.getName(index));
+                    default -> {
+                        // Not a dictionary record
+                    }
+                }
+            }
+            dictionaryLoaded = true;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+package bisq.price.spot.journal;
+
+import bisq.price.spot.ExchangeRate;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+/**
+ * A provider rate or an aggregate as it was journaled.
+ *
+ * @param time          when it was journaled, in epoch millis
+ * @param aggregate     whether it is an aggregate rather than a provider rate
+ * @param exchangeRate  the rate
+ * @param providerCount the number of providers an aggregate is based on, 0 for a
+ *                      provider rate
+ */
+public record JournalRecord(@JsonProperty(value = "time", index = 1) long time,
+                            @JsonIgnore boolean aggregate,
+                            @JsonUnwrapped ExchangeRate exchangeRate,
+                            @JsonProperty(value = "providerCount", index = 3) int providerCount) {
+
+    @JsonProperty(value = "type", index = 2)
+    public String getType() {
+        return aggregate ? "aggregate" : "rate";
+    }
+}
@@ -0,0 +1,307 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.spot.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One file of the {@link PriceJournal}, memory-mapped as a whole. The file is a
+ * sequence of fixed-size records of {@value #RECORD_SIZE} bytes:
+ *
+ * <pre>
+ * offset  0  byte    type
+ *         1  byte    name length (dictionary records) or provider count (aggregates)
+ *         2  short   provider id (rates, aggregates, contributions)
+ *         4  int     currency id (rates, aggregates, contributions), dictionary id or
+ *                    format version
+ *         8  long    time the record was written, epoch millis, never decreasing
+ *        16  long    timestamp of the rate, or the first 16 bytes of a name
+ *        24  double  price, or the next 8 bytes of a name
+ * </pre>
+ *
+ * Currency codes and provider names are written once per segment in dictionary records
+ * before their ids are first used, so every segment can be read on its own. A name
+ * longer than 16 bytes continues in further records of type {@link #NAME_CONTINUATION}.
+ * Unwritten records are all zero, so the first record of type {@link #END} ends the
+ * segment.
+ *
+ * <p>An aggregate is followed by one {@link #CONTRIBUTION} for every rate it is based on,
+ * in the same segment, with the dictionary records of their names in between. The
+ * provider of a contribution is the name the rate carries, so the several rates some
+ * providers report for a currency are told apart.</p>
+ *
+ * <p>A sealed segment may be compressed, see {@link SegmentCompressor}, and is then
+ * decoded into a segment on the heap when needed.</p>
+ */
+class JournalSegment {
+    static final int RECORD_SIZE = 32;
+    static final int FORMAT_VERSION = 1;
+    static final long MAGIC = 0x4269737150726963L; // "BisqPric"
+
+    static final byte END = 0;
+    static final byte HEADER = 1;
+    static final byte CURRENCY = 2;
+    static final byte PROVIDER = 3;
+    static final byte NAME_CONTINUATION = 4;
+    static final byte RATE = 5;
+    static final byte AGGREGATE = 6;
+    static final byte CONTRIBUTION = 7;
+
+    private static final int TYPE_OFFSET = 0;
+    private static final int NAME_LENGTH_OFFSET = 1;
+    private static final int PROVIDER_COUNT_OFFSET = 1;
+    private static final int PROVIDER_ID_OFFSET = 2;
+    private static final int INT_OFFSET = 4;
+    private static final int TIME_OFFSET = 8;
+    private static final int TIMESTAMP_OFFSET = 16;
+    private static final int PRICE_OFFSET = 24;
+    private static final int NAME_OFFSET = 16;
+    private static final int NAME_BYTES_PER_RECORD = 16;
+
+    private final Path path;
+    private final ByteBuffer buffer;
+    private final int capacity;
+    // The number of records written, only changed by the writer
+    private int count;
+    // The number of records readers and the forcing thread may look at
+    private volatile int published;
+
+    private JournalSegment(Path path, ByteBuffer buffer, int count) {
+        this.path = path;
+        this.buffer = buffer;
+        this.capacity = buffer.capacity() / RECORD_SIZE;
+        this.count = count;
+    }
+
+    /**
+     * Creates a new segment file of the given size and writes its header.
+     */
+    static JournalSegment create(Path path, long size, long time) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    size - size % RECORD_SIZE);
+            JournalSegment segment = new JournalSegment(path, buffer, 0);
+            segment.appendHeader(time);
+            return segment;
+        }
+    }
+
+    /**
+     * Allocates a segment of the given number of records on the heap, e.g. to decode a
+     * compressed segment into.
+     */
+    static JournalSegment allocate(Path path, int records) {
+        return new JournalSegment(path, ByteBuffer.allocate(records * RECORD_SIZE), 0);
+    }
+
+    /**
+     * Maps an existing segment file for reading.
+     */
+    static JournalSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size() - channel.size() % RECORD_SIZE);
+            JournalSegment segment = new JournalSegment(path, buffer, 0);
+            if (segment.capacity == 0 || segment.getType(0) != HEADER
+                    || buffer.getLong(TIMESTAMP_OFFSET) != MAGIC) {
+                throw new IOException("Not a price journal segment: " + path);
+            }
+            if (buffer.getInt(INT_OFFSET) != FORMAT_VERSION) {
+                throw new IOException("Unsupported price journal format version "
+                        + buffer.getInt(INT_OFFSET) + " in " + path);
+            }
+            segment.count = segment.findEnd();
+            segment.published = segment.count;
+            return segment;
+        }
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    /**
+     * @return the number of records written
+     */
+    int getCount() {
+        return count;
+    }
+
+    /**
+     * @return the number of records written before the latest {@link #publish()}
+     */
+    int getPublished() {
+        return published;
+    }
+
+    /**
+     * Makes the records written so far visible to other threads.
+     */
+    void publish() {
+        published = count;
+    }
+
+    /**
+     * @return the number of records left
+     */
+    int getRemaining() {
+        return capacity - count;
+    }
+
+    static int recordsForName(String name) {
+        return Math.max(1, (name.length() + NAME_BYTES_PER_RECORD - 1) / NAME_BYTES_PER_RECORD);
+    }
+
+    void appendHeader(long time) {
+        int index = next(HEADER, time);
+        buffer.putInt(index * RECORD_SIZE + INT_OFFSET, FORMAT_VERSION);
+        buffer.putLong(index * RECORD_SIZE + TIMESTAMP_OFFSET, MAGIC);
+    }
+
+    void appendName(byte type, int id, String name, long time) {
+        byte[] bytes = name.getBytes(StandardCharsets.US_ASCII);
+        if (bytes.length > 255) {
+            throw new IllegalArgumentException("Name too long for the price journal: " + name);
+        }
+        int index = next(type, time);
+        buffer.put(index * RECORD_SIZE + NAME_LENGTH_OFFSET, (byte) bytes.length);
+        buffer.putInt(index * RECORD_SIZE + INT_OFFSET, id);
+        for (int from = 0; from < bytes.length; from += NAME_BYTES_PER_RECORD) {
+            if (from > 0) {
+                index = next(NAME_CONTINUATION, time);
+            }
+            buffer.put(index * RECORD_SIZE + NAME_OFFSET, bytes, from,
+                    Math.min(NAME_BYTES_PER_RECORD, bytes.length - from));
+        }
+    }
+
+    /**
+     * @param providerCount the number of providers of an aggregate, at most 255 are
+     *                      recorded
+     */
+    void appendRate(byte type, int currencyId, int providerId, int providerCount,
+                    long time, long timestamp, double price) {
+        int offset = next(type, time) * RECORD_SIZE;
+        buffer.put(offset + PROVIDER_COUNT_OFFSET, (byte) Math.min(providerCount, 255));
+        buffer.putShort(offset + PROVIDER_ID_OFFSET, (short) providerId);
+        buffer.putInt(offset + INT_OFFSET, currencyId);
+        buffer.putLong(offset + TIMESTAMP_OFFSET, timestamp);
+        buffer.putDouble(offset + PRICE_OFFSET, price);
+    }
+
+    /**
+     * Writes the records from {@code from} (inclusive) to {@code to} (exclusive) to
+     * the file.
+     */
+    void force(int from, int to) {
+        if (to > from && buffer instanceof MappedByteBuffer mapped) {
+            mapped.force(from * RECORD_SIZE, (to - from) * RECORD_SIZE);
+        }
+    }
+
+    byte getType(int index) {
+        return buffer.get(index * RECORD_SIZE + TYPE_OFFSET);
+    }
+
+    long getTime(int index) {
+        return buffer.getLong(index * RECORD_SIZE + TIME_OFFSET);
+    }
+
+    /**
+     * @return the currency id of a rate or aggregate, or the id of a dictionary entry
+     */
+    int getId(int index) {
+        return buffer.getInt(index * RECORD_SIZE + INT_OFFSET);
+    }
+
+    int getProviderId(int index) {
+        return buffer.getShort(index * RECORD_SIZE + PROVIDER_ID_OFFSET);
+    }
+
+    int getProviderCount(int index) {
+        return buffer.get(index * RECORD_SIZE + PROVIDER_COUNT_OFFSET) & 0xFF;
+    }
+
+    long getTimestamp(int index) {
+        return buffer.getLong(index * RECORD_SIZE + TIMESTAMP_OFFSET);
+    }
+
+    double getPrice(int index) {
+        return buffer.getDouble(index * RECORD_SIZE + PRICE_OFFSET);
+    }
+
+    /**
+     * @return the name of the dictionary record at the index, which spans
+     * {@link #recordsForName(String)} records
+     */
+    String getName(int index) {
+        byte[] bytes = new byte[buffer.get(index * RECORD_SIZE + NAME_LENGTH_OFFSET) & 0xFF];
+        for (int from = 0; from < bytes.length; from += NAME_BYTES_PER_RECORD, index++) {
+            buffer.get(index * RECORD_SIZE + NAME_OFFSET, bytes, from,
+                    Math.min(NAME_BYTES_PER_RECORD, bytes.length - from));
+        }
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * @return the index of the first published record written at or after the given
+     * time, or {@link #getPublished()}
+     */
+    int findTime(long time) {
+        int low = 0, high = published;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (getTime(mid) < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int next(byte type, long time) {
+        int index = count++;
+        int offset = index * RECORD_SIZE;
+        buffer.put(offset + TYPE_OFFSET, type);
+        buffer.putLong(offset + TIME_OFFSET, time);
+        return index;
+    }
+
+    // The number of records written, found by binary search for the first END record
+    private int findEnd() {
+        int low = 1, high = capacity;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (getType(mid) != END) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.spot.journal;
+
+import bisq.price.spot.ExchangeRate;
+
+import java.util.List;
+
+/**
+ * An aggregate as it was published, with the provider rates it was based on.
+ *
+ * @param publishedTime when the aggregate was published, in epoch millis
+ * @param aggregate     the aggregate rate
+ * @param providerCount the number of rates of providers it was aggregated from,
+ *                      outliers included
+ * @param providerRates the rates it is based on, outliers removed, as they were
+ *                      aggregated, ordered by provider name. Empty for aggregates
+ *                      journaled before these were.
+ */
+public record JournaledPrice(long publishedTime,
+                             ExchangeRate aggregate,
+                             int providerCount,
+                             List<ExchangeRate> providerRates) {
+}
@@ -0,0 +1,738 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.spot.journal;
+
+import bisq.price.spot.AggregateExchangeRateListener;
+import bisq.price.spot.ExchangeRate;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of every provider refresh and every published aggregate with the
+ * rates it is based on, as an audit trail of the prices served and to rebuild in-memory
+ * state after a restart.
+ *
+ * <p>Records are written to memory-mapped {@link JournalSegment}s, which costs about as
+ * much as writing to an array on the aggregator thread. The pages are written to disk
+ * by a separate thread every {@code bisq.price.journal.forceInterval} (a group commit),
+ * so at most that much is lost when the host fails; when only the process fails,
+ * nothing is lost. A new segment is started every {@code bisq.price.journal.segmentSize}
+ * and on every start.</p>
+ *
+ * <p>Once a segment is sealed, it is compressed in the background unless
+ * {@code bisq.price.journal.compress} is false, see {@link SegmentCompressor}, and
+ * decoded again when first queried. A point in time is looked up by a binary search
+ * over the start times of the segments and one over the records of a segment, which are
+ * ordered by the time they were written, see {@link #getPriceAt(String, long)}.</p>
+ *
+ * <p>Segments whose latest record is older than {@code bisq.price.journal.retention}
+ * are deleted in the background on start and whenever a segment is sealed. The
+ * downsampled history outlives them, see {@code PriceHistory}.</p>
+ *
+ * <p>The journal takes disk space, so it is only written if
+ * {@code bisq.price.journal.enabled} is true and {@code bisq.price.journal.dir} is an
+ * absolute path.</p>
+ */
+@Slf4j
+@Component
+public class PriceJournal implements AggregateExchangeRateListener {
+    static final String SEGMENT_PREFIX = "prices-";
+    static final String SEGMENT_SUFFIX = ".journal";
+    static final String COMPRESSED_SEGMENT_SUFFIX = ".journalz";
+
+    static final DataSize DEFAULT_SEGMENT_SIZE = DataSize.ofMegabytes(64);
+    // Large enough for any record with its dictionary entries, small enough to be mapped at once
+    static final long MIN_SEGMENT_SIZE = DataSize.ofKilobytes(64).toBytes();
+    static final long MAX_SEGMENT_SIZE = Integer.MAX_VALUE;
+    static final Duration DEFAULT_FORCE_INTERVAL = Duration.ofSeconds(1);
+    static final Duration DEFAULT_REPLAY = Duration.ofDays(1);
+    static final Duration DEFAULT_RETENTION = Duration.ofDays(7);
+    // How far back from a point in time to look for the aggregate published before it
+    static final long MAX_LOOKBACK_MILLIS = Duration.ofDays(1).toMillis();
+
+    private final Path directory;
+    private final long segmentSize;
+    private final Duration replay;
+    private final Duration retention;
+    private final ScheduledExecutorService forcer;
+    private final boolean compress;
+    // Compresses and deletes sealed segments
+    private final ExecutorService compressor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "price-journal-compress");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Oldest first, the last one being written unless the journal is disabled
+    private final List<IndexedSegment> segments = new CopyOnWriteArrayList<>();
+    // The first segment written since this start
+    private IndexedSegment firstSegment;
+
+    // Only used by the writer
+    private final Map<String, Integer> currencyIds = new HashMap<>();
+    private final List<String> currencyCodes = new ArrayList<>();
+    private final Map<String, Integer> providerIds = new HashMap<>();
+    private final List<String> providerNames = new ArrayList<>();
+    private final BitSet currenciesInSegment = new BitSet();
+    private final BitSet providersInSegment = new BitSet();
+    private IndexedSegment indexedSegment;
+    private long nextSegmentNumber;
+    private long lastTime;
+
+    private volatile JournalSegment segment;
+    // Only used by the forcing thread
+    private JournalSegment forcedSegment;
+    private int forcedCount;
+
+    public PriceJournal(Environment env) {
+        String configuredDirectory = env.getProperty("bisq.price.journal.dir");
+        this.directory = configuredDirectory == null || configuredDirectory.isBlank()
+                ? null
+                : Paths.get(configuredDirectory);
+        long segmentSize = Objects.requireNonNullElse(
+                env.getProperty("bisq.price.journal.segmentSize", DataSize.class), DEFAULT_SEGMENT_SIZE).toBytes();
+        this.segmentSize = Math.min(Math.max(segmentSize, MIN_SEGMENT_SIZE), MAX_SEGMENT_SIZE);
+        this.replay = Objects.requireNonNullElse(
+                env.getProperty("bisq.price.journal.replay", Duration.class), DEFAULT_REPLAY);
+        this.retention = Objects.requireNonNullElse(
+                env.getProperty("bisq.price.journal.retention", Duration.class), DEFAULT_RETENTION);
+        Duration forceInterval = Objects.requireNonNullElse(
+                env.getProperty("bisq.price.journal.forceInterval", Duration.class), DEFAULT_FORCE_INTERVAL);
+        this.compress = !Boolean.FALSE.equals(env.getProperty("bisq.price.journal.compress", Boolean.class));
+
+        if (!Boolean.TRUE.equals(env.getProperty("bisq.price.journal.enabled", Boolean.class))) {
+            log.info("Price journal disabled");
+            forcer = null;
+            return;
+        }
+        if (directory == null || !directory.isAbsolute()) {
+            log.error("Price journal needs an absolute bisq.price.journal.dir, not '{}', journal disabled",
+                    configuredDirectory);
+            forcer = null;
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            List<Path> pastSegments = listSegments(directory);
+            for (int i = 0; i < pastSegments.size(); i++) {
+                Path path = pastSegments.get(i);
+                if (i + 1 < pastSegments.size() && segmentNumber(pastSegments.get(i + 1)) == segmentNumber(path)) {
+                    // Compressed, but the process stopped before it was deleted
+                    Files.deleteIfExists(path);
+                    continue;
+                }
+                try {
+                    if (path.getFileName().toString().endsWith(COMPRESSED_SEGMENT_SUFFIX)) {
+                        segments.add(IndexedSegment.compressed(path));
+                    } else {
+                        IndexedSegment indexed = new IndexedSegment(JournalSegment.open(path), false);
+                        segments.add(indexed);
+                        compressLater(indexed);
+                    }
+                } catch (IOException e) {
+                    log.error("Could not open price journal segment {}, skipping it", path, e);
+                }
+            }
+            nextSegmentNumber = pastSegments.isEmpty() ? 1 : segmentNumber(pastSegments.get(pastSegments.size() - 1)) + 1;
+            // Keep times in order across segments even if the clock went back
+            lastTime = System.currentTimeMillis();
+            if (!segments.isEmpty()) {
+                lastTime = Math.max(lastTime, segments.get(segments.size() - 1).getEndTime());
+            }
+            startSegment();
+            firstSegment = indexedSegment;
+            expireLater();
+        } catch (IOException e) {
+            log.error("Could not open price journal in {}, journal disabled", directory.toAbsolutePath(), e);
+            segment = null;
+            forcer = null;
+            return;
+        }
+        log.info("Price journal writing to {}", segment.getPath().toAbsolutePath());
+        forcer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "price-journal-force");
+            thread.setDaemon(true);
+            return thread;
+        });
+        forcer.scheduleWithFixedDelay(this::force,
+                forceInterval.toMillis(), forceInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void close() {
+        compressor.shutdown();
+        try {
+            compressor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (forcer != null) {
+            forcer.shutdown();
+            try {
+                forcer.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            force();
+        }
+    }
+
+    @Override
+    public void onProviderRates(long time, String provider, Collection<ExchangeRate> exchangeRates) {
+        if (segment == null) {
+            return;
+        }
+        time = Math.max(time, lastTime);
+        for (ExchangeRate exchangeRate : exchangeRates) {
+            append(JournalSegment.RATE, time, provider, exchangeRate, 0);
+        }
+        lastTime = time;
+        segment.publish();
+    }
+
+    @Override
+    public void onAggregate(long time, ExchangeRate aggregate, int providerCount) {
+        onAggregate(time, aggregate, providerCount, List.of());
+    }
+
+    @Override
+    public void onAggregate(long time, ExchangeRate aggregate, int providerCount,
+                            List<ExchangeRate> contributingRates) {
+        if (segment == null) {
+            return;
+        }
+        time = Math.max(time, lastTime);
+        // The contributions follow their aggregate in the same segment
+        int records = recordsFor(aggregate.getProvider(), aggregate);
+        for (ExchangeRate contributingRate : contributingRates) {
+            records += recordsFor(contributingRate.getProvider(), contributingRate);
+        }
+        if (segment.getRemaining() < records && !rollOver()) {
+            return;
+        }
+        append(JournalSegment.AGGREGATE, time, aggregate.getProvider(), aggregate, providerCount);
+        for (ExchangeRate contributingRate : contributingRates) {
+            append(JournalSegment.CONTRIBUTION, time, contributingRate.getProvider(), contributingRate, 0);
+        }
+        lastTime = time;
+        segment.publish();
+    }
+
+    /**
+     * Hands the aggregates journaled within {@code bisq.price.journal.replay} before this
+     * start to the listener.
+     */
+    @Override
+    public void replayTo(AggregateExchangeRateListener listener) {
+        long to = System.currentTimeMillis();
+        replay(to - replay.toMillis(), to, new JournalVisitor() {
+            @Override
+            public void onAggregate(long time, ExchangeRate aggregate, int providerCount) {
+                listener.onAggregate(time, aggregate, providerCount);
+            }
+        });
+    }
+
+    /**
+     * Visits the records written between {@code from} and {@code to} (inclusive, in
+     * epoch millis) before this start, oldest first.
+     */
+    void replay(long from, long to, JournalVisitor visitor) {
+        for (IndexedSegment indexed : List.copyOf(segments)) {
+            if (indexed == firstSegment) {
+                return;
+            }
+            // Do not decode compressed segments out of range
+            if (indexed.getEndTime() >= from && indexed.getStartTime() <= to) {
+                replay(indexed.getSegment(), from, to, visitor);
+            }
+        }
+    }
+
+    static void replay(JournalSegment segment, long from, long to, JournalVisitor visitor) {
+        int count = segment.getPublished();
+        if (count == 0 || segment.getTime(count - 1) < from || segment.getTime(0) > to) {
+            return;
+        }
+        Map<Integer, String> currencyCodes = new HashMap<>();
+        Map<Integer, String> providerNames = new HashMap<>();
+        for (int index = 0; index < count; index++) {
+            byte type = segment.getType(index);
+            long time = segment.getTime(index);
+            if (time > to) {
+                return;
+            }
+            switch (type) {
+                case JournalSegment.CURRENCY -> currencyCodes.put(segment.getId(index), segment.getName(index));
+                case JournalSegment.PROVIDER -> providerNames.put(segment.getId(index), segment.getName(index));
+                case JournalSegment.RATE, JournalSegment.AGGREGATE -> {
+                    if (time < from) {
+                        continue;
+                    }
+                    ExchangeRate exchangeRate = new ExchangeRate(
+                            currencyCodes.get(segment.getId(index)),
+                            segment.getPrice(index),
+                            segment.getTimestamp(index),
+                            providerNames.get(segment.getProviderId(index)));
+                    if (type == JournalSegment.RATE) {
+                        visitor.onProviderRate(time, exchangeRate);
+                    } else {
+                        visitor.onAggregate(time, exchangeRate, segment.getProviderCount(index));
+                    }
+                }
+                default -> {
+                    // Header, name continuations and contributions
+                }
+            }
+        }
+    }
+
+    /**
+     * @param time epoch millis
+     * @return the latest aggregate of the currency published at or before the given
+     * time, if there is one within a day before it
+     */
+    public Optional<JournaledPrice> getPriceAt(String currencyCode, long time) {
+        List<IndexedSegment> segments = List.copyOf(this.segments);
+        if (segments.isEmpty()) {
+            return Optional.empty();
+        }
+        // Look back from the latest record for times after it
+        JournalSegment latest = segments.get(segments.size() - 1).getSegment();
+        time = Math.min(time, latest.getTime(latest.getPublished() - 1));
+        int segmentIndex = findSegment(segments, time);
+        if (segmentIndex < 0) {
+            return Optional.empty();
+        }
+        int end = segments.get(segmentIndex).getSegment().findTime(time + 1);
+
+        // The aggregate published last before the time
+        Cursor cursor = new Cursor(segments, currencyCode, segmentIndex, end, time - MAX_LOOKBACK_MILLIS);
+        do {
+            if (!cursor.previous()) {
+                return Optional.empty();
+            }
+        } while (!cursor.isAt(JournalSegment.AGGREGATE));
+        List<ExchangeRate> providerRates = cursor.getContributions();
+        providerRates.sort(Comparator.comparing(ExchangeRate::getProvider));
+        return Optional.of(new JournaledPrice(cursor.getTime(), cursor.toExchangeRate(), cursor.getProviderCount(),
+                providerRates));
+    }
+
+    // The index of the last segment started at or before the time, or -1
+    private static int findSegment(List<IndexedSegment> segments, long time) {
+        int low = 0, high = segments.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (segments.get(mid).getStartTime() <= time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low - 1;
+    }
+
+    /**
+     * Reads the records journaled between {@code from} and {@code to} (inclusive, in
+     * epoch millis), oldest first, as the iterator advances. Any range is read in
+     * constant memory; compressed segments are decoded one at a time, when reached.
+     *
+     * @param currencyCode  the currency to read the records of, or null for all
+     * @param providerRates whether to read the provider rates besides the aggregates
+     */
+    public Iterator<JournalRecord> read(long from, long to, String currencyCode, boolean providerRates) {
+        return new RecordIterator(List.copyOf(segments), from, to, currencyCode, providerRates);
+    }
+
+    private static class RecordIterator implements Iterator<JournalRecord> {
+        private final List<IndexedSegment> segments;
+        private final long to;
+        private final String currencyCode;
+        private final boolean providerRates;
+        // The segment at segmentIndex, or null once done
+        private JournalSegment segment;
+        private int segmentIndex;
+        private int recordIndex;
+        // The id of the currency in the segment, if only one currency is read
+        private int currencyId;
+        private JournalRecord next;
+
+        RecordIterator(List<IndexedSegment> segments, long from, long to, String currencyCode, boolean providerRates) {
+            this.segments = segments;
+            this.to = to;
+            this.currencyCode = currencyCode;
+            this.providerRates = providerRates;
+            int first = Math.max(findSegment(segments, from), 0);
+            enter(first);
+            if (segment != null && segmentIndex == first) {
+                recordIndex = segment.findTime(from);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                next = advance();
+            }
+            return next != null;
+        }
+
+        @Override
+        public JournalRecord next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            JournalRecord result = next;
+            next = null;
+            return result;
+        }
+
+        private JournalRecord advance() {
+            while (segment != null) {
+                if (recordIndex >= segment.getPublished()) {
+                    enter(segmentIndex + 1);
+                    continue;
+                }
+                int index = recordIndex++;
+                long time = segment.getTime(index);
+                if (time > to) {
+                    segment = null;
+                    return null;
+                }
+                byte type = segment.getType(index);
+                if (type != JournalSegment.AGGREGATE && (type != JournalSegment.RATE || !providerRates)) {
+                    continue;
+                }
+                int id = segment.getId(index);
+                if (currencyCode != null && id != currencyId) {
+                    continue;
+                }
+                IndexedSegment indexed = segments.get(segmentIndex);
+                ExchangeRate exchangeRate = new ExchangeRate(
+                        currencyCode != null ? currencyCode : indexed.getCurrencyCode(id),
+                        segment.getPrice(index),
+                        segment.getTimestamp(index),
+                        indexed.getProviderName(segment.getProviderId(index)));
+                return new JournalRecord(time, type == JournalSegment.AGGREGATE, exchangeRate,
+                        segment.getProviderCount(index));
+            }
+            return null;
+        }
+
+        // Moves to the first segment from the index on with records of the currency, if any
+        private void enter(int index) {
+            segment = null;
+            for (; index < segments.size() && segments.get(index).getStartTime() <= to; index++) {
+                IndexedSegment indexed = segments.get(index);
+                if (currencyCode == null || (currencyId = indexed.getCurrencyId(currencyCode)) >= 0) {
+                    segment = indexed.getSegment();
+                    segmentIndex = index;
+                    recordIndex = 0;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Walks the published records of one currency backwards, across segments, down to
+     * the records written at a given time.
+     */
+    private static class Cursor {
+        private final List<IndexedSegment> segments;
+        private final String currencyCode;
+        private final long oldestTime;
+        private int segmentIndex;
+        private int recordIndex;
+        // The id of the currency in the segment at currencySegmentIndex, or -1
+        private int currencySegmentIndex = -1;
+        private int currencyId;
+        // The segment at cachedSegmentIndex, which may have to be decoded
+        private int cachedSegmentIndex = -1;
+        private JournalSegment cachedSegment;
+
+        // The first previous() moves to the record before the one at the index
+        Cursor(List<IndexedSegment> segments, String currencyCode, int segmentIndex, int recordIndex, long oldestTime) {
+            this.segments = segments;
+            this.currencyCode = currencyCode;
+            this.segmentIndex = segmentIndex;
+            this.recordIndex = recordIndex;
+            this.oldestTime = oldestTime;
+        }
+
+        boolean previous() {
+            while (--recordIndex < 0) {
+                if (--segmentIndex < 0) {
+                    return false;
+                }
+                recordIndex = segment().getPublished();
+            }
+            return getTime() >= oldestTime;
+        }
+
+        /**
+         * @return whether the cursor is at a record of the type of the currency
+         */
+        boolean isAt(byte type) {
+            JournalSegment segment = segment();
+            if (segment.getType(recordIndex) != type) {
+                return false;
+            }
+            // Ids are per segment
+            if (currencySegmentIndex != segmentIndex) {
+                currencySegmentIndex = segmentIndex;
+                currencyId = segments.get(segmentIndex).getCurrencyId(currencyCode);
+            }
+            return currencyId >= 0 && segment.getId(recordIndex) == currencyId;
+        }
+
+        long getTime() {
+            return segment().getTime(recordIndex);
+        }
+
+        int getProviderCount() {
+            return segment().getProviderCount(recordIndex);
+        }
+
+        ExchangeRate toExchangeRate() {
+            return toExchangeRate(recordIndex);
+        }
+
+        /**
+         * @return the rates journaled right after the aggregate the cursor is at, which
+         * it is based on. Segments written before these were journaled have none.
+         */
+        List<ExchangeRate> getContributions() {
+            JournalSegment segment = segment();
+            List<ExchangeRate> contributions = new ArrayList<>();
+            for (int index = recordIndex + 1; index < segment.getPublished(); index++) {
+                byte type = segment.getType(index);
+                if (type == JournalSegment.CONTRIBUTION) {
+                    contributions.add(toExchangeRate(index));
+                } else if (type != JournalSegment.CURRENCY && type != JournalSegment.PROVIDER
+                        && type != JournalSegment.NAME_CONTINUATION) {
+                    break;
+                }
+            }
+            return contributions;
+        }
+
+        private ExchangeRate toExchangeRate(int index) {
+            JournalSegment segment = segment();
+            return new ExchangeRate(currencyCode, segment.getPrice(index), segment.getTimestamp(index),
+                    segments.get(segmentIndex).getProviderName(segment.getProviderId(index)));
+        }
+
+        private JournalSegment segment() {
+            if (cachedSegmentIndex != segmentIndex) {
+                cachedSegmentIndex = segmentIndex;
+                cachedSegment = segments.get(segmentIndex).getSegment();
+            }
+            return cachedSegment;
+        }
+    }
+
+    private void append(byte type, long time, String provider, ExchangeRate exchangeRate, int providerCount) {
+        if (segment.getRemaining() < recordsFor(provider, exchangeRate) && !rollOver()) {
+            return;
+        }
+        int currencyId = id(currencyIds, currencyCodes, exchangeRate.getCurrency());
+        int providerId = id(providerIds, providerNames, provider);
+        if (!currenciesInSegment.get(currencyId)) {
+            segment.appendName(JournalSegment.CURRENCY, currencyId, exchangeRate.getCurrency(), time);
+            indexedSegment.putCurrency(currencyId, exchangeRate.getCurrency());
+            currenciesInSegment.set(currencyId);
+        }
+        if (!providersInSegment.get(providerId)) {
+            segment.appendName(JournalSegment.PROVIDER, providerId, provider, time);
+            indexedSegment.putProvider(providerId, provider);
+            providersInSegment.set(providerId);
+        }
+        segment.appendRate(type, currencyId, providerId, providerCount,
+                time, exchangeRate.getTimestamp(), exchangeRate.getPrice());
+    }
+
+    // The records appending the rate takes in the current segment, dictionary records included
+    private int recordsFor(String provider, ExchangeRate exchangeRate) {
+        int currencyId = id(currencyIds, currencyCodes, exchangeRate.getCurrency());
+        int providerId = id(providerIds, providerNames, provider);
+        int records = 1;
+        if (!currenciesInSegment.get(currencyId)) {
+            records += JournalSegment.recordsForName(exchangeRate.getCurrency());
+        }
+        if (!providersInSegment.get(providerId)) {
+            records += JournalSegment.recordsForName(provider);
+        }
+        return records;
+    }
+
+    private static int id(Map<String, Integer> ids, List<String> names, String name) {
+        return ids.computeIfAbsent(name, n -> {
+            names.add(n);
+            return names.size() - 1;
+        });
+    }
+
+    // Returns false if the journal is disabled because no new segment could be started
+    private boolean rollOver() {
+        JournalSegment full = segment;
+        IndexedSegment indexedFull = indexedSegment;
+        full.publish();
+        try {
+            startSegment();
+        } catch (IOException e) {
+            log.error("Could not start a new price journal segment in {}, journal disabled",
+                    directory.toAbsolutePath(), e);
+            segment = null;
+            return false;
+        }
+        // Do not leave the full segment to the forcing thread, which may be on the new one already
+        full.force(0, full.getCount());
+        log.info("Price journal writing to {}", segment.getPath().toAbsolutePath());
+        compressLater(indexedFull);
+        expireLater();
+        return true;
+    }
+
+    private void compressLater(IndexedSegment indexed) {
+        if (compress) {
+            compressor.execute(() -> compress(indexed));
+        }
+    }
+
+    // Writes the compressed segment next to the raw one, then drops the raw one
+    private static void compress(IndexedSegment indexed) {
+        JournalSegment raw = indexed.getSegment();
+        String name = raw.getPath().getFileName().toString();
+        Path path = raw.getPath().resolveSibling(
+                name.substring(0, name.length() - SEGMENT_SUFFIX.length()) + COMPRESSED_SEGMENT_SUFFIX);
+        Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            byte[] compressed = SegmentCompressor.compress(raw);
+            try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.wrap(compressed));
+                channel.force(true);
+            }
+            Files.move(temporaryPath, path, StandardCopyOption.ATOMIC_MOVE);
+            indexed.setCompressed(path);
+            Files.delete(raw.getPath());
+            log.info("Compressed price journal segment {} from {} to {} bytes", path,
+                    (long) raw.getPublished() * JournalSegment.RECORD_SIZE, compressed.length);
+        } catch (IOException | RuntimeException e) {
+            log.error("Could not compress price journal segment {}", raw.getPath(), e);
+        }
+    }
+
+    // Queued after the compression of the segments sealed so far, so it deletes compressed files
+    private void expireLater() {
+        compressor.execute(this::expire);
+    }
+
+    private void expire() {
+        long oldestTime = System.currentTimeMillis() - retention.toMillis();
+        List<IndexedSegment> sealed = List.copyOf(segments);
+        // Oldest first, and the last one, which may be being written, is kept in any case
+        for (IndexedSegment indexed : sealed.subList(0, Math.max(sealed.size() - 1, 0))) {
+            if (indexed.getEndTime() >= oldestTime) {
+                return;
+            }
+            // A lookup that copied the segment list before may still decode it and fail
+            segments.remove(indexed);
+            Path path = indexed.getPath();
+            try {
+                Files.deleteIfExists(path);
+                log.info("Deleted expired price journal segment {}", path);
+            } catch (IOException e) {
+                log.error("Could not delete expired price journal segment {}", path, e);
+            }
+        }
+    }
+
+    private void startSegment() throws IOException {
+        Path path = directory.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, nextSegmentNumber++, SEGMENT_SUFFIX));
+        JournalSegment next = JournalSegment.create(path, segmentSize, lastTime);
+        next.publish();
+        currenciesInSegment.clear();
+        providersInSegment.clear();
+        indexedSegment = new IndexedSegment(next, true);
+        segments.add(indexedSegment);
+        segment = next;
+    }
+
+    private void force() {
+        JournalSegment current = segment;
+        if (current == null) {
+            return;
+        }
+        if (current != forcedSegment) {
+            forcedSegment = current;
+            forcedCount = 0;
+        }
+        int count = current.getPublished();
+        current.force(forcedCount, count);
+        forcedCount = count;
+    }
+
+    static List<Path> listSegments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX)
+                                && (name.endsWith(SEGMENT_SUFFIX) || name.endsWith(COMPRESSED_SEGMENT_SUFFIX));
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long segmentNumber(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.indexOf('.')));
+    }
+}
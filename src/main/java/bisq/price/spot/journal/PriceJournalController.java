@@ -0,0 +1,62 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.spot.journal;
+
+import bisq.price.PriceController;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+@RestController
+class PriceJournalController extends PriceController {
+
+    private final PriceJournal priceJournal;
+
+    public PriceJournalController(PriceJournal priceJournal) {
+        this.priceJournal = priceJournal;
+    }
+
+    /**
+     * @return the aggregate price of the currency served at the given time, with the
+     * provider rates it was based on
+     */
+    @GetMapping(path = "/getPriceAt/{currency}/{epochSec}")
+    public Map<String, Object> getPriceAt(@PathVariable("currency") String currency,
+                                          @PathVariable("epochSec") long epochSec) {
+        String currencyCode = currency.toUpperCase(Locale.ROOT);
+        // Up to the end of the second
+        long time = epochSec >= Long.MAX_VALUE / 1000 ? Long.MAX_VALUE : epochSec * 1000 + 999;
+        JournaledPrice price = priceJournal.getPriceAt(currencyCode, time)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "No price of " + currencyCode + " journaled at " + epochSec));
+
+        Map<String, Object> retVal = new LinkedHashMap<>();
+        retVal.put("currencyCode", currencyCode);
+        retVal.put("publishedSec", price.publishedTime() / 1000);
+        retVal.put("aggregate", price.aggregate());
+        retVal.put("providerCount", price.providerCount());
+        retVal.put("providers", price.providerRates());
+        return retVal;
+    }
+}
@@ -0,0 +1,353 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.spot.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compresses sealed {@link JournalSegment}s with the time series encodings of Facebook's
+ * Gorilla: times are written as the difference of their difference to the previous one,
+ * which is mostly zero, and prices as the XOR with the previous price of the same
+ * series, of which only the bits that differ are written.
+ *
+ * <p>Records keep their order, so decoding restores the segment exactly. Each rate,
+ * aggregate and contribution belongs to a series, the rates or contributions of one
+ * provider for one currency or the aggregates of one currency, which is referred to by its number, in one bit if it
+ * follows the series of the record before, as series mostly come in the same order in
+ * every refresh. Its timestamp and
+ * price are encoded against the previous ones of the series, unless the timestamp is
+ * the one of the record before, as it is for all rates of a provider refresh.</p>
+ *
+ * <p>A compressed segment starts with a header of
+ * {@value #HEADER_SIZE} bytes: magic, version, record count, start and end time.</p>
+ */
+class SegmentCompressor {
+    static final long MAGIC = 0x4269737150726a7aL; // "BisqPrjz"
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 32;
+
+    private static final int TYPE_BITS = 3;
+
+    /**
+     * @param count     the number of records
+     * @param startTime the time of the first record
+     * @param endTime   the time of the last record
+     */
+    record Header(int count, long startTime, long endTime) {
+    }
+
+    /**
+     * The state of one series, shared by encoder and decoder.
+     */
+    private static class Series {
+        final int currencyId;
+        final int providerId;
+        int providerCount;
+        long timestamp;
+        long timestampDelta;
+        long priceBits;
+        int leadingZeros = -1;
+        int trailingZeros;
+
+        Series(int currencyId, int providerId) {
+            this.currencyId = currencyId;
+            this.providerId = providerId;
+        }
+    }
+
+    /**
+     * The state of the records of a segment, shared by encoder and decoder.
+     */
+    private static class Records {
+        final Map<Long, Integer> seriesNumbers = new HashMap<>();
+        final List<Series> series = new ArrayList<>();
+        long time;
+        long timeDelta;
+        long timestamp;
+        int seriesNumber = -1;
+
+        int seriesNumberBits() {
+            return 32 - Integer.numberOfLeadingZeros(series.size());
+        }
+    }
+
+    /**
+     * @return the published records of the segment, compressed
+     */
+    static byte[] compress(JournalSegment segment) {
+        int count = segment.getPublished();
+        BitWriter out = new BitWriter();
+        Records records = new Records();
+        records.time = segment.getTime(0);
+        for (int index = 1; index < count; index++) {
+            byte type = segment.getType(index);
+            if (type == JournalSegment.NAME_CONTINUATION) {
+                // Written again with the name
+                continue;
+            }
+            out.write(type, TYPE_BITS);
+            long time = segment.getTime(index);
+            long timeDelta = time - records.time;
+            writeDeltaOfDelta(out, timeDelta - records.timeDelta);
+            records.time = time;
+            records.timeDelta = timeDelta;
+            switch (type) {
+                case JournalSegment.CURRENCY, JournalSegment.PROVIDER -> {
+                    byte[] name = segment.getName(index).getBytes(StandardCharsets.US_ASCII);
+                    out.write(segment.getId(index), 32);
+                    out.write(name.length, 8);
+                    for (byte b : name) {
+                        out.write(b, 8);
+                    }
+                }
+                case JournalSegment.RATE, JournalSegment.AGGREGATE, JournalSegment.CONTRIBUTION ->
+                        writeRate(out, records, segment, index, type);
+                default -> throw new IllegalStateException("Unexpected record type " + type + " in " + segment.getPath());
+            }
+        }
+
+        byte[] body = out.toByteArray();
+        ByteBuffer result = ByteBuffer.allocate(HEADER_SIZE + body.length);
+        result.putLong(MAGIC);
+        result.putInt(FORMAT_VERSION);
+        result.putInt(count);
+        result.putLong(segment.getTime(0));
+        result.putLong(segment.getTime(count - 1));
+        result.put(body);
+        return result.array();
+    }
+
+    private static void writeRate(BitWriter out, Records records, JournalSegment segment, int index, byte type) {
+        int currencyId = segment.getId(index);
+        int providerId = segment.getProviderId(index);
+        long key = (long) type << 48 | (long) (providerId & 0xFFFF) << 32 | currencyId & 0xFFFFFFFFL;
+        Integer number = records.seriesNumbers.get(key);
+        int providerCount = segment.getProviderCount(index);
+        long timestamp = segment.getTimestamp(index);
+        long priceBits = Double.doubleToRawLongBits(segment.getPrice(index));
+        // The next number announces a new series
+        int seriesNumber = number == null ? records.series.size() : number;
+        out.writeBit(seriesNumber != records.seriesNumber + 1);
+        if (seriesNumber != records.seriesNumber + 1) {
+            out.write(seriesNumber, records.seriesNumberBits());
+        }
+        records.seriesNumber = seriesNumber;
+        if (number == null) {
+            Series series = new Series(currencyId, providerId);
+            series.providerCount = providerCount;
+            series.timestamp = timestamp;
+            series.priceBits = priceBits;
+            records.seriesNumbers.put(key, records.series.size());
+            records.series.add(series);
+            records.timestamp = timestamp;
+            out.write(currencyId, 32);
+            out.write(providerId, 16);
+            out.write(providerCount, 8);
+            out.write(timestamp, 64);
+            out.write(priceBits, 64);
+            return;
+        }
+
+        Series series = records.series.get(number);
+        if (type == JournalSegment.AGGREGATE) {
+            out.writeBit(providerCount != series.providerCount);
+            if (providerCount != series.providerCount) {
+                out.write(providerCount, 8);
+                series.providerCount = providerCount;
+            }
+        }
+        out.writeBit(timestamp != records.timestamp);
+        if (timestamp != records.timestamp) {
+            writeDeltaOfDelta(out, timestamp - series.timestamp - series.timestampDelta);
+        }
+        series.timestampDelta = timestamp - series.timestamp;
+        series.timestamp = timestamp;
+        records.timestamp = timestamp;
+        writeXor(out, series, priceBits);
+    }
+
+    /**
+     * Decodes a compressed segment.
+     */
+    static JournalSegment decompress(Path path, ByteBuffer data) throws IOException {
+        Header header = readHeader(path, data);
+        JournalSegment segment = JournalSegment.allocate(path, header.count());
+        segment.appendHeader(header.startTime());
+        BitReader in = new BitReader(data, HEADER_SIZE);
+        Records records = new Records();
+        records.time = header.startTime();
+        while (segment.getCount() < header.count()) {
+            byte type = (byte) in.read(TYPE_BITS);
+            long timeDelta = records.timeDelta + readDeltaOfDelta(in);
+            long time = records.time + timeDelta;
+            records.time = time;
+            records.timeDelta = timeDelta;
+            switch (type) {
+                case JournalSegment.CURRENCY, JournalSegment.PROVIDER -> {
+                    int id = (int) in.read(32);
+                    byte[] name = new byte[(int) in.read(8)];
+                    for (int i = 0; i < name.length; i++) {
+                        name[i] = (byte) in.read(8);
+                    }
+                    segment.appendName(type, id, new String(name, StandardCharsets.US_ASCII), time);
+                }
+                case JournalSegment.RATE, JournalSegment.AGGREGATE, JournalSegment.CONTRIBUTION ->
+                        readRate(in, records, segment, type, time);
+                default -> throw new IllegalStateException("Unexpected record type " + type + " in " + path);
+            }
+        }
+        segment.publish();
+        return segment;
+    }
+
+    private static void readRate(BitReader in, Records records, JournalSegment segment, byte type, long time) {
+        int number = in.readBit() ? (int) in.read(records.seriesNumberBits()) : records.seriesNumber + 1;
+        records.seriesNumber = number;
+        Series series;
+        if (number == records.series.size()) {
+            series = new Series((int) in.read(32), (short) in.read(16));
+            series.providerCount = (int) in.read(8);
+            series.timestamp = in.read(64);
+            series.priceBits = in.read(64);
+            records.series.add(series);
+        } else {
+            series = records.series.get(number);
+            if (type == JournalSegment.AGGREGATE && in.readBit()) {
+                series.providerCount = (int) in.read(8);
+            }
+            long timestamp = in.readBit()
+                    ? series.timestamp + series.timestampDelta + readDeltaOfDelta(in)
+                    : records.timestamp;
+            series.timestampDelta = timestamp - series.timestamp;
+            series.timestamp = timestamp;
+            readXor(in, series);
+        }
+        records.timestamp = series.timestamp;
+        segment.appendRate(type, series.currencyId, series.providerId, series.providerCount,
+                time, series.timestamp, Double.longBitsToDouble(series.priceBits));
+    }
+
+    /**
+     * @throws IOException if the data is not a compressed segment
+     */
+    static Header readHeader(Path path, ByteBuffer data) throws IOException {
+        if (data.capacity() < HEADER_SIZE || data.getLong(0) != MAGIC) {
+            throw new IOException("Not a compressed price journal segment: " + path);
+        }
+        if (data.getInt(8) != FORMAT_VERSION) {
+            throw new IOException("Unsupported compressed price journal format version "
+                    + data.getInt(8) + " in " + path);
+        }
+        return new Header(data.getInt(12), data.getLong(16), data.getLong(24));
+    }
+
+    static ByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    // '0' for 0, else a prefix of 1s announcing the width of the value that follows
+    private static void writeDeltaOfDelta(BitWriter out, long deltaOfDelta) {
+        if (deltaOfDelta == 0) {
+            out.write(0b0, 1);
+        } else if (deltaOfDelta >= -63 && deltaOfDelta <= 64) {
+            out.write(0b10, 2);
+            out.write(deltaOfDelta + 63, 7);
+        } else if (deltaOfDelta >= -255 && deltaOfDelta <= 256) {
+            out.write(0b110, 3);
+            out.write(deltaOfDelta + 255, 9);
+        } else if (deltaOfDelta >= -2047 && deltaOfDelta <= 2048) {
+            out.write(0b1110, 4);
+            out.write(deltaOfDelta + 2047, 12);
+        } else if (deltaOfDelta >= -Integer.MAX_VALUE && deltaOfDelta <= 1L << 31) {
+            out.write(0b11110, 5);
+            out.write(deltaOfDelta + Integer.MAX_VALUE, 32);
+        } else {
+            out.write(0b11111, 5);
+            out.write(deltaOfDelta, 64);
+        }
+    }
+
+    private static long readDeltaOfDelta(BitReader in) {
+        if (!in.readBit()) {
+            return 0;
+        } else if (!in.readBit()) {
+            return in.read(7) - 63;
+        } else if (!in.readBit()) {
+            return in.read(9) - 255;
+        } else if (!in.readBit()) {
+            return in.read(12) - 2047;
+        } else if (!in.readBit()) {
+            return in.read(32) - Integer.MAX_VALUE;
+        } else {
+            return in.read(64);
+        }
+    }
+
+    // '0' if the price did not change, '10' and the differing bits if they fit into the
+    // window of the previous XOR, else '11', the window and the differing bits
+    private static void writeXor(BitWriter out, Series series, long priceBits) {
+        long xor = priceBits ^ series.priceBits;
+        series.priceBits = priceBits;
+        if (xor == 0) {
+            out.write(0b0, 1);
+            return;
+        }
+        int leadingZeros = Math.min(Long.numberOfLeadingZeros(xor), 31);
+        int trailingZeros = Long.numberOfTrailingZeros(xor);
+        if (series.leadingZeros >= 0 && leadingZeros >= series.leadingZeros
+                && trailingZeros >= series.trailingZeros) {
+            out.write(0b10, 2);
+            out.write(xor >>> series.trailingZeros, 64 - series.leadingZeros - series.trailingZeros);
+        } else {
+            int significantBits = 64 - leadingZeros - trailingZeros;
+            out.write(0b11, 2);
+            out.write(leadingZeros, 5);
+            out.write(significantBits - 1, 6);
+            out.write(xor >>> trailingZeros, significantBits);
+            series.leadingZeros = leadingZeros;
+            series.trailingZeros = trailingZeros;
+        }
+    }
+
+    private static void readXor(BitReader in, Series series) {
+        if (!in.readBit()) {
+            return;
+        }
+        if (!in.readBit()) {
+            int significantBits = 64 - series.leadingZeros - series.trailingZeros;
+            series.priceBits ^= in.read(significantBits) << series.trailingZeros;
+        } else {
+            int leadingZeros = (int) in.read(5);
+            int significantBits = (int) in.read(6) + 1;
+            series.leadingZeros = leadingZeros;
+            series.trailingZeros = 64 - leadingZeros - significantBits;
+            series.priceBits ^= in.read(significantBits) << series.trailingZeros;
+        }
+    }
+}
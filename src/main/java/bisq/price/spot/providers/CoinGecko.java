@@ -19,77 +19,46 @@ package bisq.price.spot.providers;
 
 import bisq.price.spot.ExchangeRate;
 import bisq.price.spot.ExchangeRateProvider;
-import bisq.price.util.coingecko.CoinGeckoMarketData;
+import bisq.price.util.coingecko.CoinGeckoRatesHandler;
+import bisq.price.util.http.ConditionalGet;
+import bisq.price.util.http.UpstreamWebClient;
+import bisq.price.util.json.StreamingJsonDecoder;
 
-import bisq.price.util.coingecko.CoinGeckoTicker;
 import org.springframework.core.env.Environment;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
 import java.time.Duration;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-
-import java.time.temporal.ChronoUnit;
-import java.util.*;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @Component
 class CoinGecko extends ExchangeRateProvider {
     private static final String GET_EXCHANGE_RATES_URL = "https://api.coingecko.com/api/v3/exchange_rates";
 
+    private final ConditionalGet<Set<ExchangeRate>> exchangeRatesRequest =
+            new ConditionalGet<>(UpstreamWebClient.create("COINGECKO"), GET_EXCHANGE_RATES_URL);
+
     public CoinGecko(Environment env) {
         super(env, "COINGECKO", "coingecko", Duration.ofMinutes(1));
     }
 
     @Override
     public Set<ExchangeRate> doGet() {
+        return fetch().block(FETCH_TIMEOUT);
+    }
+
+    @Override
+    protected Mono<Set<ExchangeRate>> fetch() {
 
         // Rate limit for the CoinGecko API is 10 calls each second per IP address
         // We retrieve all rates in bulk, so we only make 1 call per provider poll
 
-        Set<ExchangeRate> result = new HashSet<ExchangeRate>();
-
-        Predicate<Map.Entry> isDesiredFiatPair = t -> getSupportedFiatCurrencies().contains(t.getKey());
-        Predicate<Map.Entry> isDesiredCryptoPair = t -> getSupportedCryptoCurrencies().contains(t.getKey());
-
-        Map<String, CoinGeckoTicker> rates = getMarketData().getRates();
-        rates.entrySet().stream()
-                .filter(isDesiredFiatPair.or(isDesiredCryptoPair))
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue))
-                .forEach((key, ticker) -> {
-
-                    boolean useInverseRate = getSupportedCryptoCurrencies().contains(key);
-                    // Use inverse rate for alts, because the API returns the
-                    // conversion rate in the opposite direction than what we need
-                    // API returns the BTC/Alt rate, we need the Alt/BTC rate
-
-                    BigDecimal rate = ticker.getValue();
-                    // Find the inverse rate, while using enough decimals to reflect very
-                    // small exchange rates
-                    BigDecimal inverseRate = (rate.compareTo(BigDecimal.ZERO) > 0) ?
-                            BigDecimal.ONE.divide(rate, 8, RoundingMode.HALF_UP) :
-                            BigDecimal.ZERO;
-
-                    result.add(new ExchangeRate(
-                            key,
-                            (useInverseRate ? inverseRate : rate),
-                            new Date(),
-                            this.getName()
-                    ));
-                });
-        return result;
-    }
-
-    private CoinGeckoMarketData getMarketData() {
-        return WebClient.create().get()
-                .uri(CoinGecko.GET_EXCHANGE_RATES_URL)
-                .accept(MediaType.APPLICATION_JSON)
-                .retrieve()
-                .bodyToMono(CoinGeckoMarketData.class)
-                .block(Duration.of(30, ChronoUnit.SECONDS));
+        // The document holds every currency CoinGecko knows about, only the supported
+        // ones are picked out of the stream
+        Set<String> supportedFiatCurrencies = getSupportedFiatCurrencies();
+        Set<String> supportedCryptoCurrencies = getSupportedCryptoCurrencies();
+        return exchangeRatesRequest.get(body -> StreamingJsonDecoder.decode(body,
+                () -> new CoinGeckoRatesHandler(supportedFiatCurrencies, supportedCryptoCurrencies, getName())));
     }
 }
@@ -19,19 +19,18 @@ package bisq.price.spot.providers;
 
 import bisq.price.spot.ExchangeRate;
 import bisq.price.spot.ExchangeRateProvider;
-import bisq.price.util.cryptoya.CryptoYaTicker;
-import org.springframework.core.ParameterizedTypeReference;
+import bisq.price.util.cryptoya.CryptoYaRatesHandler;
+import bisq.price.util.http.ConditionalGet;
+import bisq.price.util.http.UpstreamWebClient;
+import bisq.price.util.json.StreamingJsonDecoder;
 import org.springframework.core.env.Environment;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
 import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
-import java.util.*;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 /**
  * CryptoYa is used only for Argentina Peso (ARS).
@@ -68,7 +67,8 @@ public class CryptoYa extends ExchangeRateProvider implements BlueRateProvider {
 
     private static final String CRYPTO_YA_BTC_ARS_API_URL = "https://criptoya.com/api/btc/ars/0.1";
 
-    private final WebClient webClient = WebClient.create();
+    private final ConditionalGet<Set<ExchangeRate>> arsBlueMarketRequest =
+            new ConditionalGet<>(UpstreamWebClient.create(PROVIDER_NAME), CRYPTO_YA_BTC_ARS_API_URL);
 
     public CryptoYa(Environment env) {
         super(env, PROVIDER_NAME, "cryptoya", Duration.ofMinutes(1));
@@ -80,35 +80,15 @@ public class CryptoYa extends ExchangeRateProvider implements BlueRateProvider {
      */
     @Override
     public Set<ExchangeRate> doGet() {
-        Map<String, CryptoYaTicker> cryptoYaMarketData = fetchArsBlueMarketData();
+        return fetch().block(FETCH_TIMEOUT);
+    }
 
+    @Override
+    protected Mono<Set<ExchangeRate>> fetch() {
         Instant yesterdayInstant = Instant.now()
                 .minus(1, ChronoUnit.DAYS);
 
-        return cryptoYaMarketData.entrySet()
-                .stream()
-                .map(cryptoYaEntryToExchangeRate(yesterdayInstant))
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(Collectors.toUnmodifiableSet());
-    }
-
-    private Map<String, CryptoYaTicker> fetchArsBlueMarketData() {
-        return webClient.get()
-                .uri(CRYPTO_YA_BTC_ARS_API_URL)
-                .accept(MediaType.APPLICATION_JSON)
-                .retrieve()
-                .bodyToMono(new ParameterizedTypeReference<Map<String, CryptoYaTicker>>() {
-                })
-                .block(Duration.of(30, ChronoUnit.SECONDS));
-    }
-
-    private Function<Map.Entry<String, CryptoYaTicker>, Optional<ExchangeRate>> cryptoYaEntryToExchangeRate(
-            Instant newerThanInstant) {
-        return entry -> {
-            String exchangeName = entry.getKey();
-            CryptoYaTicker ticker = entry.getValue();
-            return ticker.toExchangeRate(exchangeName, newerThanInstant);
-        };
+        return arsBlueMarketRequest.get(body -> StreamingJsonDecoder.decode(body,
+                () -> new CryptoYaRatesHandler(EXCHANGE_NAME_WHITELIST, yesterdayInstant, PROVIDER_NAME)));
     }
 }
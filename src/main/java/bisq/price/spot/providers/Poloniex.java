@@ -19,12 +19,14 @@ package bisq.price.spot.providers;
 
 import bisq.price.spot.ExchangeRate;
 import bisq.price.spot.ExchangeRateProvider;
+import bisq.price.util.http.UpstreamWebClient;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import org.springframework.core.env.Environment;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.time.Duration;
@@ -39,13 +41,21 @@ class Poloniex extends ExchangeRateProvider {
             List.of("DASH", "DOGE", "ETC", "ETH", "LTC", "XMR", "ZEC");
     private static final String POLONIEX_URL = "https://api.poloniex.com/markets/price";
     private static final String PROVIDER_NAME = "POLO";
+
+    private final WebClient webClient = UpstreamWebClient.create(PROVIDER_NAME);
+
     public Poloniex(Environment env) {
         super(env, PROVIDER_NAME, "poloniex", Duration.ofMinutes(1));
     }
 
     @Override
     public Set<ExchangeRate> doGet() {
-        Flux<PoloniexTicker> poloniexTickerFlux = WebClient.create()
+        return fetch().block(FETCH_TIMEOUT);
+    }
+
+    @Override
+    protected Mono<Set<ExchangeRate>> fetch() {
+        Flux<PoloniexTicker> poloniexTickerFlux = webClient
                 .get()
                 .uri(POLONIEX_URL)
                 .accept(MediaType.APPLICATION_JSON)
@@ -54,8 +64,7 @@ class Poloniex extends ExchangeRateProvider {
 
         return poloniexTickerFlux.filter(PoloniexTicker::isSupportedCurrency)
                 .map(PoloniexTicker::toExchangeRate)
-                .collect(Collectors.toSet())
-                .block();
+                .collect(Collectors.toSet());
     }
 
     @JsonIgnoreProperties(ignoreUnknown = true)
@@ -19,22 +19,18 @@ package bisq.price.spot.providers;
 
 import bisq.price.spot.ExchangeRate;
 import bisq.price.spot.ExchangeRateProvider;
-import bisq.price.util.yadio.YadioTicker;
-import org.springframework.core.ParameterizedTypeReference;
+import bisq.price.util.http.ConditionalGet;
+import bisq.price.util.http.UpstreamWebClient;
+import bisq.price.util.json.StreamingJsonDecoder;
+import bisq.price.util.yadio.YadioRatesHandler;
 import org.springframework.core.env.Environment;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
 import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
-import java.util.Collections;
-import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
 /**
  * Yadio is used for "marginal market" currencies. Originally thought for:
@@ -63,7 +59,8 @@ class Yadio extends ExchangeRateProvider implements BlueRateProvider {
 
     private static final Set<String> YADIO_CURRENCIES_WHITELIST = Set.of("ARS", "BOB", "DOP", "EGP", "LBP", "PYG");
 
-    private final WebClient webClient = WebClient.create();
+    private final ConditionalGet<Set<ExchangeRate>> exchangeRatesRequest =
+            new ConditionalGet<>(UpstreamWebClient.create(PROVIDER_NAME), YADIO_EXCHANGES_API_ENDPOINT);
 
     public Yadio(Environment env) {
         super(env, PROVIDER_NAME, "yadio", Duration.ofMinutes(1));
@@ -74,69 +71,15 @@ class Yadio extends ExchangeRateProvider implements BlueRateProvider {
      */
     @Override
     public Set<ExchangeRate> doGet() {
-        YadioTicker yadioTicker = getYadioTicker();
+        return fetch().block(FETCH_TIMEOUT);
+    }
 
+    @Override
+    protected Mono<Set<ExchangeRate>> fetch() {
         Instant yesterdayInstant = Instant.now()
                 .minus(1, ChronoUnit.DAYS);
 
-        if (!yadioTicker.isValid(yesterdayInstant)) {
-            return Collections.emptySet();
-        }
-
-        return yadioTicker.getUSD().entrySet()
-                .stream()
-                .filter(entry -> YADIO_CURRENCIES_WHITELIST.contains(entry.getKey()))
-                .map(yadioEntryToExchangeRate(yadioTicker))
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(Collectors.toUnmodifiableSet());
-    }
-
-    private YadioTicker getYadioTicker() {
-        Map<String, Object> yadioMarketData = fetchBaseMarketData();
-        // Had to manually parse the json to avoid a double request,
-        // won't pick the map structure properly of the USD field
-        YadioTicker yadioTicker = new YadioTicker();
-        yadioTicker.setBTC((Double) yadioMarketData.get("BTC"));
-        yadioTicker.setBase((String) yadioMarketData.get("base"));
-        yadioTicker.setTimestamp((Long) yadioMarketData.get("timestamp"));
-        @SuppressWarnings("unchecked")
-        Map<String, Double> usdMap = (Map<String, Double>) yadioMarketData.getOrDefault("USD", Collections.emptyMap());
-        yadioTicker.setUSD(usdMap);
-        return yadioTicker;
-    }
-
-    private Map<String, Object> fetchBaseMarketData() {
-        return webClient.get()
-                .uri(YADIO_EXCHANGES_API_ENDPOINT)
-                .accept(MediaType.APPLICATION_JSON)
-                .retrieve()
-                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
-                .block(Duration.of(30, ChronoUnit.SECONDS));
-    }
-
-    private Function<Map.Entry<String, Double>, Optional<ExchangeRate>> yadioEntryToExchangeRate(YadioTicker ticker) {
-        return entry -> {
-            try {
-                String currencySymbol = entry.getKey();
-                double priceInUSD = ((Number) entry.getValue()).doubleValue();
-                double priceInBTC = priceInUSD * ticker.getBTC();
-                return toExchangeRate(currencySymbol, priceInBTC, ticker.getTimestamp());
-            } catch (Exception e) {
-                log.error("Failed to parse price rate for currency {}", entry.getKey(), e);
-                return Optional.empty();
-            }
-        };
-    }
-
-    private Optional<ExchangeRate> toExchangeRate(String currencySymbol, double price, long timestamp) {
-        return Optional.of(
-                new ExchangeRate(
-                        currencySymbol,
-                        price,
-                        timestamp,
-                        Yadio.PROVIDER_NAME
-                )
-        );
+        return exchangeRatesRequest.get(body -> StreamingJsonDecoder.decode(body,
+                () -> new YadioRatesHandler(YADIO_CURRENCIES_WHITELIST, yesterdayInstant, PROVIDER_NAME)));
     }
 }
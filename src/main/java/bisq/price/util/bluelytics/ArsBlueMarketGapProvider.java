@@ -20,6 +20,7 @@ package bisq.price.util.bluelytics;
 import bisq.price.PriceProvider;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
 
 import java.time.Duration;
 import java.util.Optional;
@@ -49,8 +50,13 @@ public class ArsBlueMarketGapProvider extends PriceProvider<OptionalDouble> {
 
     @Override
     protected OptionalDouble doGet() {
-        OptionalDouble sellGapMultiplier = blueLyticsApi.getSellGapMultiplier();
-        onUpdateListener.ifPresent(listener -> listener.onUpdate(sellGapMultiplier));
-        return sellGapMultiplier;
+        return fetch().block(FETCH_TIMEOUT);
+    }
+
+    @Override
+    protected Mono<OptionalDouble> fetch() {
+        return blueLyticsApi.getSellGapMultiplier()
+                .doOnNext(sellGapMultiplier ->
+                        onUpdateListener.ifPresent(listener -> listener.onUpdate(sellGapMultiplier)));
     }
 }
@@ -17,25 +17,19 @@
 
 package bisq.price.util.bluelytics;
 
-import org.springframework.http.MediaType;
-import org.springframework.web.reactive.function.client.WebClient;
+import bisq.price.util.http.ConditionalGet;
+import bisq.price.util.http.UpstreamWebClient;
+import reactor.core.publisher.Mono;
 
-import java.time.Duration;
-import java.time.temporal.ChronoUnit;
 import java.util.OptionalDouble;
 
 public class BlueLyticsApi {
     private static final String API_URL = "https://api.bluelytics.com.ar/v2/latest";
-    private final WebClient webClient = WebClient.create();
+    private final ConditionalGet<OptionalDouble> latestRequest = new ConditionalGet<>(UpstreamWebClient.create("BLUELYTICS"), API_URL);
 
-    public OptionalDouble getSellGapMultiplier() {
-        BlueLyticsDto blueLyticsDto = webClient.get()
-                .uri(API_URL)
-                .accept(MediaType.APPLICATION_JSON)
-                .retrieve()
-                .bodyToMono(BlueLyticsDto.class)
-                .block(Duration.of(30, ChronoUnit.SECONDS));
-
-        return blueLyticsDto == null ? OptionalDouble.empty() : blueLyticsDto.gapSellMultiplier();
+    public Mono<OptionalDouble> getSellGapMultiplier() {
+        return latestRequest.get(ConditionalGet.jsonDecoder(BlueLyticsDto.class)
+                        .andThen(blueLyticsDto -> blueLyticsDto.map(BlueLyticsDto::gapSellMultiplier)))
+                .defaultIfEmpty(OptionalDouble.empty());
     }
 }
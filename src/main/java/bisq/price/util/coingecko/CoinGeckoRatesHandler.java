@@ -0,0 +1,110 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.util.coingecko;
+
+import bisq.price.spot.ExchangeRate;
+import bisq.price.util.json.StreamingJsonHandler;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Streams the CoinGecko {@code exchange_rates} document, which has the form
+ * <pre>{"rates": {"usd": {"name": "US Dollar", "unit": "$", "value": 67000.1, "type": "fiat"}, ...}}</pre>
+ * and keeps only the {@code value} of the currencies Bisq supports.
+ */
+public class CoinGeckoRatesHandler extends StreamingJsonHandler<Set<ExchangeRate>> {
+
+    private final Set<String> supportedFiatCurrencies;
+    private final Set<String> supportedCryptoCurrencies;
+    private final String providerName;
+    private final long timestamp = System.currentTimeMillis();
+    private final Set<ExchangeRate> result = new HashSet<>();
+
+    private String currentCurrency;
+    private BigDecimal currentValue;
+
+    public CoinGeckoRatesHandler(Set<String> supportedFiatCurrencies,
+                                 Set<String> supportedCryptoCurrencies,
+                                 String providerName) {
+        this.supportedFiatCurrencies = supportedFiatCurrencies;
+        this.supportedCryptoCurrencies = supportedCryptoCurrencies;
+        this.providerName = providerName;
+    }
+
+    @Override
+    protected boolean onField(int depth, String name) {
+        switch (depth) {
+            case 1:
+                return name.equals("rates");
+            case 2:
+                // Convert keys to uppercase ("usd" -> "USD")
+                String currency = name.toUpperCase(Locale.ROOT);
+                if (supportedFiatCurrencies.contains(currency) || supportedCryptoCurrencies.contains(currency)) {
+                    currentCurrency = currency;
+                    currentValue = null;
+                    return true;
+                }
+                return false;
+            case 3:
+                return name.equals("value");
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    protected void onValue(int depth, JsonToken token, JsonParser parser) throws IOException {
+        if (depth == 3 && token.isNumeric()) {
+            currentValue = parser.getDecimalValue();
+        }
+    }
+
+    @Override
+    protected void onEndObject(int depth) {
+        if (depth != 3 || currentValue == null) {
+            return;
+        }
+
+        // Use inverse rate for alts, because the API returns the
+        // conversion rate in the opposite direction than what we need
+        // API returns the BTC/Alt rate, we need the Alt/BTC rate
+        BigDecimal rate = currentValue;
+        if (supportedCryptoCurrencies.contains(currentCurrency)) {
+            // Find the inverse rate, while using enough decimals to reflect very
+            // small exchange rates
+            rate = (rate.compareTo(BigDecimal.ZERO) > 0) ?
+                    BigDecimal.ONE.divide(rate, 8, RoundingMode.HALF_UP) :
+                    BigDecimal.ZERO;
+        }
+
+        result.add(new ExchangeRate(currentCurrency, rate.doubleValue(), timestamp, providerName));
+        currentValue = null;
+    }
+
+    @Override
+    protected Set<ExchangeRate> getResult() {
+        return result;
+    }
+}
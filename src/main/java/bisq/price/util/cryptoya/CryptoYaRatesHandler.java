@@ -0,0 +1,104 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.util.cryptoya;
+
+import bisq.price.spot.ExchangeRate;
+import bisq.price.util.json.StreamingJsonHandler;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Streams the CryptoYa BTC/ARS document, which has the form
+ * <pre>{"argenbtc": {"ask": 1.0E7, "totalAsk": 1.0E7, "bid": 9.9E6, "totalBid": 9.9E6, "time": 1700000000}, ...}</pre>
+ * and keeps only the ask price of whitelisted exchanges.
+ */
+public class CryptoYaRatesHandler extends StreamingJsonHandler<Set<ExchangeRate>> {
+
+    private final Set<String> exchangeNameWhitelist;
+    private final Instant newerThan;
+    private final String providerName;
+    private final long timestamp = System.currentTimeMillis();
+    private final Set<ExchangeRate> result = new HashSet<>();
+
+    private String currentExchange;
+    private String currentField;
+    private double ask;
+    private long time;
+
+    public CryptoYaRatesHandler(Set<String> exchangeNameWhitelist, Instant newerThan, String providerName) {
+        this.exchangeNameWhitelist = exchangeNameWhitelist;
+        this.newerThan = newerThan;
+        this.providerName = providerName;
+    }
+
+    @Override
+    protected boolean onField(int depth, String name) {
+        if (depth == 1) {
+            if (!exchangeNameWhitelist.contains(name)) {
+                return false;
+            }
+            currentExchange = name;
+            ask = 0;
+            time = 0;
+            return true;
+        }
+        if (depth == 2 && (name.equals("ask") || name.equals("time"))) {
+            currentField = name;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    protected void onValue(int depth, JsonToken token, JsonParser parser) throws IOException {
+        if (depth != 2 || !token.isNumeric()) {
+            return;
+        }
+        if (currentField.equals("ask")) {
+            ask = parser.getDoubleValue();
+        } else {
+            time = parser.getLongValue();
+        }
+    }
+
+    @Override
+    protected void onEndObject(int depth) {
+        if (depth != 2 || isTooOld() || isAskZeroOrNegative()) {
+            return;
+        }
+        result.add(new ExchangeRate("ARS", ask, timestamp, providerName + ": " + currentExchange));
+    }
+
+    private boolean isTooOld() {
+        return time <= newerThan.getEpochSecond();
+    }
+
+    private boolean isAskZeroOrNegative() {
+        return ask <= 0;
+    }
+
+    @Override
+    protected Set<ExchangeRate> getResult() {
+        return result;
+    }
+}
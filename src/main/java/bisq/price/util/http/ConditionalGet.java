@@ -0,0 +1,201 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.util.http;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Repeated GET of a single upstream resource which avoids decoding data that has not
+ * changed since the previous request.
+ *
+ * <p>The {@code ETag} and {@code Last-Modified} validators of the last decoded response
+ * are sent back as {@code If-None-Match} and {@code If-Modified-Since}. If the upstream
+ * answers {@code 304 Not Modified}, or sends a body whose hash equals the previous one,
+ * the previously decoded result is returned as is, i.e. the very same object. Consumers
+ * can therefore detect "no change" with an identity comparison.</p>
+ *
+ * <p>Decoded results carry the time they were decoded as their timestamp in several
+ * providers, so a result is only reused for {@link #MAX_REUSE_AGE}. After that the
+ * upstream data is decoded again, which keeps the rates well clear of the stale price
+ * interval.</p>
+ *
+ * @param <T> type of the decoded result
+ */
+@Slf4j
+public class ConditionalGet<T> {
+
+    public static final Duration MAX_REUSE_AGE = Duration.ofMinutes(5);
+
+    private static final int MAX_BODY_SIZE = 4 * 1024 * 1024;
+    private static final Jackson2JsonDecoder JSON_DECODER = new Jackson2JsonDecoder();
+
+    private record Decoded<T>(String eTag, String lastModified, byte[] bodyHash, T result, long decodedAt) {
+    }
+
+    private final WebClient webClient;
+    private final String uri;
+    private final LongSupplier clock;
+
+    private volatile Decoded<T> lastDecoded;
+
+    public ConditionalGet(WebClient webClient, String uri) {
+        this(webClient, uri, System::currentTimeMillis);
+    }
+
+    // Visible for testing the reuse age
+    ConditionalGet(WebClient webClient, String uri, LongSupplier clock) {
+        this.webClient = webClient;
+        this.uri = uri;
+        this.clock = clock;
+    }
+
+    /**
+     * @param decoder decodes a (possibly chunked) JSON response body
+     */
+    public Mono<T> get(Function<Flux<DataBuffer>, Mono<T>> decoder) {
+        Decoded<T> previous = lastDecoded;
+        Decoded<T> reusable = previous != null &&
+                clock.getAsLong() - previous.decodedAt() < MAX_REUSE_AGE.toMillis() ? previous : null;
+
+        return webClient.get()
+                .uri(uri)
+                .accept(MediaType.APPLICATION_JSON)
+                .headers(headers -> {
+                    if (reusable != null && reusable.eTag() != null) {
+                        headers.setIfNoneMatch(reusable.eTag());
+                    }
+                    if (reusable != null && reusable.lastModified() != null) {
+                        headers.set(HttpHeaders.IF_MODIFIED_SINCE, reusable.lastModified());
+                    }
+                })
+                .exchangeToMono(response -> {
+                    if (reusable != null && response.statusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+                        log.debug("{} not modified", uri);
+                        return response.releaseBody().thenReturn(reusable.result());
+                    }
+                    if (response.statusCode().isError()) {
+                        return response.createError();
+                    }
+                    return decodeIfChanged(response, reusable, decoder);
+                });
+    }
+
+    /**
+     * Hashes the body while it streams into the decoder, so it is never held in memory
+     * as a whole. The body has to be decoded before its hash is known, if it turns out
+     * to be unchanged the freshly decoded result is discarded in favour of the previous
+     * one.
+     */
+    private Mono<T> decodeIfChanged(ClientResponse response,
+                                    Decoded<T> reusable,
+                                    Function<Flux<DataBuffer>, Mono<T>> decoder) {
+        HttpHeaders headers = response.headers().asHttpHeaders();
+        String eTag = headers.getETag();
+        String lastModified = headers.getFirst(HttpHeaders.LAST_MODIFIED);
+
+        return Mono.defer(() -> {
+            MessageDigest digest = sha256();
+            long[] bodySize = new long[1];
+            // Hashed before the decoder consumes and releases the buffers
+            Flux<DataBuffer> body = response.bodyToFlux(DataBuffer.class)
+                    .doOnNext(buffer -> {
+                        bodySize[0] += buffer.readableByteCount();
+                        if (bodySize[0] > MAX_BODY_SIZE) {
+                            DataBufferUtils.release(buffer);
+                            throw new DataBufferLimitException("Response body of " + uri +
+                                    " exceeds " + MAX_BODY_SIZE + " bytes");
+                        }
+                        update(digest, buffer);
+                    });
+
+            return decoder.apply(body)
+                    .singleOptional()
+                    .flatMap(result -> {
+                        byte[] bodyHash = digest.digest();
+                        if (reusable != null && Arrays.equals(bodyHash, reusable.bodyHash())) {
+                            log.debug("{} unchanged", uri);
+                            // Validators may have been added or rotated, the data itself was not
+                            lastDecoded = new Decoded<>(eTag, lastModified, bodyHash, reusable.result(),
+                                    reusable.decodedAt());
+                            return Mono.justOrEmpty(reusable.result());
+                        }
+                        result.ifPresent(decoded -> lastDecoded =
+                                new Decoded<>(eTag, lastModified, bodyHash, decoded, clock.getAsLong()));
+                        return Mono.justOrEmpty(result);
+                    });
+        });
+    }
+
+    /**
+     * @return decoder binding the whole JSON body to the given type, for small payloads
+     * which do not need a {@link bisq.price.util.json.StreamingJsonDecoder}
+     */
+    public static <D> Function<Flux<DataBuffer>, Mono<D>> jsonDecoder(Class<D> type) {
+        return body -> decodeJson(body, ResolvableType.forClass(type));
+    }
+
+    public static <D> Function<Flux<DataBuffer>, Mono<D>> jsonDecoder(ParameterizedTypeReference<D> type) {
+        return body -> decodeJson(body, ResolvableType.forType(type));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <D> Mono<D> decodeJson(Flux<DataBuffer> body, ResolvableType type) {
+        return JSON_DECODER.decodeToMono(body, type, MediaType.APPLICATION_JSON, Collections.emptyMap())
+                .map(decoded -> (D) decoded);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void update(MessageDigest digest, DataBuffer buffer) {
+        // The iterated byte buffers are views, reading them leaves the buffer to the decoder
+        try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+            while (iterator.hasNext()) {
+                ByteBuffer byteBuffer = iterator.next();
+                digest.update(byteBuffer);
+            }
+        }
+    }
+}
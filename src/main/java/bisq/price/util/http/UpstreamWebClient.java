@@ -0,0 +1,132 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.util.http;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.ZlibCodecFactory;
+import io.netty.handler.codec.compression.ZlibWrapper;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates the {@link WebClient}s used to poll upstream price and fee APIs.
+ *
+ * <p>Every request asks for a gzip encoded response. Compressed bodies are inflated
+ * chunk by chunk as they arrive, so the rest of the pipeline (e.g. the
+ * {@link bisq.price.util.json.StreamingJsonDecoder}) keeps working on a stream of
+ * buffers and never sees the whole payload at once.</p>
+ *
+ * <p>The bytes received over the wire and the bytes after decompression are counted
+ * per upstream, as {@value #RECEIVED_BYTES_METRIC} and {@value #DECODED_BYTES_METRIC}.
+ * The difference is the bandwidth saved by compression.</p>
+ */
+public final class UpstreamWebClient {
+
+    public static final String RECEIVED_BYTES_METRIC = "pricenode.upstream.received.bytes";
+    public static final String DECODED_BYTES_METRIC = "pricenode.upstream.decoded.bytes";
+
+    private static final NettyDataBufferFactory BUFFER_FACTORY = new NettyDataBufferFactory(ByteBufAllocator.DEFAULT);
+
+    private UpstreamWebClient() {
+    }
+
+    /**
+     * @param upstreamName name under which the transferred bytes are reported
+     */
+    public static WebClient create(String upstreamName) {
+        Counter receivedBytes = Counter.builder(RECEIVED_BYTES_METRIC)
+                .description("Response body bytes received from the upstream, before decompression")
+                .baseUnit("bytes")
+                .tag("upstream", upstreamName)
+                .register(Metrics.globalRegistry);
+        Counter decodedBytes = Counter.builder(DECODED_BYTES_METRIC)
+                .description("Response body bytes received from the upstream, after decompression")
+                .baseUnit("bytes")
+                .tag("upstream", upstreamName)
+                .register(Metrics.globalRegistry);
+
+        return WebClient.builder()
+                .defaultHeader(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .filter(ExchangeFilterFunction.ofResponseProcessor(response ->
+                        Mono.just(decompressing(response, receivedBytes, decodedBytes))))
+                .build();
+    }
+
+    private static ClientResponse decompressing(ClientResponse response, Counter receivedBytes, Counter decodedBytes) {
+        boolean gzipped = "gzip".equalsIgnoreCase(
+                response.headers().asHttpHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+
+        return response.mutate()
+                .headers(headers -> {
+                    if (gzipped) {
+                        // The body handed to decoders is no longer the one these described
+                        headers.remove(HttpHeaders.CONTENT_ENCODING);
+                        headers.remove(HttpHeaders.CONTENT_LENGTH);
+                    }
+                })
+                .body(body -> {
+                    Flux<DataBuffer> received = body.doOnNext(buffer -> receivedBytes.increment(buffer.readableByteCount()));
+                    Flux<DataBuffer> decoded = gzipped ? gunzip(received) : received;
+                    return decoded.doOnNext(buffer -> decodedBytes.increment(buffer.readableByteCount()));
+                })
+                .build();
+    }
+
+    /**
+     * Inflates a gzip stream incrementally with Netty's zlib decoder, the same one Netty's
+     * own HTTP content decompressor uses.
+     */
+    static Flux<DataBuffer> gunzip(Flux<DataBuffer> compressed) {
+        return Flux.defer(() -> {
+            EmbeddedChannel decoder = new EmbeddedChannel(ZlibCodecFactory.newZlibDecoder(ZlibWrapper.GZIP));
+            return compressed
+                    .concatMapIterable(buffer -> {
+                        // Ownership of the buffer passes to the decoder, which releases it
+                        decoder.writeInbound(NettyDataBufferFactory.toByteBuf(buffer));
+                        return readInflated(decoder);
+                    })
+                    .concatWith(Flux.defer(() -> {
+                        decoder.finish();
+                        return Flux.fromIterable(readInflated(decoder));
+                    }))
+                    .doFinally(signal -> decoder.finishAndReleaseAll());
+        });
+    }
+
+    private static List<DataBuffer> readInflated(EmbeddedChannel decoder) {
+        List<DataBuffer> inflated = new ArrayList<>(2);
+        ByteBuf byteBuf;
+        while ((byteBuf = decoder.readInbound()) != null) {
+            inflated.add(BUFFER_FACTORY.wrap(byteBuf));
+        }
+        return inflated;
+    }
+}
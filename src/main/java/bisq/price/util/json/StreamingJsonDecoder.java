@@ -0,0 +1,105 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.util.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.function.Supplier;
+
+/**
+ * Decodes a JSON response body while it is still arriving. Each {@link DataBuffer}
+ * received from the HTTP client is fed into Jackson's non-blocking parser and released
+ * right away, and the resulting tokens are passed to a {@link StreamingJsonHandler}.
+ * Neither the full payload nor a tree or map representation of it is ever held in
+ * memory.
+ */
+public final class StreamingJsonDecoder {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private StreamingJsonDecoder() {
+    }
+
+    public static <T> Mono<T> decode(Flux<DataBuffer> body,
+                                     Supplier<? extends StreamingJsonHandler<T>> handlerSupplier) {
+        return Mono.defer(() -> {
+            StreamingJsonHandler<T> handler = handlerSupplier.get();
+            JsonParser parser;
+            try {
+                parser = JSON_FACTORY.createNonBlockingByteBufferParser();
+            } catch (IOException e) {
+                return Mono.error(e);
+            }
+            ByteBufferFeeder feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+
+            return body
+                    .doOnNext(dataBuffer -> {
+                        try (DataBuffer.ByteBufferIterator iterator = dataBuffer.readableByteBuffers()) {
+                            while (iterator.hasNext()) {
+                                feed(feeder, iterator.next(), parser, handler);
+                            }
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        } finally {
+                            DataBufferUtils.release(dataBuffer);
+                        }
+                    })
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                    .then(Mono.fromCallable(() -> {
+                        feeder.endOfInput();
+                        drain(parser, handler);
+                        return handler.getResult();
+                    }))
+                    .doFinally(signal -> closeQuietly(parser));
+        });
+    }
+
+    private static <T> void feed(ByteBufferFeeder feeder,
+                                 ByteBuffer byteBuffer,
+                                 JsonParser parser,
+                                 StreamingJsonHandler<T> handler) throws IOException {
+        feeder.feedInput(byteBuffer);
+        // The feeder only accepts new input once the previous chunk is fully consumed,
+        // which is the case as soon as the parser reports NOT_AVAILABLE
+        drain(parser, handler);
+    }
+
+    private static <T> void drain(JsonParser parser, StreamingJsonHandler<T> handler) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            handler.handle(token, parser);
+        }
+    }
+
+    private static void closeQuietly(JsonParser parser) {
+        try {
+            parser.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
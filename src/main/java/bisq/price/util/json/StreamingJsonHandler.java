@@ -0,0 +1,93 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.util.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * Token-level callback used by {@link StreamingJsonDecoder}. Implementations decide, per
+ * field name, whether its value is of interest. Values of uninteresting fields (scalars
+ * as well as whole nested objects and arrays) are skipped by the tokenizer without being
+ * materialized, so a large upstream document can be reduced to a handful of
+ * {@code ExchangeRate}s without building intermediate DTO maps.
+ *
+ * <p>Depth is 1-based: fields of the root object are reported at depth 1, fields of an
+ * object nested in the root at depth 2, and so on. A handler instance is used for a
+ * single document only.</p>
+ *
+ * @param <T> type of the decoded result
+ */
+public abstract class StreamingJsonHandler<T> {
+
+    private int depth;
+    // depth at which the currently skipped structure was opened, -1 if not skipping
+    private int skipDepth = -1;
+    private boolean skipNextValue;
+
+    final void handle(JsonToken token, JsonParser parser) throws IOException {
+        if (skipDepth >= 0) {
+            if (token.isStructStart()) {
+                depth++;
+            } else if (token.isStructEnd() && --depth == skipDepth) {
+                skipDepth = -1;
+            }
+            return;
+        }
+
+        if (skipNextValue) {
+            skipNextValue = false;
+            if (token.isStructStart()) {
+                skipDepth = depth++;
+            }
+            return;
+        }
+
+        switch (token) {
+            case START_OBJECT, START_ARRAY -> depth++;
+            case END_OBJECT -> onEndObject(depth--);
+            case END_ARRAY -> depth--;
+            case FIELD_NAME -> skipNextValue = !onField(depth, parser.currentName());
+            default -> onValue(depth, token, parser);
+        }
+    }
+
+    /**
+     * @return true if the value of the given field should be reported, false to skip it
+     */
+    protected abstract boolean onField(int depth, String name) throws IOException;
+
+    /**
+     * Called for every scalar value which was not skipped. The value can be read from
+     * the parser, e.g. with {@link JsonParser#getDoubleValue()}.
+     */
+    protected abstract void onValue(int depth, JsonToken token, JsonParser parser) throws IOException;
+
+    /**
+     * Called when an object which was not skipped is closed.
+     */
+    protected void onEndObject(int depth) {
+    }
+
+    /**
+     * @return the decoded result, called once the whole document has been parsed
+     */
+    protected abstract T getResult();
+}
@@ -0,0 +1,112 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.util.yadio;
+
+import bisq.price.spot.ExchangeRate;
+import bisq.price.util.json.StreamingJsonHandler;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Streams the Yadio {@code exrates} document, which has the form
+ * <pre>{"USD": {"ARS": 1000.5, ...}, "BTC": 67000.1, "base": "USD", "timestamp": 1700000000000}</pre>
+ * and keeps only the USD prices of the whitelisted currencies. As the BTC price and the
+ * timestamp may follow the USD map, the few whitelisted prices are buffered in primitive
+ * arrays until the end of the document.
+ */
+public class YadioRatesHandler extends StreamingJsonHandler<Set<ExchangeRate>> {
+
+    private final Set<String> currenciesWhitelist;
+    private final Instant newerThan;
+    private final String providerName;
+
+    private final String[] currencies;
+    private final double[] pricesInUSD;
+    private int count;
+
+    private String currentField;
+    private double btcPriceInUSD = Double.NaN;
+    private String base;
+    private long timestamp;
+
+    public YadioRatesHandler(Set<String> currenciesWhitelist, Instant newerThan, String providerName) {
+        this.currenciesWhitelist = currenciesWhitelist;
+        this.newerThan = newerThan;
+        this.providerName = providerName;
+        this.currencies = new String[currenciesWhitelist.size()];
+        this.pricesInUSD = new double[currenciesWhitelist.size()];
+    }
+
+    @Override
+    protected boolean onField(int depth, String name) {
+        if (depth == 1) {
+            currentField = name;
+            return name.equals("USD") || name.equals("BTC") || name.equals("base") || name.equals("timestamp");
+        }
+        if (depth == 2 && "USD".equals(currentField) && count < currencies.length && currenciesWhitelist.contains(name)) {
+            currencies[count] = name;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    protected void onValue(int depth, JsonToken token, JsonParser parser) throws IOException {
+        if (depth == 2) {
+            if (token.isNumeric()) {
+                pricesInUSD[count++] = parser.getDoubleValue();
+            }
+            return;
+        }
+
+        switch (currentField) {
+            case "BTC" -> btcPriceInUSD = token.isNumeric() ? parser.getDoubleValue() : Double.NaN;
+            case "base" -> base = parser.getText();
+            case "timestamp" -> timestamp = token.isNumeric() ? parser.getLongValue() : 0;
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * @return true if not too old and prices are based in USD, false otherwise
+     */
+    private boolean isValid() {
+        return "USD".equals(base) && timestamp > newerThan.toEpochMilli() && !Double.isNaN(btcPriceInUSD);
+    }
+
+    @Override
+    protected Set<ExchangeRate> getResult() {
+        if (!isValid()) {
+            return Collections.emptySet();
+        }
+
+        Set<ExchangeRate> result = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            double priceInBTC = pricesInUSD[i] * btcPriceInUSD;
+            result.add(new ExchangeRate(currencies[i], priceInBTC, timestamp, providerName));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RefreshLaneTest {
+
+    @Test
+    public void named_returnsSharedLane() {
+        assertSame(RefreshLane.named("shared-lane"), RefreshLane.named("shared-lane"));
+    }
+
+    @Test
+    public void saturatedLane_rejectsInsteadOfQueueing() throws InterruptedException {
+        RefreshLane lane = RefreshLane.named("saturated-lane");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch hung = new CountDownLatch(1);
+
+        // Occupy the single worker, like a hung upstream would
+        Mono.fromRunnable(() -> {
+            started.countDown();
+            awaitQuietly(hung);
+        }).subscribeOn(lane.getScheduler()).subscribe();
+        started.await();
+
+        // One more refresh may wait in the queue ...
+        Mono.fromRunnable(() -> { }).subscribeOn(lane.getScheduler()).subscribe();
+        assertEquals(1, lane.getActiveCount());
+        assertEquals(RefreshLane.QUEUE_LIMIT, lane.getQueuedCount());
+
+        // ... but anything beyond that fails fast
+        Mono<Object> rejected = Mono.fromCallable(() -> (Object) "never").subscribeOn(lane.getScheduler());
+        assertThrows(RejectedExecutionException.class, () -> rejected.block(Duration.ofSeconds(5)));
+
+        hung.countDown();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalDouble;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class InlierStatisticsTest {
+
+    private static final double[] PERCENTS_TO_TRIM = {0, 5, 10, 25, 49, 50};
+
+    @Test
+    public void compute_isNumericallyIdenticalToInlierUtil() {
+        Random random = new Random(21);
+        InlierStatistics statistics = new InlierStatistics();
+
+        for (int i = 0; i < 20_000; i++) {
+            int count = 1 + random.nextInt(40);
+            double[] values = randomPrices(random, count);
+            double percentToTrim = PERCENTS_TO_TRIM[random.nextInt(PERCENTS_TO_TRIM.length)];
+            double howManyStdDevs = 0.5 + 2 * random.nextDouble();
+
+            List<Double> yValues = new ArrayList<>();
+            for (double value : values) {
+                yValues.add(value);
+            }
+            Tuple2<Double, Double> range = InlierUtil.findInlierRange(yValues, percentToTrim, howManyStdDevs);
+            OptionalDouble inlierMean = yValues.stream().mapToDouble(Double::doubleValue)
+                    .filter(value -> value >= range.first && value <= range.second)
+                    .average();
+
+            statistics.compute(values, count, percentToTrim, howManyStdDevs);
+
+            // assertEquals on doubles compares the exact bits
+            assertEquals(range.first, statistics.getInlierMin());
+            assertEquals(range.second, statistics.getInlierMax());
+            assertEquals(inlierMean.orElse(Double.NaN), statistics.getInlierMean());
+            assertEquals(yValues.stream().mapToDouble(Double::doubleValue).average().orElse(Double.NaN),
+                    InlierStatistics.mean(values, count));
+        }
+    }
+
+    @Test
+    public void compute_vectorKernelAgreesWithScalar() {
+        assumeTrue(InlierStatistics.isVectorKernelAvailable(), "Run with -PvectorKernel");
+        Random random = new Random(37);
+        InlierStatistics scalar = new InlierStatistics();
+        InlierStatistics vectorized = InlierStatistics.vectorized();
+
+        for (int i = 0; i < 20_000; i++) {
+            // Cover lengths below, at and beyond whole vectors
+            int count = 1 + random.nextInt(200);
+            double[] values = randomPrices(random, count);
+            double percentToTrim = PERCENTS_TO_TRIM[random.nextInt(PERCENTS_TO_TRIM.length)];
+            double howManyStdDevs = 0.5 + 2 * random.nextDouble();
+
+            scalar.compute(values, count, percentToTrim, howManyStdDevs);
+            vectorized.compute(values, count, percentToTrim, howManyStdDevs);
+
+            assertEquals(scalar.getTrimmedMin(), vectorized.getTrimmedMin());
+            assertEquals(scalar.getTrimmedMax(), vectorized.getTrimmedMax());
+            assertEquals(scalar.getMean(), vectorized.getMean(), Math.abs(scalar.getMean()) * 1e-12);
+            assertEquals(scalar.getStandardDeviation(), vectorized.getStandardDeviation(),
+                    Math.abs(scalar.getMean()) * 1e-6);
+            assertEquals(scalar.getInlierCount(), vectorized.getInlierCount());
+            assertEquals(scalar.getInlierMin(), vectorized.getInlierMin());
+            assertEquals(scalar.getInlierMax(), vectorized.getInlierMax());
+            assertEquals(scalar.getInlierMean(), vectorized.getInlierMean(), Math.abs(scalar.getMean()) * 1e-12);
+        }
+    }
+
+    @Test
+    public void compute_ignoresValuesBeyondCount() {
+        double[] values = {100, 101, 99, 100, 1_000_000};
+        InlierStatistics statistics = new InlierStatistics().compute(values, 4, 0, 1.1);
+
+        assertEquals(100, statistics.getMean());
+        assertTrue(statistics.getInlierMax() < 1_000_000);
+    }
+
+    @Test
+    public void compute_rejectsInvalidArguments() {
+        InlierStatistics statistics = new InlierStatistics();
+        double[] values = {1, 2, 3};
+
+        assertThrows(IllegalArgumentException.class, () -> statistics.compute(values, 3, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> statistics.compute(values, 3, 51, 1));
+    }
+
+    private static double[] randomPrices(Random random, int count) {
+        double[] values = new double[count];
+        double base = 100_000 * random.nextDouble();
+        for (int i = 0; i < count; i++) {
+            // Mostly close to the base price, with the odd outlier
+            values[i] = random.nextInt(10) == 0
+                    ? base * 3 * random.nextDouble()
+                    : base * (1 + 0.01 * random.nextGaussian());
+        }
+        return values;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class QuickSelectTest {
+
+    @Test
+    public void select_matchesSortedOrder() {
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            int count = 1 + random.nextInt(50);
+            // Include many duplicates and presorted input, the classic worst cases
+            double[] values = new double[count];
+            for (int j = 0; j < count; j++) {
+                values[j] = switch (i % 3) {
+                    case 0 -> random.nextDouble();
+                    case 1 -> random.nextInt(3);
+                    default -> j;
+                };
+            }
+            double[] sorted = values.clone();
+            Arrays.sort(sorted);
+            int k = random.nextInt(count);
+
+            double[] selected = values.clone();
+            assertEquals(sorted[k], QuickSelect.select(selected, 0, count, k));
+            for (int j = 0; j < count; j++) {
+                assertTrue(j < k ? selected[j] <= sorted[k] : selected[j] >= sorted[k]);
+            }
+        }
+    }
+
+    @Test
+    public void median_oddAndEvenCounts() {
+        assertEquals(2, QuickSelect.median(new double[]{3, 1, 2}, 3));
+        assertEquals(2.5, QuickSelect.median(new double[]{4, 1, 3, 2}, 4));
+        // Only the first count values are considered
+        assertEquals(1.5, QuickSelect.median(new double[]{2, 1, 100}, 2));
+        assertTrue(Double.isNaN(QuickSelect.median(new double[0], 0)));
+    }
+
+    @Test
+    public void select_rejectsIndexOutsideOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> QuickSelect.select(new double[]{1, 2}, 0, 2, 2));
+    }
+}
@@ -2,10 +2,13 @@ package bisq.price.mining;
 
 import bisq.price.common.config.Config;
 import bisq.price.mining.providers.MempoolFeeRateProviderTest;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -16,6 +19,8 @@ import static bisq.price.mining.providers.MempoolFeeRateProviderTest.buildDummyU
 import static java.util.Arrays.asList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 /**
  * Tests the {@link bisq.price.mining.FeeRateService}, which can aggregate data from
@@ -92,6 +97,25 @@ public class FeeRateServiceTest {
         doSanityChecksForRetrievedData(retrievedData, FeeRateProvider.MIN_FEE_RATE_FOR_TRADING * 2);
     }
 
+    @Test
+    public void getFees_recomputedOnlyWhenProviderRefreshes() throws Exception {
+        FeeRateProvider provider = buildDummyReachableMempoolFeeRateProvider(FeeRateProvider.MIN_FEE_RATE_FOR_TRADING * 2);
+        FeeRateService service = new FeeRateService(Collections.singletonList(provider));
+
+        Map<String, Object> retrievedData = service.getFees();
+        assertSame(retrievedData, service.getFees());
+
+        provider.put(new FeeRate("BTC", FeeRateProvider.MIN_FEE_RATE_FOR_TRADING * 3,
+                FeeRateProvider.MIN_FEE_RATE_FOR_WITHDRAWAL, Instant.now().getEpochSecond()));
+        Map<String, Object> refreshedData = service.getFees();
+        assertNotSame(retrievedData, refreshedData);
+        doSanityChecksForRetrievedData(refreshedData, FeeRateProvider.MIN_FEE_RATE_FOR_TRADING * 3);
+
+        // The JSON is encoded along with the fees
+        assertEquals(new ObjectMapper().writeValueAsString(refreshedData),
+                new String(service.getFeesJson(), StandardCharsets.UTF_8));
+    }
+
     /**
      * Performs a few basic sanity checks on the returned data object
      */
@@ -0,0 +1,110 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.mining;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FeeRoundTest {
+
+    private static final Duration HEDGE_DELAY = Duration.ofMillis(200);
+
+    @Test
+    public void run_publishesOnQuorumAndCancelsStragglers() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        List<FeeRateProvider> providers = List.of(
+                provider(10, Duration.ofMillis(10)),
+                provider(20, Duration.ofMillis(20)),
+                provider(Mono.delay(Duration.ofSeconds(10))
+                        .map(t -> feeRate(30))
+                        .doOnCancel(() -> cancelled.set(true))));
+        List<List<FeeRate>> published = new CopyOnWriteArrayList<>();
+
+        List<FeeRate> answers = new FeeRound(2, HEDGE_DELAY).run(providers, published::add).block();
+
+        assertEquals(List.of(10L, 20L), prices(answers));
+        assertEquals(1, published.size());
+        assertEquals(List.of(10L, 20L), prices(published.get(0)));
+        assertTrue(cancelled.get());
+    }
+
+    @Test
+    public void run_publishesAgainForAnswerWithinHedgeDelay() {
+        List<FeeRateProvider> providers = List.of(
+                provider(10, Duration.ofMillis(10)),
+                provider(20, Duration.ofMillis(20)),
+                provider(30, Duration.ofMillis(100)));
+        List<List<FeeRate>> published = new CopyOnWriteArrayList<>();
+
+        List<FeeRate> answers = new FeeRound(2, HEDGE_DELAY).run(providers, published::add).block();
+
+        assertEquals(List.of(10L, 20L, 30L), prices(answers));
+        assertEquals(2, published.size());
+        assertEquals(List.of(10L, 20L), prices(published.get(0)));
+        assertEquals(List.of(10L, 20L, 30L), prices(published.get(1)));
+    }
+
+    @Test
+    public void run_belowQuorum_publishesOnceAtTheEnd() {
+        List<FeeRateProvider> providers = List.of(
+                provider(10, Duration.ofMillis(10)),
+                provider(Mono.error(new IllegalStateException("host down"))),
+                provider(Mono.empty()));
+        List<List<FeeRate>> published = new CopyOnWriteArrayList<>();
+
+        List<FeeRate> answers = new FeeRound(2, HEDGE_DELAY).run(providers, published::add).block();
+
+        assertEquals(List.of(10L), prices(answers));
+        assertEquals(1, published.size());
+        assertEquals(List.of(10L), prices(published.get(0)));
+    }
+
+    private static FeeRateProvider provider(long price, Duration delay) {
+        return provider(Mono.delay(delay).map(t -> feeRate(price)));
+    }
+
+    private static FeeRateProvider provider(Mono<FeeRate> request) {
+        return new FeeRateProvider(Duration.ofMinutes(1)) {
+            @Override
+            public Mono<FeeRate> requestFeeRate() {
+                return request;
+            }
+
+            @Override
+            protected FeeRate doGet() {
+                return request.block();
+            }
+        };
+    }
+
+    private static FeeRate feeRate(long price) {
+        return new FeeRate("BTC", price, FeeRateProvider.MIN_FEE_RATE_FOR_WITHDRAWAL, 0);
+    }
+
+    private static List<Long> prices(List<FeeRate> feeRates) {
+        return feeRates.stream().map(FeeRate::getPrice).toList();
+    }
+}
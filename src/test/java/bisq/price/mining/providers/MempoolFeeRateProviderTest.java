@@ -23,6 +23,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.StandardEnvironment;
 import org.springframework.web.client.RestClientException;
+import reactor.core.publisher.Mono;
 
 import java.time.Instant;
 
@@ -58,8 +59,8 @@ public class MempoolFeeRateProviderTest {
     public static FeeRateProvider buildDummyReachableMempoolFeeRateProvider(long feeRate) {
         MempoolFeeRateProvider dummyProvider = new MempoolFeeRateProvider.First(env) {
             @Override
-            protected FeeRate doGet() {
-                return new FeeRate("BTC", feeRate, MIN_FEE_RATE_FOR_WITHDRAWAL, Instant.now().getEpochSecond());
+            protected Mono<FeeRate> fetch() {
+                return Mono.just(new FeeRate("BTC", feeRate, MIN_FEE_RATE_FOR_WITHDRAWAL, Instant.now().getEpochSecond()));
             }
         };
 
@@ -82,8 +83,8 @@ public class MempoolFeeRateProviderTest {
     public static FeeRateProvider buildDummyUnreachableMempoolFeeRateProvider() throws RestClientException {
         MempoolFeeRateProvider dummyProvider = new MempoolFeeRateProvider.First(env) {
             @Override
-            protected FeeRate doGet() {
-                throw new RestClientException("Simulating connection error when trying to reach API endpoint");
+            protected Mono<FeeRate> fetch() {
+                return Mono.error(new RestClientException("Simulating connection error when trying to reach API endpoint"));
             }
         };
 
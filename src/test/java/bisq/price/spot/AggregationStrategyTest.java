@@ -0,0 +1,107 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.spot;
+
+import bisq.price.common.util.InlierStatistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class AggregationStrategyTest {
+
+    // Three providers agree, one reports a broken price
+    private static final double[] PRICES = {129000, 130000, 131000, 1.0};
+
+    @Test
+    public void median_ignoresOutlierAndReportsIt() {
+        double[] bounds = new double[2];
+        double price = new MedianAggregation(3).aggregate(PRICES, PRICES.length, bounds);
+
+        assertEquals(129500, price);
+        assertEquals(1, countOutside(bounds));
+    }
+
+    @Test
+    public void trimmedMean_dropsLowestAndHighestPrice() {
+        double[] bounds = new double[2];
+        double price = new TrimmedMeanAggregation(20).aggregate(PRICES, PRICES.length, bounds);
+
+        assertEquals(129500, price);
+        assertEquals(129000, bounds[0]);
+        assertEquals(130000, bounds[1]);
+    }
+
+    @Test
+    public void inlierMean_averagesPricesWithinStdDeviation() {
+        double[] bounds = new double[2];
+        double price = new InlierMeanAggregation(1.1).aggregate(PRICES, PRICES.length, bounds);
+
+        assertEquals(130000, price);
+        assertEquals(1, countOutside(bounds));
+    }
+
+    @Test
+    public void forCurrency_prefersCurrencySpecificProperty() {
+        StandardEnvironment env = new StandardEnvironment();
+        assertEquals(AggregationStrategy.DEFAULT_STRATEGY, AggregationStrategy.forCurrency(env, "USD"));
+
+        System.setProperty("bisq.price.aggregation.ARS", MedianAggregation.NAME);
+        try {
+            assertEquals(MedianAggregation.NAME, AggregationStrategy.forCurrency(new StandardEnvironment(), "ARS"));
+            assertEquals(AggregationStrategy.DEFAULT_STRATEGY, AggregationStrategy.forCurrency(new StandardEnvironment(), "USD"));
+        } finally {
+            System.clearProperty("bisq.price.aggregation.ARS");
+        }
+    }
+
+    @Test
+    public void create_isBitIdenticalToScalarPassesByDefault() {
+        // Long enough for the vector kernel to kick in, if it were used
+        Random random = new Random(37);
+        double[] prices = new double[1000];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = 65_000 * (1 + 0.01 * random.nextGaussian());
+        }
+        double[] bounds = new double[2];
+
+        double price = AggregationStrategy.create(new StandardEnvironment(), InlierMeanAggregation.NAME)
+                .aggregate(prices, prices.length, bounds);
+
+        assertEquals(new InlierStatistics().compute(prices, prices.length, 0, 1.1).getInlierMean(), price);
+    }
+
+    @Test
+    public void create_rejectsUnknownStrategy() {
+        assertThrows(IllegalArgumentException.class,
+                () -> AggregationStrategy.create(new StandardEnvironment(), "mode"));
+    }
+
+    private static int countOutside(double[] bounds) {
+        int outside = 0;
+        for (double price : PRICES) {
+            if (price < bounds[0] || price > bounds[1]) {
+                outside++;
+            }
+        }
+        return outside;
+    }
+}
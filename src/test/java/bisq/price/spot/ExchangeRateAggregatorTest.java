@@ -0,0 +1,95 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.spot;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class ExchangeRateAggregatorTest {
+
+    private static final int PROVIDERS = 7;
+    private static final int CURRENCIES = 3000;
+
+    @Test
+    public void aggregate_parallelMatchesSequential() {
+        ExchangeRateStore store = buildStore();
+        int[] currencyIds = new int[CURRENCIES];
+        for (int i = 0; i < CURRENCIES; i++) {
+            currencyIds[i] = i;
+        }
+        StandardEnvironment env = new StandardEnvironment();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ExchangeRate[] sequential = new ExchangeRate[CURRENCIES];
+            double[] sequentialBounds = new double[2 * CURRENCIES];
+            new ExchangeRateAggregator(env, store, pool, Integer.MAX_VALUE)
+                    .aggregate(currencyIds, CURRENCIES, sequential, sequentialBounds, false);
+            ExchangeRate[] parallel = new ExchangeRate[CURRENCIES];
+            double[] parallelBounds = new double[2 * CURRENCIES];
+            new ExchangeRateAggregator(env, store, pool, 1)
+                    .aggregate(currencyIds, CURRENCIES, parallel, parallelBounds, false);
+
+            for (int i = 0; i < CURRENCIES; i++) {
+                if (store.getValidCount(i) == 0) {
+                    assertNull(sequential[i]);
+                    assertNull(parallel[i]);
+                } else if (store.getValidCount(i) == 1) {
+                    assertSame(sequential[i], parallel[i]);
+                } else {
+                    assertEquals(sequential[i].getCurrency(), parallel[i].getCurrency());
+                    assertEquals(sequential[i].getPrice(), parallel[i].getPrice());
+                    assertEquals(sequentialBounds[2 * i], parallelBounds[2 * i]);
+                    assertEquals(sequentialBounds[2 * i + 1], parallelBounds[2 * i + 1]);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static ExchangeRateStore buildStore() {
+        Random random = new Random(36);
+        ExchangeRateStore store = new ExchangeRateStore(PROVIDERS);
+        for (int currencyId = 0; currencyId < CURRENCIES; currencyId++) {
+            store.getCurrencyId("C" + currencyId);
+        }
+        BitSet changed = new BitSet();
+        for (int providerId = 0; providerId < PROVIDERS; providerId++) {
+            store.beginRow(providerId);
+            for (int currencyId = 0; currencyId < CURRENCIES; currencyId++) {
+                // Leave gaps, so some currencies have no or a single rate
+                if (random.nextInt(3) == 0) {
+                    continue;
+                }
+                ExchangeRate rate = new ExchangeRate("C" + currencyId,
+                        (currencyId + 1) * (1 + 0.01 * random.nextGaussian()), 1000L, "P" + providerId);
+                store.put(currencyId, store.getSourceId(providerId, rate.getProvider()), rate, rate, changed);
+            }
+            store.endRow(changed);
+        }
+        return store;
+    }
+}
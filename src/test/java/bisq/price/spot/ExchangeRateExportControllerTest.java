@@ -0,0 +1,187 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.spot;
+
+import bisq.price.spot.journal.PriceJournal;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.http.MediaType;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.test.web.servlet.client.MockMvcWebTestClient;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ExchangeRateExportControllerTest {
+
+    @TempDir
+    Path directory;
+
+    private final ExchangeRateService exchangeRateService = mock(ExchangeRateService.class);
+    private PriceJournal priceJournal;
+    private WebTestClient client;
+    // The second the journaled records start at, later than the start of the journal
+    private long startSec;
+
+    @BeforeEach
+    public void setUp() {
+        MockEnvironment env = new MockEnvironment()
+                .withProperty("bisq.price.journal.enabled", "true")
+                .withProperty("bisq.price.journal.dir", directory.toString())
+                .withProperty("bisq.price.journal.segmentSize", "64KB")
+                .withProperty("bisq.price.journal.compress", "false");
+        env.setConversionService(new ApplicationConversionService());
+        priceJournal = new PriceJournal(env);
+        startSec = System.currentTimeMillis() / 1000 + 10;
+        client = MockMvcWebTestClient
+                .bindToController(new ExchangeRateExportController(exchangeRateService, priceJournal))
+                .build();
+    }
+
+    @Test
+    public void exportMarketPricesAsNdjson_writesOneJsonObjectPerLine() {
+        when(exchangeRateService.getExchangeRates()).thenReturn(List.of(
+                new ExchangeRate("EUR", 60_000, 1000, "Bisq-Aggregate"),
+                new ExchangeRate("USD", 65_000, 2000, "BINANCE")));
+
+        String body = client.get().uri("/exportMarketPrices/ndjson")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertEquals("""
+                {"currencyCode":"EUR","price":60000.0,"timestampSec":1000,"provider":"Bisq-Aggregate"}
+                {"currencyCode":"USD","price":65000.0,"timestampSec":2000,"provider":"BINANCE"}
+                """, body);
+    }
+
+    @Test
+    public void exportMarketPricesAsCsv_writesHeaderAndEscapesFields() {
+        when(exchangeRateService.getExchangeRates()).thenReturn(List.of(
+                new ExchangeRate("EUR", 60_000, 1000, "Bisq-Aggregate"),
+                new ExchangeRate("ARS", 1.5, 2000, "CRYPTOYA: \"ripio\", lemoncash")));
+
+        String body = client.get().uri("/exportMarketPrices/csv")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.parseMediaType(ExchangeRateExportController.CSV))
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertEquals(ExchangeRateExportController.MARKET_PRICES_CSV_HEADER
+                + "EUR,60000.0,1000,Bisq-Aggregate\n"
+                + "ARS,1.5,2000,\"CRYPTOYA: \"\"ripio\"\", lemoncash\"\n", body);
+    }
+
+    @Test
+    public void exportPriceHistoryAsCsv_returnsRecordsWithinFromAndTo() {
+        journalOneAggregatePerSecond();
+
+        String body = client.get()
+                .uri("/exportPriceHistory/csv?from={from}&to={to}&currency=eur", startSec + 2, startSec + 4)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.parseMediaType(ExchangeRateExportController.CSV))
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        // Both bounds are inclusive, the last second as a whole
+        long time = startSec * 1000;
+        assertEquals(ExchangeRateExportController.PRICE_HISTORY_CSV_HEADER
+                + (time + 2000) + ",aggregate,EUR,1002.0," + (time + 2000) + ",Bisq-Aggregate,3\n"
+                + (time + 3000) + ",aggregate,EUR,1003.0," + (time + 3000) + ",Bisq-Aggregate,3\n"
+                + (time + 4500) + ",aggregate,EUR,1004.0," + (time + 4500) + ",Bisq-Aggregate,3\n", body);
+    }
+
+    @Test
+    public void exportPriceHistoryAsNdjson_returnsRecordsWithinFromAndTo() throws Exception {
+        journalOneAggregatePerSecond();
+
+        String body = client.get()
+                .uri("/exportPriceHistory/ndjson?from={from}&to={to}&providers=true", startSec + 5, startSec + 6)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertTrue(body.endsWith("\n"));
+        String[] lines = body.split("\n");
+        // An aggregate and a provider rate in each of the two seconds
+        assertEquals(4, lines.length);
+        ObjectMapper objectMapper = new ObjectMapper();
+        for (int i = 0; i < lines.length; i++) {
+            JsonNode record = objectMapper.readTree(lines[i]);
+            assertEquals((startSec + 5 + i / 2) * 1000, record.get("time").asLong());
+            assertEquals(i % 2 == 0 ? "rate" : "aggregate", record.get("type").asText());
+            assertEquals(i % 2 == 0 ? "BINANCE" : "Bisq-Aggregate", record.get("provider").asText());
+            assertEquals(i % 2 == 0 ? 0 : 3, record.get("providerCount").asInt());
+        }
+    }
+
+    @Test
+    public void exportPriceHistory_rejectsRangesLongerThanTheMaximum() {
+        journalOneAggregatePerSecond();
+        long to = startSec + 9;
+
+        client.get()
+                .uri("/exportPriceHistory/csv?from={from}&to={to}", to - ExchangeRateExportController.MAX_RANGE_SEC - 1, to)
+                .exchange()
+                .expectStatus().isBadRequest();
+        client.get()
+                .uri("/exportPriceHistory/ndjson?from=0")
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        // The longest range allowed
+        String body = client.get()
+                .uri("/exportPriceHistory/csv?from={from}&to={to}", to - ExchangeRateExportController.MAX_RANGE_SEC, to)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+        assertEquals(11, body.split("\n").length);
+    }
+
+    // From startSec to 9 seconds after it, a provider rate and then an aggregate per
+    // second, the one of the fifth second half way into it
+    private void journalOneAggregatePerSecond() {
+        for (int i = 0; i < 10; i++) {
+            long time = (startSec + i) * 1000 + (i == 4 ? 500 : 0);
+            priceJournal.onProviderRates(time, "BINANCE", List.of(new ExchangeRate("EUR", 100 + i, time, "BINANCE")));
+            priceJournal.onAggregate(time, new ExchangeRate("EUR", 1000 + i, time, "Bisq-Aggregate"), 3);
+        }
+    }
+}
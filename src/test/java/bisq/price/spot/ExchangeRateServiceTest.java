@@ -27,13 +27,18 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.env.Environment;
+import org.springframework.core.env.MapPropertySource;
 import org.springframework.core.env.StandardEnvironment;
 
 import javax.annotation.Nullable;
 import java.security.SecureRandom;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import static java.lang.Thread.sleep;
@@ -187,6 +192,179 @@ public class ExchangeRateServiceTest {
         assertEquals(validTimestamp.toString(), retrievedData.get("binanceTs").toString());
     }
 
+    /**
+     * Tests that a refresh of one provider only recomputes the aggregates of the
+     * currencies whose rates changed
+     */
+    @Test
+    public void getAllMarketPrices_recomputesOnlyChangedCurrencies() throws InterruptedException {
+        ExchangeRateProvider first = buildDummyExchangeRateProviderWithRate("first", "BRL", 129000.0);
+        ExchangeRateProvider second = buildDummyExchangeRateProviderWithRate("second", "BRL", 131000.0);
+        ExchangeRate firstEur = new ExchangeRate("EUR", 60000.0, System.currentTimeMillis(), "first");
+        ExchangeRate secondEur = new ExchangeRate("EUR", 61000.0, System.currentTimeMillis(), "second");
+        ExchangeRate firstBrl = first.get().iterator().next();
+        first.put(Set.of(firstBrl, firstEur));
+        second.put(Sets.union(second.get(), Set.of(secondEur)));
+
+        ExchangeRateService service = new ExchangeRateService(new StandardEnvironment(), asList(first, second), Collections.emptyList());
+        service.start();
+        try {
+            Map<String, ExchangeRate> before = toCurrencyMap(validateAndGetRetrievedRates(service.getAllMarketPrices()));
+
+            // Only the BRL rate of the first provider changes
+            Map<String, ExchangeRate> after = toCurrencyMap(validateAndGetRetrievedRates(awaitMarketPrices(service,
+                    () -> first.put(Set.of(new ExchangeRate("BRL", 130000.0, System.currentTimeMillis(), "first"), firstEur)))));
+
+            assertSame(before.get("EUR"), after.get("EUR"));
+            assertNotSame(before.get("BRL"), after.get("BRL"));
+            assertEquals(130500.0, after.get("BRL").getPrice(), 0.001);
+
+            // Nothing changed at all, so every aggregate is reused
+            Map<String, ExchangeRate> unchanged = toCurrencyMap(validateAndGetRetrievedRates(service.getAllMarketPrices()));
+            assertSame(after.get("EUR"), unchanged.get("EUR"));
+            assertSame(after.get("BRL"), unchanged.get("BRL"));
+        } finally {
+            service.stop();
+        }
+    }
+
+    /**
+     * Tests that a provider reporting several rates for the same currency, like CryptoYa
+     * does with one per exchange, has all of them aggregated
+     */
+    @Test
+    public void getAllMarketPrices_aggregatesEveryRateOfAProvider() {
+        StandardEnvironment env = new StandardEnvironment();
+        env.getPropertySources().addFirst(
+                new MapPropertySource("test", Map.of("bisq.price.aggregation.ARS", "median")));
+        ExchangeRateProvider cryptoYa = buildDummyExchangeRateProviderWithRate("CRYPTOYA", "ARS", 100.0);
+        ExchangeRateProvider other = buildDummyExchangeRateProviderWithRate("other", "ARS", 104.0);
+        long now = System.currentTimeMillis();
+        cryptoYa.put(Set.of(
+                new ExchangeRate("ARS", 100.0, now, "CRYPTOYA: buenbit"),
+                new ExchangeRate("ARS", 100.0, now, "CRYPTOYA: ripio"),
+                new ExchangeRate("ARS", 100.0, now, "CRYPTOYA: belo")));
+
+        Map<String, Object> retrievedData = new ExchangeRateService(env, asList(cryptoYa, other),
+                Collections.emptyList()).getAllMarketPrices();
+
+        // The median of all four rates, rather than of one CryptoYa rate and the other one
+        assertEquals(100.0, toCurrencyMap(validateAndGetRetrievedRates(retrievedData)).get("ARS").getPrice());
+        assertEquals(3, retrievedData.get("CRYPTOYACount"));
+        assertEquals(now, retrievedData.get("CRYPTOYATs"));
+    }
+
+    /**
+     * Tests that transformations run when the rates or the transformer change, not on
+     * every request
+     */
+    @Test
+    public void getAllMarketPrices_transformsOnlyOnChange() throws InterruptedException {
+        ExchangeRateProvider provider = buildDummyExchangeRateProviderWithRate("first", "ARS", 100.0);
+        AtomicInteger applied = new AtomicInteger();
+        AtomicLong multiplier = new AtomicLong(2);
+        ExchangeRateTransformer transformer = new ExchangeRateTransformer() {
+            @Override
+            public Optional<ExchangeRate> apply(ExchangeRateProvider provider, ExchangeRate exchangeRate) {
+                applied.incrementAndGet();
+                return Optional.of(new ExchangeRate(exchangeRate.getCurrency(),
+                        exchangeRate.getPrice() * multiplier.get(),
+                        exchangeRate.getTimestamp(),
+                        exchangeRate.getProvider()));
+            }
+
+            @Override
+            public String supportedCurrency() {
+                return "ars";
+            }
+
+            @Override
+            public long getVersion() {
+                return multiplier.get();
+            }
+        };
+        ExchangeRateService service = new ExchangeRateService(new StandardEnvironment(), List.of(provider), List.of(transformer));
+        service.start();
+        try {
+            assertEquals(200.0, toCurrencyMap(validateAndGetRetrievedRates(service.getAllMarketPrices())).get("ARS").getPrice());
+            service.getAllMarketPrices();
+            assertEquals(1, applied.get());
+
+            // The request that notices the new version asks the aggregator to apply it
+            multiplier.set(3);
+            Map<String, Object> retrievedData = awaitMarketPrices(service, service::getAllMarketPrices);
+            assertEquals(300.0, toCurrencyMap(validateAndGetRetrievedRates(retrievedData)).get("ARS").getPrice());
+            assertEquals(2, applied.get());
+        } finally {
+            service.stop();
+        }
+    }
+
+    /**
+     * Tests that rates put by another thread are published, and that stale rates are
+     * dropped without touching the provider's own cache
+     */
+    @Test
+    public void getAllMarketPrices_publishesRatesPutByOtherThreads() throws InterruptedException {
+        ExchangeRateProvider provider = buildDummyExchangeRateProviderWithRate("first", "BRL", 129000.0);
+        ExchangeRateService service = new ExchangeRateService(new StandardEnvironment(), List.of(provider), List.of());
+        assertEquals(129000.0, toCurrencyMap(validateAndGetRetrievedRates(service.getAllMarketPrices())).get("BRL").getPrice());
+
+        service.start();
+        Map<String, Object> retrievedData;
+        try {
+            retrievedData = awaitMarketPrices(service, () -> {
+                Thread refresh = new Thread(() -> provider.put(Set.of(
+                        new ExchangeRate("BRL", 130000.0, System.currentTimeMillis(), "first"),
+                        new ExchangeRate("EUR", 60000.0, 10000L, "first"))));
+                refresh.start();
+            });
+        } finally {
+            service.stop();
+        }
+        Map<String, ExchangeRate> rates = toCurrencyMap(validateAndGetRetrievedRates(retrievedData));
+        assertEquals(130000.0, rates.get("BRL").getPrice());
+        // The EUR rate is stale
+        assertFalse(rates.containsKey("EUR"));
+        assertEquals("1", retrievedData.get("firstCount").toString());
+        assertEquals(2, provider.get().size());
+    }
+
+    /**
+     * Tests that an aggregate carries the timestamp of the newest rate it is based on, so
+     * identical rates always yield identical aggregates
+     */
+    @Test
+    public void getAllMarketPrices_aggregateTimestampIsNewestInlierTimestamp() {
+        long now = System.currentTimeMillis();
+        List<ExchangeRateProvider> providers = asList(
+                buildDummyExchangeRateProviderWithRateAndTimestamp("mercadoBitcoin", "BRL", 0.0, now),  // outlier
+                buildDummyExchangeRateProviderWithRateAndTimestamp("coinGecko", "BRL", 129000.0, now - 2000),
+                buildDummyExchangeRateProviderWithRateAndTimestamp("binance", "BRL", 131000.0, now - 1000));
+
+        List<ExchangeRate> first = validateAndGetRetrievedRates(
+                new ExchangeRateService(new StandardEnvironment(), providers, Collections.emptyList()).getAllMarketPrices());
+        List<ExchangeRate> second = validateAndGetRetrievedRates(
+                new ExchangeRateService(new StandardEnvironment(), providers, Collections.emptyList()).getAllMarketPrices());
+
+        assertEquals(now - 1000, toCurrencyMap(first).get("BRL").getTimestamp());
+        assertEquals(first, second);
+    }
+
+    // Runs the action and waits for the running service to publish new market prices
+    private static Map<String, Object> awaitMarketPrices(ExchangeRateService service, Runnable action)
+            throws InterruptedException {
+        CountDownLatch published = new CountDownLatch(1);
+        service.addMarketPricesListener(published::countDown);
+        action.run();
+        assertTrue(published.await(10, TimeUnit.SECONDS), "no market prices published");
+        return service.getAllMarketPrices();
+    }
+
+    private static Map<String, ExchangeRate> toCurrencyMap(List<ExchangeRate> exchangeRates) {
+        return exchangeRates.stream().collect(Collectors.toMap(ExchangeRate::getCurrency, e -> e));
+    }
+
     @Test
     public void bisqIndexCalculation_oneOutlierPriceWideRange() {
         String fiatCoin = "BRL";
@@ -0,0 +1,127 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.spot;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ExchangeRateStoreTest {
+
+    @Test
+    public void writeRow_tracksChangedCurrencies() {
+        ExchangeRateStore store = new ExchangeRateStore(3);
+        int usd = store.getCurrencyId("USD");
+        int eur = store.getCurrencyId("EUR");
+        ExchangeRate usdRate = new ExchangeRate("USD", 67000.0, 1000L, "A");
+        ExchangeRate eurRate = new ExchangeRate("EUR", 62000.0, 1000L, "A");
+
+        BitSet changed = new BitSet();
+        writeRow(store, 0, changed, usdRate, eurRate);
+        assertEquals(2, changed.cardinality());
+
+        // Same objects again: nothing changed
+        changed.clear();
+        writeRow(store, 0, changed, usdRate, eurRate);
+        assertTrue(changed.isEmpty());
+
+        // EUR is dropped, USD has a new rate
+        changed.clear();
+        ExchangeRate newUsdRate = new ExchangeRate("USD", 67100.0, 2000L, "A");
+        writeRow(store, 0, changed, newUsdRate);
+        assertTrue(changed.get(usd));
+        assertTrue(changed.get(eur));
+        assertEquals(0, store.getValidCount(eur));
+        assertSame(newUsdRate, store.getExchangeRate(usd, 0));
+        assertEquals(2000L, store.getTimestamp(usd, 0));
+    }
+
+    @Test
+    public void gatherPrices_inProviderOrder() {
+        ExchangeRateStore store = new ExchangeRateStore(3);
+        int usd = store.getCurrencyId("USD");
+        BitSet changed = new BitSet();
+        writeRow(store, 2, changed, new ExchangeRate("USD", 3.0, 1000L, "C"));
+        writeRow(store, 0, changed, new ExchangeRate("USD", 1.0, 1000L, "A"));
+
+        double[] prices = new double[3];
+        assertEquals(2, store.gatherPrices(usd, prices));
+        assertEquals(1.0, prices[0]);
+        assertEquals(3.0, prices[1]);
+        assertEquals(0, store.nextValidSource(usd, 0));
+        assertEquals(2, store.nextValidSource(usd, 1));
+    }
+
+    @Test
+    public void writeRow_keepsEveryRateOfAProviderWithSeveralSources() {
+        ExchangeRateStore store = new ExchangeRateStore(2);
+        int ars = store.getCurrencyId("ARS");
+        BitSet changed = new BitSet();
+        writeRow(store, 0, changed, new ExchangeRate("ARS", 1.0, 1000L, "A"));
+        // More sources than the store initially has room for
+        ExchangeRate[] rates = new ExchangeRate[10];
+        for (int i = 0; i < rates.length; i++) {
+            rates[i] = new ExchangeRate("ARS", 10.0 + i, 1000L, "CRYPTOYA: exchange" + i);
+        }
+        writeRow(store, 1, changed, rates);
+
+        assertEquals(11, store.getValidCount(ars));
+        assertEquals(10, store.getRateCount(1));
+        assertEquals(1, store.getSourceIds(1)[0]);
+        double[] prices = new double[store.getSourceCount()];
+        assertEquals(11, store.gatherPrices(ars, prices));
+        assertEquals(1.0, prices[0]);
+        for (int i = 0; i < rates.length; i++) {
+            int sourceId = store.getSourceId(1, rates[i].getProvider());
+            assertEquals(1, store.getProviderId(sourceId));
+            assertSame(rates[i], store.getExchangeRate(ars, sourceId));
+        }
+
+        // One exchange is dropped, only its rate is cleared
+        changed.clear();
+        writeRow(store, 1, changed, Arrays.copyOf(rates, rates.length - 1));
+        assertTrue(changed.get(ars));
+        assertEquals(10, store.getValidCount(ars));
+        assertEquals(9, store.getRateCount(1));
+    }
+
+    @Test
+    public void getCurrencyId_growsBeyondInitialCapacity() {
+        ExchangeRateStore store = new ExchangeRateStore(1);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, store.getCurrencyId("C" + i));
+        }
+        assertEquals(1000, store.getCurrencyCount());
+        assertEquals("C999", store.getCurrencyCode(999));
+        assertEquals(999, store.getCurrencyId("C999"));
+    }
+
+    private static void writeRow(ExchangeRateStore store, int providerId, BitSet changed, ExchangeRate... rates) {
+        store.beginRow(providerId);
+        for (ExchangeRate rate : rates) {
+            store.put(store.getCurrencyId(rate.getCurrency()), store.getSourceId(providerId, rate.getProvider()),
+                    rate, rate, changed);
+        }
+        store.endRow(changed);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.spot;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ExpiryWheelTest {
+
+    @Test
+    public void advance_expiresEntriesWhenDue() {
+        ExpiryWheel wheel = new ExpiryWheel(8, 1000, 0);
+        wheel.schedule(1, 2500);
+        wheel.schedule(2, 4000);
+        List<Long> expired = new ArrayList<>();
+
+        wheel.advance(2499, expired::add);
+        assertTrue(expired.isEmpty());
+
+        wheel.advance(2500, expired::add);
+        assertEquals(List.of(1L), expired);
+
+        wheel.advance(10_000, expired::add);
+        assertEquals(List.of(1L, 2L), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void advance_keepsEntriesDueInLaterTurns() {
+        // One turn covers 4 seconds
+        ExpiryWheel wheel = new ExpiryWheel(4, 1000, 0);
+        wheel.schedule(1, 9500);
+        List<Long> expired = new ArrayList<>();
+
+        wheel.advance(1500, expired::add);
+        wheel.advance(5500, expired::add);
+        assertTrue(expired.isEmpty());
+        assertEquals(1, wheel.size());
+
+        wheel.advance(9500, expired::add);
+        assertEquals(List.of(1L), expired);
+    }
+
+    @Test
+    public void schedule_pastDeadlineExpiresOnNextAdvance() {
+        ExpiryWheel wheel = new ExpiryWheel(8, 1000, 100_000);
+        wheel.schedule(1, 10_000);
+        List<Long> expired = new ArrayList<>();
+
+        wheel.advance(100_000, expired::add);
+        assertEquals(List.of(1L), expired);
+    }
+
+    @Test
+    public void schedule_growsSlots() {
+        ExpiryWheel wheel = new ExpiryWheel(2, 1000, 0);
+        for (long key = 0; key < 100; key++) {
+            wheel.schedule(key, 1000);
+        }
+        List<Long> expired = new ArrayList<>();
+        wheel.advance(1000, expired::add);
+        assertEquals(100, expired.size());
+    }
+
+    @Test
+    public void constructor_rejectsSlotCountNotPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new ExpiryWheel(6, 1000, 0));
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.spot.history;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CandleSeriesTest {
+
+    @Test
+    public void update_tracksOpenHighLowClose() {
+        CandleSeries series = new CandleSeries(CandleResolution.ONE_MINUTE, 4);
+        series.update(60_000, 100);
+        series.update(70_000, 120);
+        series.update(80_000, 90);
+        series.update(119_999, 110);
+
+        assertEquals("{\"timestampSec\":60,\"open\":100.0,\"high\":120.0,\"low\":90.0,\"close\":110.0}",
+                write(series));
+    }
+
+    @Test
+    public void update_closesCandleInLaterInterval() {
+        CandleSeries series = new CandleSeries(CandleResolution.ONE_MINUTE, 4);
+        series.update(60_000, 100);
+        series.update(90_000, 110);
+        // Intervals without prices have no candle
+        series.update(200_000, 105);
+
+        assertEquals("{\"timestampSec\":60,\"open\":100.0,\"high\":110.0,\"low\":100.0,\"close\":110.0}," +
+                        "{\"timestampSec\":180,\"open\":105.0,\"high\":105.0,\"low\":105.0,\"close\":105.0}",
+                write(series));
+    }
+
+    @Test
+    public void update_keepsLatestClosedCandles() {
+        CandleSeries series = new CandleSeries(CandleResolution.ONE_HOUR, 2);
+        for (int hour = 0; hour < 5; hour++) {
+            series.update(hour * 3_600_000L, hour);
+        }
+
+        assertEquals("{\"timestampSec\":7200,\"open\":2.0,\"high\":2.0,\"low\":2.0,\"close\":2.0}," +
+                        "{\"timestampSec\":10800,\"open\":3.0,\"high\":3.0,\"low\":3.0,\"close\":3.0}," +
+                        "{\"timestampSec\":14400,\"open\":4.0,\"high\":4.0,\"low\":4.0,\"close\":4.0}",
+                write(series));
+    }
+
+    @Test
+    public void writeTo_writesNothingWithoutPrices() {
+        assertEquals("", write(new CandleSeries(CandleResolution.ONE_DAY, 2)));
+    }
+
+    /**
+     * Tests that a reader racing with interval rollovers sees each candle once, the
+     * closed ones followed by the open one, without gaps
+     */
+    @Test
+    public void writeTo_seesEachCandleOnceDuringRollovers() throws InterruptedException {
+        CandleSeries series = new CandleSeries(CandleResolution.ONE_MINUTE, 4);
+        AtomicBoolean done = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            for (int minute = 0; minute < 200_000; minute++) {
+                series.update(minute * 60_000L, minute);
+                series.update(minute * 60_000L + 30_000, minute);
+            }
+            done.set(true);
+        });
+        writer.start();
+
+        Pattern timestamp = Pattern.compile("\"timestampSec\":(\\d+)");
+        int reads = 0;
+        while (!done.get() || reads == 0) {
+            Matcher matcher = timestamp.matcher(write(series));
+            long previous = -1;
+            int candles = 0;
+            while (matcher.find()) {
+                long timestampSec = Long.parseLong(matcher.group(1));
+                assertTrue(previous < 0 || timestampSec == previous + 60,
+                        "candle at " + timestampSec + " after " + previous);
+                previous = timestampSec;
+                candles++;
+            }
+            // The closed candles kept and the open one
+            assertTrue(candles <= 5, candles + " candles");
+            reads++;
+        }
+        writer.join();
+    }
+
+    private static String write(CandleSeries series) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        series.writeTo(out);
+        return out.toString(StandardCharsets.US_ASCII);
+    }
+}
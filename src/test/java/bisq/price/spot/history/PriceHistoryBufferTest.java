@@ -0,0 +1,122 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.spot.history;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PriceHistoryBufferTest {
+
+    @Test
+    public void get_returnsPointsInRange() {
+        PriceHistoryBuffer buffer = new PriceHistoryBuffer(8, 1000);
+        for (int i = 0; i < 5; i++) {
+            buffer.append(i * 1000L, 100 + i, i);
+        }
+
+        assertEquals(List.of(
+                        new PricePoint(1000, 101, 1),
+                        new PricePoint(2000, 102, 2),
+                        new PricePoint(3000, 103, 3)),
+                buffer.get(500, 3000));
+        assertEquals(5, buffer.get(Long.MIN_VALUE, Long.MAX_VALUE).size());
+        assertTrue(buffer.get(5000, 6000).isEmpty());
+    }
+
+    @Test
+    public void append_overwritesOldestPointsWhenFull() {
+        PriceHistoryBuffer buffer = new PriceHistoryBuffer(4, 1000);
+        for (int i = 0; i < 10; i++) {
+            buffer.append(i * 1000L, i, 1);
+        }
+
+        List<PricePoint> points = buffer.get(0, Long.MAX_VALUE);
+        assertEquals(4, points.size());
+        assertEquals(6000, points.get(0).timestamp());
+        assertEquals(9000, points.get(3).timestamp());
+        assertEquals(List.of(new PricePoint(7000, 7, 1), new PricePoint(8000, 8, 1)),
+                buffer.get(6500, 8999));
+    }
+
+    @Test
+    public void append_mergesPointsWithinSameInterval() {
+        PriceHistoryBuffer buffer = new PriceHistoryBuffer(4, 60_000);
+        buffer.append(60_000, 2, 1);
+        buffer.append(61_000, 1, 2);
+        buffer.append(119_999, 6, 3);
+        buffer.append(120_000, 4, 4);
+
+        assertEquals(List.of(new PricePoint(119_999, 6, 1, 6, 3, 3), new PricePoint(120_000, 4, 4)),
+                buffer.get(0, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void append_neverMovesTimeBackwards() {
+        PriceHistoryBuffer buffer = new PriceHistoryBuffer(4, 1000);
+        buffer.append(5000, 1, 1);
+        buffer.append(3000, 2, 1);
+
+        assertEquals(List.of(new PricePoint(5000, 2, 1, 2, 1.5, 1)), buffer.get(0, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void open_keepsPointsAcrossRestarts(@TempDir Path directory) throws IOException {
+        Path path = directory.resolve("BTC-1h.history");
+        PriceHistoryBuffer buffer = PriceHistoryBuffer.open(path, 4, 1000);
+        for (int i = 0; i < 6; i++) {
+            buffer.append(i * 1000L, i, 1);
+        }
+
+        PriceHistoryBuffer reopened = PriceHistoryBuffer.open(path, 4, 1000);
+        assertEquals(buffer.get(0, Long.MAX_VALUE), reopened.get(0, Long.MAX_VALUE));
+        assertEquals(5000, reopened.getLastTimestamp());
+    }
+
+    @Test
+    public void open_carriesPointsOverToNewCapacityAndInterval(@TempDir Path directory) throws IOException {
+        Path path = directory.resolve("BTC-1h.history");
+        PriceHistoryBuffer buffer = PriceHistoryBuffer.open(path, 8, 1000);
+        for (int i = 0; i < 8; i++) {
+            buffer.append(i * 1000L, i, 1);
+        }
+
+        PriceHistoryBuffer resized = PriceHistoryBuffer.open(path, 2, 4000);
+        assertEquals(List.of(
+                        new PricePoint(3000, 3, 0, 3, 1.5, 1),
+                        new PricePoint(7000, 7, 4, 7, 5.5, 1)),
+                resized.get(0, Long.MAX_VALUE));
+        assertEquals(2, PriceHistoryBuffer.open(path, 2, 4000).getCapacity());
+    }
+
+    @Test
+    public void open_rejectsOtherFiles(@TempDir Path directory) throws IOException {
+        Path path = directory.resolve("BTC-1h.history");
+        Files.write(path, new byte[100]);
+
+        assertThrows(IOException.class, () -> PriceHistoryBuffer.open(path, 4, 1000));
+    }
+}
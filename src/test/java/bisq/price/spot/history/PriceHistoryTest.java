@@ -0,0 +1,131 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+package bisq.price.spot.history;
+
+import bisq.price.spot.ExchangeRate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class PriceHistoryTest {
+    private static final long HOUR = Duration.ofHours(1).toMillis();
+    private static final long DAY = Duration.ofDays(1).toMillis();
+    private static final long START = 19_000 * DAY;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void onAggregate_rollsUpIntoHourlyAndDailyTiers() {
+        PriceHistory history = new PriceHistory(environment());
+        // Every 10 minutes for 3 hours
+        for (int i = 0; i < 18; i++) {
+            history.onAggregate(START + i * 600_000L, new ExchangeRate("EUR", 100 + i, START, "Bisq-Aggregate"), 2);
+        }
+
+        PriceHistory.Series raw = history.get("EUR", START, START + DAY, Duration.ofMinutes(15).toMillis());
+        assertEquals(60_000, raw.resolutionMillis());
+        assertEquals(18, raw.points().size());
+
+        PriceHistory.Series hourly = history.get("EUR", START, START + DAY, Duration.ofHours(6).toMillis());
+        assertEquals(HOUR, hourly.resolutionMillis());
+        assertEquals(List.of(
+                        new PricePoint(START + 3_000_000, 105, 100, 105, 102.5, 2),
+                        new PricePoint(START + 6_600_000, 111, 106, 111, 108.5, 2),
+                        new PricePoint(START + 10_200_000, 117, 112, 117, 114.5, 2)),
+                hourly.points());
+
+        PriceHistory.Series daily = history.get("EUR", START, START + DAY, Duration.ofDays(7).toMillis());
+        assertEquals(DAY, daily.resolutionMillis());
+        assertEquals(List.of(new PricePoint(START + 10_200_000, 117, 100, 117, 108.5, 2)), daily.points());
+    }
+
+    @Test
+    public void rollups_surviveRestartsWithoutCountingReplayedAggregatesTwice() {
+        PriceHistory history = new PriceHistory(environment());
+        for (int i = 0; i < 6; i++) {
+            history.onAggregate(START + i * 600_000L, new ExchangeRate("EUR", 100 + i, START, "Bisq-Aggregate"), 2);
+        }
+        List<PricePoint> hourly = history.get("EUR", START, START + DAY, HOUR).points();
+
+        PriceHistory restarted = new PriceHistory(environment());
+        assertEquals(hourly, restarted.get("EUR", START, START + DAY, HOUR).points());
+        assertEquals(List.of(), restarted.get("EUR", START, START + DAY, 60_000).points());
+
+        // As the journal replays them
+        for (int i = 0; i < 6; i++) {
+            restarted.onAggregate(START + i * 600_000L, new ExchangeRate("EUR", 100 + i, START, "Bisq-Aggregate"), 2);
+        }
+        assertEquals(hourly, restarted.get("EUR", START, START + DAY, HOUR).points());
+        assertEquals(6, restarted.get("EUR", START, START + DAY, 60_000).points().size());
+    }
+
+    @Test
+    public void get_routesToFinestTierReachingBackFarEnough() {
+        PriceHistory history = new PriceHistory(environment());
+        long now = START;
+
+        assertEquals(0, history.tierIndex(now - HOUR, 0, now));
+        assertEquals(1, history.tierIndex(now - 30 * DAY, 0, now));
+        assertEquals(2, history.tierIndex(now - 400 * DAY, 0, now));
+        assertEquals(2, history.tierIndex(0, 0, now));
+    }
+
+    @Test
+    public void retentionOfZero_disablesTier() {
+        MockEnvironment env = environment().withProperty("bisq.price.history.retention.1h", "0s");
+        PriceHistory history = new PriceHistory(env);
+
+        assertEquals(List.of("raw", "1d"), history.getTiers().stream().map(PriceHistory.Tier::name).toList());
+        assertEquals(60_000, history.get("EUR", START, START, HOUR).resolutionMillis());
+    }
+
+    @Test
+    public void rollups_areKeptInMemoryWithoutAbsoluteDirectory() {
+        Path relative = Path.of("history-" + System.currentTimeMillis());
+        for (MockEnvironment env : List.of(environment(null), environment(relative.toString()))) {
+            PriceHistory history = new PriceHistory(env);
+            history.onAggregate(START, new ExchangeRate("EUR", 100, START, "Bisq-Aggregate"), 2);
+
+            assertEquals(1, history.get("EUR", START, START + DAY, HOUR).points().size());
+            assertEquals(List.of(), new PriceHistory(env).get("EUR", START, START + DAY, HOUR).points());
+        }
+        assertFalse(Files.exists(relative));
+    }
+
+    private MockEnvironment environment() {
+        return environment(directory.toString());
+    }
+
+    private MockEnvironment environment(String directoryName) {
+        MockEnvironment env = new MockEnvironment();
+        if (directoryName != null) {
+            env.setProperty("bisq.price.history.dir", directoryName);
+        }
+        env.setConversionService(new ApplicationConversionService());
+        return env;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.spot.history;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class SmoothedPriceSeriesTest {
+    private static final long MINUTE = 60_000;
+
+    @Test
+    public void update_constantPriceIsItsOwnAverage() {
+        SmoothedPriceSeries series = new SmoothedPriceSeries(new long[]{5 * MINUTE, 60 * MINUTE});
+        assertNull(series.getValues());
+
+        for (int minute = 0; minute <= 90; minute++) {
+            series.update(minute * MINUTE, 100);
+            assertArrayEquals(new double[]{100, 100}, series.getValues().twaps(), 1e-9);
+            assertArrayEquals(new double[]{100, 100}, series.getValues().emas(), 1e-9);
+        }
+    }
+
+    @Test
+    public void update_averagesOverWindowOnly() {
+        SmoothedPriceSeries series = new SmoothedPriceSeries(new long[]{5 * MINUTE, 60 * MINUTE});
+        series.update(0, 100);
+        series.update(55 * MINUTE, 200);
+        series.update(60 * MINUTE, 200);
+
+        SmoothedPriceSeries.Values values = series.getValues();
+        assertEquals(60 * MINUTE, values.time());
+        // 100 held for 55 minutes, 200 for 5 minutes
+        assertEquals(200, values.twaps()[0], 1e-9);
+        assertEquals((100 * 55 + 200 * 5) / 60.0, values.twaps()[1], 1e-9);
+    }
+
+    @Test
+    public void update_averagesPartOfWindowToBucketPrecision() {
+        SmoothedPriceSeries series = new SmoothedPriceSeries(new long[]{5 * MINUTE});
+        series.update(0, 100);
+        series.update(10 * MINUTE, 200);
+        series.update(12 * MINUTE + 30_000, 200);
+
+        // Half of the window at each price, give or take a bucket
+        assertEquals(150, series.getValues().twaps()[0], 100.0 / SmoothedPriceSeries.BUCKETS);
+    }
+
+    @Test
+    public void update_emaDecaysWithWindowAsTimeConstant() {
+        SmoothedPriceSeries series = new SmoothedPriceSeries(new long[]{5 * MINUTE});
+        series.update(0, 100);
+        series.update(MINUTE, 200);
+        series.update(6 * MINUTE, 200);
+
+        assertEquals(200 - 100 * Math.exp(-1), series.getValues().emas()[0], 1e-9);
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.spot.journal;
+
+import bisq.price.spot.AggregateExchangeRateListener;
+import bisq.price.spot.ExchangeRate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PriceJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void replay_returnsRecordsWrittenBeforeRestart() {
+        PriceJournal journal = new PriceJournal(environment("64MB"));
+        long time = System.currentTimeMillis();
+        ExchangeRate eur = new ExchangeRate("EUR", 60_000, time - 5000, "BINANCE");
+        ExchangeRate usd = new ExchangeRate("USD", 65_000, time - 4000, "BINANCE");
+        ExchangeRate aggregate = new ExchangeRate("EUR", 60_100, time - 5000, "Bisq-Aggregate");
+        journal.onProviderRates(time, "BINANCE", List.of(eur, usd));
+        journal.onAggregate(time, aggregate, 3);
+        journal.close();
+
+        List<String> records = new ArrayList<>();
+        PriceJournal restarted = new PriceJournal(environment("64MB"));
+        restarted.replay(0, Long.MAX_VALUE, new JournalVisitor() {
+            @Override
+            public void onProviderRate(long recordTime, ExchangeRate exchangeRate) {
+                records.add(recordTime + " " + exchangeRate);
+            }
+
+            @Override
+            public void onAggregate(long recordTime, ExchangeRate exchangeRate, int providerCount) {
+                records.add(recordTime + " " + exchangeRate + " " + providerCount);
+            }
+        });
+        assertEquals(List.of(time + " " + eur, time + " " + usd, time + " " + aggregate + " 3"), records);
+
+        List<ExchangeRate> aggregates = new ArrayList<>();
+        restarted.replayTo((AggregateExchangeRateListener) (t, a, providerCount) -> aggregates.add(a));
+        assertEquals(List.of(aggregate), aggregates);
+        restarted.close();
+    }
+
+    @Test
+    public void onAggregate_rollsOverToNewSegmentWhenFull() throws IOException {
+        PriceJournal journal = new PriceJournal(environment("64KB"));
+        long time = System.currentTimeMillis();
+        // More records than fit into one 64 KB segment
+        for (int i = 0; i < 3000; i++) {
+            journal.onAggregate(time + i, new ExchangeRate("EUR", i, time, "Bisq-Aggregate"), 1);
+        }
+        journal.close();
+        assertEquals(2, PriceJournal.listSegments(directory).size());
+
+        List<Double> prices = new ArrayList<>();
+        PriceJournal restarted = new PriceJournal(environment("64KB"));
+        restarted.replay(0, Long.MAX_VALUE, new JournalVisitor() {
+            @Override
+            public void onAggregate(long recordTime, ExchangeRate aggregate, int providerCount) {
+                assertEquals(time + (long) aggregate.getPrice(), recordTime);
+                prices.add(aggregate.getPrice());
+            }
+        });
+        restarted.close();
+        assertEquals(3000, prices.size());
+        assertEquals(2999, prices.get(2999));
+    }
+
+    @Test
+    public void getPriceAt_findsLatestAggregateWithTheRatesItIsBasedOn() {
+        PriceJournal journal = new PriceJournal(environment("64KB"));
+        long start = System.currentTimeMillis();
+        // Spread over several segments, with an aggregate every other second
+        for (int i = 0; i < 3000; i++) {
+            long time = start + i * 1000L;
+            String provider = "PROVIDER" + i % 3;
+            journal.onProviderRates(time, provider, List.of(
+                    new ExchangeRate("EUR", 100 + i, time, provider),
+                    new ExchangeRate("USD", 200 + i, time, provider)));
+            if (i % 2 == 1) {
+                // Two of the rates of CryptoYa, named after their exchanges, and not the
+                // outlier of the third provider
+                journal.onAggregate(time, new ExchangeRate("EUR", 1000 + i, time, "Bisq-Aggregate"), 3, List.of(
+                        new ExchangeRate("EUR", 100 + i, time, provider),
+                        new ExchangeRate("EUR", 101 + i, time - 1000, "CRYPTOYA: lemoncash"),
+                        new ExchangeRate("EUR", 102 + i, time - 2000, "CRYPTOYA: ripio")));
+            }
+        }
+
+        JournaledPrice price = journal.getPriceAt("EUR", start + 2500_999).orElseThrow();
+        assertEquals(start + 2499_000, price.publishedTime());
+        assertEquals(3499, price.aggregate().getPrice());
+        assertEquals(3, price.providerCount());
+        assertEquals(List.of(
+                        new ExchangeRate("EUR", 2600, start + 2498_000, "CRYPTOYA: lemoncash"),
+                        new ExchangeRate("EUR", 2601, start + 2497_000, "CRYPTOYA: ripio"),
+                        new ExchangeRate("EUR", 2599, start + 2499_000, "PROVIDER0")),
+                price.providerRates());
+        assertEquals(3999, journal.getPriceAt("EUR", Long.MAX_VALUE).orElseThrow().aggregate().getPrice());
+        assertEquals(Optional.empty(), journal.getPriceAt("EUR", start + 500));
+        assertEquals(Optional.empty(), journal.getPriceAt("USD", start + 2500_999));
+        journal.close();
+
+        // The same after a restart
+        PriceJournal restarted = new PriceJournal(environment("64KB"));
+        assertEquals(price, restarted.getPriceAt("EUR", start + 2500_999).orElseThrow());
+        restarted.close();
+    }
+
+    @Test
+    public void read_iteratesRecordsInRangeAcrossSegments() {
+        PriceJournal journal = new PriceJournal(environment("64KB"));
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 3000; i++) {
+            long time = start + i * 1000L;
+            journal.onProviderRates(time, "PROVIDER", List.of(
+                    new ExchangeRate("EUR", 100 + i, time, "PROVIDER"),
+                    new ExchangeRate("USD", 200 + i, time, "PROVIDER")));
+            if (i % 2 == 1) {
+                journal.onAggregate(time, new ExchangeRate("EUR", 1000 + i, time, "Bisq-Aggregate"), 1);
+            }
+        }
+
+        List<JournalRecord> records = toList(journal.read(start + 1000_000, start + 1999_999, "EUR", true));
+        assertEquals(1500, records.size());
+        assertEquals(new JournalRecord(start + 1000_000, false,
+                new ExchangeRate("EUR", 1100, start + 1000_000, "PROVIDER"), 0), records.get(0));
+        assertEquals(new JournalRecord(start + 1999_000, true,
+                new ExchangeRate("EUR", 2999, start + 1999_000, "Bisq-Aggregate"), 1), records.get(1499));
+        for (int i = 1; i < records.size(); i++) {
+            assertTrue(records.get(i - 1).time() <= records.get(i).time());
+        }
+
+        assertEquals(500, toList(journal.read(start + 1000_000, start + 1999_999, null, false)).size());
+        assertEquals(List.of(), toList(journal.read(start + 1000_000, start + 1999_999, "JPY", true)));
+        journal.close();
+
+        // The same from compressed segments
+        PriceJournal restarted = new PriceJournal(environment("64KB"));
+        assertEquals(records, toList(restarted.read(start + 1000_000, start + 1999_999, "EUR", true)));
+        assertEquals(7500, toList(restarted.read(0, Long.MAX_VALUE, null, true)).size());
+        restarted.close();
+    }
+
+    private static List<JournalRecord> toList(Iterator<JournalRecord> iterator) {
+        List<JournalRecord> records = new ArrayList<>();
+        iterator.forEachRemaining(records::add);
+        return records;
+    }
+
+    @Test
+    public void start_deletesSegmentsOlderThanRetention() throws Exception {
+        PriceJournal journal = new PriceJournal(environment("64KB"));
+        long time = System.currentTimeMillis();
+        journal.onAggregate(time, new ExchangeRate("EUR", 1, time, "Bisq-Aggregate"), 1);
+        journal.close();
+        new PriceJournal(environment("64KB")).close();
+        assertEquals(2, PriceJournal.listSegments(directory).size());
+        Thread.sleep(50);
+
+        PriceJournal expiring = new PriceJournal(environment("64KB")
+                .withProperty("bisq.price.journal.retention", "10ms"));
+        // Waits for the expiry in the background
+        expiring.close();
+        List<Path> segments = PriceJournal.listSegments(directory);
+        assertEquals(1, segments.size());
+        assertEquals("prices-0000000003.journal", segments.get(0).getFileName().toString());
+    }
+
+    @Test
+    public void start_writesNothingUnlessEnabledWithAbsoluteDirectory() throws IOException {
+        long time = System.currentTimeMillis();
+        PriceJournal disabled = new PriceJournal(environment("64KB")
+                .withProperty("bisq.price.journal.enabled", "false"));
+        disabled.onAggregate(time, new ExchangeRate("EUR", 1, time, "Bisq-Aggregate"), 1);
+        disabled.close();
+        assertTrue(PriceJournal.listSegments(directory).isEmpty());
+
+        Path relative = Path.of("journal-" + time);
+        PriceJournal relativeDirectory = new PriceJournal(environment("64KB")
+                .withProperty("bisq.price.journal.dir", relative.toString()));
+        relativeDirectory.onAggregate(time, new ExchangeRate("EUR", 1, time, "Bisq-Aggregate"), 1);
+        relativeDirectory.close();
+        assertFalse(Files.exists(relative));
+    }
+
+    private MockEnvironment environment(String segmentSize) {
+        MockEnvironment env = new MockEnvironment()
+                .withProperty("bisq.price.journal.enabled", "true")
+                .withProperty("bisq.price.journal.dir", directory.toString())
+                .withProperty("bisq.price.journal.segmentSize", segmentSize);
+        env.setConversionService(new ApplicationConversionService());
+        return env;
+    }
+}
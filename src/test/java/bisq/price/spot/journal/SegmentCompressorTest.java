@@ -0,0 +1,95 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.spot.journal;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SegmentCompressorTest {
+    private static final Path PATH = Path.of("prices-0000000001.journal");
+
+    @Test
+    public void decompress_restoresAllRecords() throws IOException {
+        Random random = new Random(1);
+        JournalSegment segment = JournalSegment.allocate(PATH, 20_000);
+        long time = 1_700_000_000_000L;
+        segment.appendHeader(time);
+        segment.appendName(JournalSegment.PROVIDER, 0, "Bisq-Aggregate", time);
+        // Continued over two more records
+        segment.appendName(JournalSegment.PROVIDER, 1, "AVeryLongProviderNameOfFortyCharacters..", time);
+        for (int currencyId = 0; currencyId < 50; currencyId++) {
+            segment.appendName(JournalSegment.CURRENCY, currencyId, "C" + currencyId, time);
+        }
+        double[] prices = new double[50];
+        for (int currencyId = 0; currencyId < 50; currencyId++) {
+            prices[currencyId] = 1000 + random.nextDouble() * 100_000;
+        }
+        while (segment.getRemaining() > 100) {
+            // Irregular refreshes, sometimes far apart
+            time += random.nextInt(10) == 0 ? random.nextInt(Integer.MAX_VALUE) * 10L : 60_000 + random.nextInt(500);
+            for (int currencyId = 0; currencyId < 50; currencyId++) {
+                if (random.nextBoolean()) {
+                    prices[currencyId] *= 1 + (random.nextDouble() - 0.5) / 100;
+                }
+                long timestamp = random.nextInt(5) == 0 ? 0 : time - random.nextInt(60_000);
+                segment.appendRate(JournalSegment.RATE, currencyId, 1, 0, time, timestamp, prices[currencyId]);
+                segment.appendRate(JournalSegment.AGGREGATE, currencyId, 0, 1 + random.nextInt(3),
+                        time, timestamp, prices[currencyId] * 1.001);
+            }
+        }
+        segment.publish();
+
+        byte[] compressed = SegmentCompressor.compress(segment);
+        JournalSegment decompressed = SegmentCompressor.decompress(PATH, ByteBuffer.wrap(compressed));
+
+        assertTrue(compressed.length < segment.getPublished() * JournalSegment.RECORD_SIZE / 2);
+        assertEquals(segment.getPublished(), decompressed.getPublished());
+        for (int index = 0; index < segment.getPublished(); index++) {
+            assertEquals(segment.getType(index), decompressed.getType(index));
+            assertEquals(segment.getTime(index), decompressed.getTime(index));
+            assertEquals(segment.getId(index), decompressed.getId(index));
+            switch (segment.getType(index)) {
+                case JournalSegment.CURRENCY, JournalSegment.PROVIDER ->
+                        assertEquals(segment.getName(index), decompressed.getName(index));
+                case JournalSegment.RATE, JournalSegment.AGGREGATE -> {
+                    assertEquals(segment.getProviderId(index), decompressed.getProviderId(index));
+                    assertEquals(segment.getProviderCount(index), decompressed.getProviderCount(index));
+                    assertEquals(segment.getTimestamp(index), decompressed.getTimestamp(index));
+                    assertEquals(Double.doubleToRawLongBits(segment.getPrice(index)),
+                            Double.doubleToRawLongBits(decompressed.getPrice(index)));
+                }
+                default -> {
+                }
+            }
+        }
+    }
+
+    @Test
+    public void decompress_rejectsOtherData() {
+        assertThrows(IOException.class,
+                () -> SegmentCompressor.decompress(PATH, ByteBuffer.wrap(new byte[64])));
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.util.http;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConditionalGetTest {
+
+    private static final String BODY = "{\"halfHourFee\": 10, \"economyFee\": 4}";
+    private static final String CHANGED_BODY = "{\"halfHourFee\": 12, \"economyFee\": 5}";
+
+    private final Queue<ClientResponse> responses = new ArrayDeque<>();
+    private final List<ClientRequest> requests = new ArrayList<>();
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+    private final AtomicInteger decodeCount = new AtomicInteger();
+
+    private final ConditionalGet<Map<String, Long>> conditionalGet = new ConditionalGet<>(
+            WebClient.builder()
+                    .exchangeFunction(request -> {
+                        requests.add(request);
+                        return Mono.just(responses.remove());
+                    })
+                    .build(),
+            "https://example.com/api/v1/fees/recommended",
+            clock::get);
+
+    @Test
+    public void get_notModified_returnsPreviousResult() {
+        responses.add(ok("\"a\"", BODY));
+        responses.add(ClientResponse.create(HttpStatus.NOT_MODIFIED).build());
+
+        Map<String, Long> first = get();
+        Map<String, Long> second = get();
+
+        assertSame(first, second);
+        assertEquals(List.of("\"a\""), requests.get(1).headers().getIfNoneMatch());
+        assertEquals(1, decodeCount.get());
+    }
+
+    @Test
+    public void get_identicalBody_returnsPreviousResult() {
+        // No validators, the upstream sends the full body every time
+        responses.add(ok(null, BODY));
+        responses.add(ok(null, BODY));
+
+        Map<String, Long> first = get();
+        Map<String, Long> second = get();
+
+        assertSame(first, second);
+        assertTrue(requests.get(1).headers().getIfNoneMatch().isEmpty());
+    }
+
+    @Test
+    public void get_changedETag_decodesNewBodyAndSendsNewETag() {
+        responses.add(ok("\"a\"", BODY));
+        responses.add(ok("\"b\"", CHANGED_BODY));
+        responses.add(ClientResponse.create(HttpStatus.NOT_MODIFIED).build());
+
+        Map<String, Long> first = get();
+        Map<String, Long> second = get();
+        Map<String, Long> third = get();
+
+        assertNotSame(first, second);
+        assertEquals(12L, second.get("halfHourFee"));
+        assertEquals(List.of("\"a\""), requests.get(1).headers().getIfNoneMatch());
+        assertEquals(List.of("\"b\""), requests.get(2).headers().getIfNoneMatch());
+        assertSame(second, third);
+    }
+
+    @Test
+    public void get_afterMaxReuseAge_decodesAgain() {
+        responses.add(ok("\"a\"", BODY));
+        responses.add(ok("\"a\"", BODY));
+
+        Map<String, Long> first = get();
+        clock.addAndGet(ConditionalGet.MAX_REUSE_AGE.toMillis());
+        Map<String, Long> second = get();
+
+        // Neither validated nor reused, even though nothing changed
+        assertTrue(requests.get(1).headers().getIfNoneMatch().isEmpty());
+        assertNotSame(first, second);
+        assertEquals(first, second);
+        assertEquals(2, decodeCount.get());
+    }
+
+    private Map<String, Long> get() {
+        Function<Flux<DataBuffer>, Mono<Map<String, Long>>> decoder =
+                ConditionalGet.jsonDecoder(new ParameterizedTypeReference<>() {
+                });
+        return conditionalGet.get(body -> {
+            decodeCount.incrementAndGet();
+            return decoder.apply(body);
+        }).block();
+    }
+
+    private static ClientResponse ok(String eTag, String body) {
+        ClientResponse.Builder builder = ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, "application/json");
+        if (eTag != null) {
+            builder.header(HttpHeaders.ETAG, eTag);
+        }
+        return builder.body(body).build();
+    }
+}
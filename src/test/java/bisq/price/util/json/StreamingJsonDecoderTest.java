@@ -0,0 +1,116 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.util.json;
+
+import bisq.price.spot.ExchangeRate;
+import bisq.price.util.coingecko.CoinGeckoRatesHandler;
+import bisq.price.util.cryptoya.CryptoYaRatesHandler;
+import bisq.price.util.yadio.YadioRatesHandler;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StreamingJsonDecoderTest {
+
+    private static final String COINGECKO_JSON = "{\"rates\": {" +
+            "\"btc\": {\"name\": \"Bitcoin\", \"unit\": \"BTC\", \"value\": 1.0, \"type\": \"crypto\"}," +
+            "\"eth\": {\"name\": \"Ether\", \"unit\": \"ETH\", \"value\": 20.0, \"type\": \"crypto\", \"x\": [1, {\"value\": 2}]}," +
+            "\"usd\": {\"name\": \"US Dollar\", \"unit\": \"$\", \"value\": 67000.12, \"type\": \"fiat\"}," +
+            "\"xau\": {\"name\": \"Gold\", \"unit\": \"XAU\", \"value\": 25.5, \"type\": \"commodity\"}}," +
+            "\"other\": {\"rates\": {\"usd\": {\"value\": 1}}}}";
+
+    @Test
+    public void decode_coinGecko_keepsOnlySupportedCurrencies() {
+        // Use tiny chunks as well, so that tokens span several buffers
+        for (int chunkSize : new int[]{1, 3, COINGECKO_JSON.length()}) {
+            Set<ExchangeRate> rates = StreamingJsonDecoder.decode(chunked(COINGECKO_JSON, chunkSize),
+                    () -> new CoinGeckoRatesHandler(Set.of("USD"), Set.of("ETH"), "COINGECKO")).block();
+
+            Map<String, Double> prices = toPrices(rates);
+            assertEquals(Map.of("USD", 67000.12, "ETH", 0.05), prices);
+        }
+    }
+
+    @Test
+    public void decode_yadio_convertsWhitelistedCurrenciesToBtc() {
+        long timestamp = System.currentTimeMillis();
+        String json = "{\"USD\": {\"AED\": 3.67, \"ARS\": 900.5, \"PYG\": 7300}, \"BTC\": 60000," +
+                " \"base\": \"USD\", \"timestamp\": " + timestamp + "}";
+
+        Set<ExchangeRate> rates = StreamingJsonDecoder.decode(chunked(json, 5),
+                () -> new YadioRatesHandler(Set.of("ARS", "PYG"), Instant.EPOCH, "YADIO")).block();
+
+        assertEquals(Map.of("ARS", 900.5 * 60000, "PYG", 7300d * 60000), toPrices(rates));
+        assertTrue(rates.stream().allMatch(e -> e.getTimestamp() == timestamp));
+    }
+
+    @Test
+    public void decode_yadio_rejectsOutdatedDocument() {
+        String json = "{\"USD\": {\"ARS\": 900.5}, \"BTC\": 60000, \"base\": \"USD\", \"timestamp\": 1000}";
+
+        Set<ExchangeRate> rates = StreamingJsonDecoder.decode(chunked(json, 5),
+                () -> new YadioRatesHandler(Set.of("ARS"), Instant.ofEpochSecond(1), "YADIO")).block();
+
+        assertTrue(rates.isEmpty());
+    }
+
+    @Test
+    public void decode_cryptoYa_skipsUnknownStaleAndZeroAskExchanges() {
+        long now = Instant.now().getEpochSecond();
+        String json = "{\"argenbtc\": {\"ask\": 1.0E7, \"totalAsk\": 1.0E7, \"bid\": 9.9E6, \"time\": " + now + "}," +
+                "\"unknown\": {\"ask\": 5, \"time\": " + now + "}," +
+                "\"ripio\": {\"ask\": 0, \"time\": " + now + "}," +
+                "\"buenbit\": {\"ask\": 1.1E7, \"time\": 1}}";
+
+        Set<ExchangeRate> rates = StreamingJsonDecoder.decode(chunked(json, 7),
+                () -> new CryptoYaRatesHandler(Set.of("argenbtc", "ripio", "buenbit"),
+                        Instant.now().minusSeconds(60), "CRYPTOYA")).block();
+
+        assertEquals(1, rates.size());
+        ExchangeRate rate = rates.iterator().next();
+        assertEquals("ARS", rate.getCurrency());
+        assertEquals(1.0E7, rate.getPrice());
+        assertEquals("CRYPTOYA: argenbtc", rate.getProvider());
+    }
+
+    private static Map<String, Double> toPrices(Set<ExchangeRate> rates) {
+        return rates.stream().collect(Collectors.toMap(ExchangeRate::getCurrency, ExchangeRate::getPrice));
+    }
+
+    private static Flux<DataBuffer> chunked(String json, int chunkSize) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        return Flux.range(0, (bytes.length + chunkSize - 1) / chunkSize)
+                .map(i -> {
+                    int offset = i * chunkSize;
+                    int length = Math.min(chunkSize, bytes.length - offset);
+                    DataBuffer buffer = DefaultDataBufferFactory.sharedInstance.allocateBuffer(length);
+                    buffer.write(bytes, offset, length);
+                    return buffer;
+                });
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * This file is part of Bisq.
+ *
+ * Bisq is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at
+ * your option) any later version.
+ *
+ * Bisq is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Affero General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Bisq. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package bisq.price.common.util;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/* `InlierKernel` on the (incubating) JDK Vector API, processing as many values per
+ * instruction as the CPU's widest vector registers hold. Each lane keeps its own
+ * compensated sums, which are folded together with the remaining tail values at the end.
+ *
+ * Only loaded by `InlierStatistics` when the jdk.incubator.vector module is present,
+ * i.e. when the JVM runs with `--add-modules jdk.incubator.vector`. Kept in a source set
+ * of its own, which only the benchmarks and builds with `-PvectorKernel` include.
+ */
+final class VectorInlierKernel implements InlierKernel {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public int minLength() {
+        return 2 * SPECIES.length();
+    }
+
+    @Override
+    public boolean moments(double[] values, int from, int to, double[] out) {
+        DoubleVector sum = DoubleVector.zero(SPECIES);
+        DoubleVector sumCompensation = DoubleVector.zero(SPECIES);
+        DoubleVector sumOfSquares = DoubleVector.zero(SPECIES);
+        DoubleVector sumOfSquaresCompensation = DoubleVector.zero(SPECIES);
+        DoubleVector min = DoubleVector.broadcast(SPECIES, Double.POSITIVE_INFINITY);
+        DoubleVector max = DoubleVector.broadcast(SPECIES, Double.NEGATIVE_INFINITY);
+
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            DoubleVector value = DoubleVector.fromArray(SPECIES, values, i);
+            min = min.min(value);
+            max = max.max(value);
+
+            DoubleVector tmp = value.sub(sumCompensation);
+            DoubleVector velvel = sum.add(tmp);
+            sumCompensation = velvel.sub(sum).sub(tmp);
+            sum = velvel;
+
+            tmp = value.mul(value).sub(sumOfSquaresCompensation);
+            velvel = sumOfSquares.add(tmp);
+            sumOfSquaresCompensation = velvel.sub(sumOfSquares).sub(tmp);
+            sumOfSquares = velvel;
+        }
+
+        double scalarSum = sum.sub(sumCompensation).reduceLanes(VectorOperators.ADD);
+        double scalarSumCompensation = 0;
+        double scalarSumOfSquares = sumOfSquares.sub(sumOfSquaresCompensation).reduceLanes(VectorOperators.ADD);
+        double scalarSumOfSquaresCompensation = 0;
+        double scalarMin = min.reduceLanes(VectorOperators.MIN);
+        double scalarMax = max.reduceLanes(VectorOperators.MAX);
+        for (; i < to; i++) {
+            double value = values[i];
+            scalarMin = Math.min(scalarMin, value);
+            scalarMax = Math.max(scalarMax, value);
+
+            double tmp = value - scalarSumCompensation;
+            double velvel = scalarSum + tmp;
+            scalarSumCompensation = (velvel - scalarSum) - tmp;
+            scalarSum = velvel;
+
+            tmp = value * value - scalarSumOfSquaresCompensation;
+            velvel = scalarSumOfSquares + tmp;
+            scalarSumOfSquaresCompensation = (velvel - scalarSumOfSquares) - tmp;
+            scalarSumOfSquares = velvel;
+        }
+
+        out[SUM] = scalarSum - scalarSumCompensation;
+        out[SUM_OF_SQUARES] = scalarSumOfSquares - scalarSumOfSquaresCompensation;
+        out[MIN] = scalarMin;
+        out[MAX] = scalarMax;
+        return Double.isFinite(out[SUM]) && Double.isFinite(out[SUM_OF_SQUARES]);
+    }
+
+    @Override
+    public boolean inlierMoments(double[] values, int count, double lower, double upper, double[] out) {
+        DoubleVector sum = DoubleVector.zero(SPECIES);
+        DoubleVector sumCompensation = DoubleVector.zero(SPECIES);
+        DoubleVector min = DoubleVector.broadcast(SPECIES, Double.POSITIVE_INFINITY);
+        DoubleVector max = DoubleVector.broadcast(SPECIES, Double.NEGATIVE_INFINITY);
+        int inliers = 0;
+
+        int i = 0;
+        for (int bound = SPECIES.loopBound(count); i < bound; i += SPECIES.length()) {
+            DoubleVector value = DoubleVector.fromArray(SPECIES, values, i);
+            VectorMask<Double> inlier = value.compare(VectorOperators.GE, lower)
+                    .and(value.compare(VectorOperators.LE, upper));
+            inliers += inlier.trueCount();
+            min = min.lanewise(VectorOperators.MIN, value, inlier);
+            max = max.lanewise(VectorOperators.MAX, value, inlier);
+
+            // Lanes of outliers keep their sums as they are
+            DoubleVector tmp = value.sub(sumCompensation);
+            DoubleVector velvel = sum.add(tmp);
+            sumCompensation = sumCompensation.blend(velvel.sub(sum).sub(tmp), inlier);
+            sum = sum.blend(velvel, inlier);
+        }
+
+        double scalarSum = sum.sub(sumCompensation).reduceLanes(VectorOperators.ADD);
+        double scalarSumCompensation = 0;
+        double scalarMin = min.reduceLanes(VectorOperators.MIN);
+        double scalarMax = max.reduceLanes(VectorOperators.MAX);
+        for (; i < count; i++) {
+            double value = values[i];
+            if (lower <= value && value <= upper) {
+                inliers++;
+                scalarMin = Math.min(scalarMin, value);
+                scalarMax = Math.max(scalarMax, value);
+
+                double tmp = value - scalarSumCompensation;
+                double velvel = scalarSum + tmp;
+                scalarSumCompensation = (velvel - scalarSum) - tmp;
+                scalarSum = velvel;
+            }
+        }
+
+        out[SUM] = scalarSum - scalarSumCompensation;
+        out[MIN] = scalarMin;
+        out[MAX] = scalarMax;
+        out[COUNT] = inliers;
+        return Double.isFinite(out[SUM]);
+    }
+}